@@ -0,0 +1,17 @@
+package zyu19.libs.action.chain.jdk21;
+
+/**
+ * An action added by AwaitActionChain.awaitThen(). Like PureAction, but it can wait for
+ * subChains inline through its AwaitContext.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @param <In> the type of the output of the previous action
+ * @param <Out> the type of the output of this action
+ * @version 0.4
+ */
+@FunctionalInterface
+public interface AwaitAction<In, Out> {
+	Out process(In input, AwaitContext context) throws Exception;
+}
@@ -0,0 +1,41 @@
+package zyu19.libs.action.chain.jdk21;
+
+import zyu19.libs.action.chain.AbstractActionChain;
+import zyu19.libs.action.chain.config.ErrorHolder;
+import zyu19.libs.action.chain.config.NiceConsumer;
+
+/**
+ * An ActionChain whose worker thread actions run on virtual threads, and which adds awaitThen():
+ * an action that can wait for subChains inline (see AwaitContext).
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ * @see AwaitContext
+ */
+public class AwaitActionChain extends AbstractActionChain<AwaitActionChain> {
+
+	public AwaitActionChain(VirtualThreadPolicy threadPolicy) {
+		super(threadPolicy);
+	}
+
+	public AwaitActionChain(VirtualThreadPolicy threadPolicy, NiceConsumer<ErrorHolder> onFailure) {
+		super(threadPolicy, onFailure);
+	}
+
+	public AwaitActionChain(VirtualThreadPolicy threadPolicy, NiceConsumer<AwaitActionChain> chainTemplate, Object argument) {
+		super(threadPolicy, chainTemplate, argument);
+	}
+
+	/**
+	 * Add an action that runs on a virtual thread, and that can wait for subChains through its AwaitContext.
+	 * @param action the action to be added.
+	 * @param <In> The input type of this action. Lambda will automatically set this template parameter.
+	 * @param <Out> The output type of this action. Lambda will automatically set this template parameter.
+	 * @return this object, thus enabling method chaining.
+	 */
+	public <In, Out> AwaitActionChain awaitThen(AwaitAction<In, Out> action) {
+		return netThen((In input) -> action.process(input, AwaitContext.INSTANCE));
+	}
+}
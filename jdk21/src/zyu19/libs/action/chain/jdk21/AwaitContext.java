@@ -0,0 +1,65 @@
+package zyu19.libs.action.chain.jdk21;
+
+import java.util.Arrays;
+import java.util.List;
+
+import zyu19.libs.action.chain.ReadOnlyChain;
+
+/**
+ * Given to every AwaitAction, so that it can wait for subChains as if they were ordinary method calls:
+ * <pre>
+ * chain.awaitThen((Integer id, AwaitContext context) -&gt; {
+ *     User user = context.await(userChain(id).start());
+ *     List&lt;Object&gt; posts = context.awaitAll(postsChain(user).start(), friendsChain(user).start());
+ *     ...
+ * });
+ * </pre>
+ * AwaitActions run on virtual threads, so waiting only parks a virtual thread. Unlike returning a
+ * subChain from a then(), the chain itself never pauses.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ * @see ReadOnlyChain#await()
+ */
+public final class AwaitContext {
+	static final AwaitContext INSTANCE = new AwaitContext();
+
+	private AwaitContext() {
+	}
+
+	/**
+	 * Waits for a subChain, and returns its output.
+	 * @param subChain a started chain. Anything else is returned as it is (like ActionChain.all() does).
+	 * @param <T> the output type of subChain. Lambda will automatically set this template parameter.
+	 * @return the output of the last action of subChain.
+	 * @throws Exception the error of subChain, if none of its error handlers took care of it.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T await(Object subChain) throws Exception {
+		if (subChain instanceof ReadOnlyChain)
+			return (T) ((ReadOnlyChain) subChain).await();
+		return (T) subChain;
+	}
+
+	/**
+	 * Waits for every subChain in objects, like returning ActionChain.all(objects) from a then().
+	 * <p>
+	 * The subChains keep running in parallel: waiting for them one after another takes as long as
+	 * waiting for the slowest one.
+	 * @param objects started chains, and other objects that are put into the result as they are.
+	 * @return the outputs, in the same order as objects.
+	 * @throws Exception the first error found, in the order of objects.
+	 */
+	public List<Object> awaitAll(List<?> objects) throws Exception {
+		final Object[] results = objects.toArray();
+		for (int i = 0; i < results.length; i++)
+			results[i] = await(results[i]);
+		return Arrays.asList(results);
+	}
+
+	public List<Object> awaitAll(Object... objects) throws Exception {
+		return awaitAll(Arrays.asList(objects));
+	}
+}
@@ -0,0 +1,284 @@
+package zyu19.libs.action.chain.jdk21;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.CompletionStages;
+import zyu19.libs.action.chain.ReadOnlyChain;
+import zyu19.libs.action.chain.config.NiceConsumer;
+
+/**
+ * A Flow.Processor that runs a chain template on every item: each onNext() starts
+ * factory.get(chainTemplate, item), and the output of its last action is passed downstream.
+ * <p>
+ * At most maxInFlight chains run at the same time, and never more than the subscriber has requested:
+ * the processor requests items from upstream only as the subscriber requests outputs, so nothing is
+ * buffered beyond maxInFlight items. The outputs are passed on in the order of the items.
+ * <p>
+ * A chain that fails without an error handler (or whose handler gives up on the error) fails the
+ * whole stream: the subscriber receives onError(), and upstream is cancelled. An error handler that
+ * neither retries nor jumps must not be used: the item would never leave the processor.
+ * <p>
+ * Needs ChainEngine.LOCK_FREE. Only one subscriber is allowed.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ * @see ChainStreamSubscriber
+ */
+public class ChainProcessor<T, R> implements Flow.Processor<T, R> {
+	private final ActionChainFactory mFactory;
+	private final NiceConsumer<ActionChain> mChainTemplate;
+	private final int mMaxInFlight;
+
+	private final AtomicReference<Flow.Subscription> mUpstream = new AtomicReference<>();
+	private final AtomicReference<Flow.Subscriber<? super R>> mDownstream = new AtomicReference<>();
+	// replaces the subscriber once it has been cancelled or sent its last signal, so that it can be garbage collected
+	private static final Flow.Subscriber<Object> TERMINATED = new Flow.Subscriber<Object>() {
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+		}
+
+		@Override
+		public void onNext(Object item) {
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+		}
+
+		@Override
+		public void onComplete() {
+		}
+	};
+
+	// the items that have arrived and whose outputs have not been passed on yet, in order
+	private final ConcurrentLinkedQueue<Slot> mSlots = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger mNumSlots = new AtomicInteger(0);
+	// requested from upstream, and not arrived yet
+	private final AtomicInteger mNumPending = new AtomicInteger(0);
+	// requested by the subscriber, and not passed on yet
+	private final AtomicLong mRequested = new AtomicLong(0);
+
+	// drain() runs on one thread at a time: the thread that raises it from 0
+	private final AtomicInteger mWip = new AtomicInteger(0);
+	private volatile boolean mUpstreamDone = false;
+	private volatile Throwable mError = null;
+	private volatile boolean mCancelled = false;
+	// only written by drain()
+	private volatile boolean mTerminated = false;
+
+	private static final class Slot {
+		volatile boolean done = false;
+		Object output;
+		Throwable cause;
+		ReadOnlyChain chain;
+	}
+
+	/**
+	 * @param factory creates the chain of every item. Its ThreadPolicy must use ChainEngine.LOCK_FREE.
+	 * @param chainTemplate adds the actions to run on every item. The first action receives the item.
+	 * @param maxInFlight the maximum number of chains running at the same time.
+	 */
+	public ChainProcessor(ActionChainFactory factory, NiceConsumer<ActionChain> chainTemplate, int maxInFlight) {
+		if (maxInFlight < 1)
+			throw new IllegalArgumentException("maxInFlight must be positive");
+		mFactory = factory;
+		mChainTemplate = chainTemplate;
+		mMaxInFlight = maxInFlight;
+	}
+
+	//---------------------- Publisher -------------------------
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super R> subscriber) {
+		if (subscriber == null)
+			throw new NullPointerException("subscriber");
+		if (!mDownstream.compareAndSet(null, subscriber)) {
+			subscriber.onSubscribe(new Flow.Subscription() {
+				@Override
+				public void request(long n) {
+				}
+
+				@Override
+				public void cancel() {
+				}
+			});
+			subscriber.onError(new IllegalStateException("A ChainProcessor only supports one subscriber"));
+			return;
+		}
+		subscriber.onSubscribe(new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+				if (n <= 0) {
+					fail(new IllegalArgumentException("request() needs a positive number, got " + n), false);
+					return;
+				}
+				while (true) {
+					final long requested = mRequested.get();
+					final long next = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+					if (mRequested.compareAndSet(requested, next))
+						break;
+				}
+				drain();
+			}
+
+			@Override
+			public void cancel() {
+				mCancelled = true;
+				drain();
+			}
+		});
+		drain();
+	}
+
+	//---------------------- Subscriber -------------------------
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		if (subscription == null)
+			throw new NullPointerException("subscription");
+		if (!mUpstream.compareAndSet(null, subscription)) {
+			subscription.cancel();
+			return;
+		}
+		drain();
+	}
+
+	@Override
+	public void onNext(T item) {
+		if (item == null)
+			throw new NullPointerException("item");
+		mNumPending.decrementAndGet();
+		if (mTerminated)
+			return;
+		final Slot slot = new Slot();
+		CompletableFuture<Object> future = null;
+		RuntimeException failure = null;
+		try {
+			slot.chain = mFactory.get(mChainTemplate, item).start();
+			future = CompletionStages.toCompletableFuture(slot.chain);
+		} catch (RuntimeException err) {
+			failure = err;
+		}
+		// onNext() is never called by two threads at the same time, so the slots are in the order of the items
+		mNumSlots.incrementAndGet();
+		mSlots.add(slot);
+		if (mTerminated && slot.chain != null)
+			slot.chain.cancel();
+		if (failure != null)
+			complete(slot, null, failure);
+		else future.whenComplete((output, cause) -> complete(slot, output, cause));
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		if (throwable == null)
+			throw new NullPointerException("throwable");
+		fail(throwable, true);
+	}
+
+	@Override
+	public void onComplete() {
+		mUpstreamDone = true;
+		drain();
+	}
+
+	//---------------------- Drain loop -------------------------
+
+	private void complete(Slot slot, Object output, Throwable cause) {
+		if (cause == null && output == null)
+			cause = new NullPointerException("A chain returned null, which cannot be passed to onNext()");
+		slot.output = output;
+		slot.cause = cause;
+		slot.done = true;
+		drain();
+	}
+
+	private void fail(Throwable cause, boolean fromUpstream) {
+		if (mError == null)
+			mError = cause;
+		if (fromUpstream)
+			mUpstreamDone = true;
+		drain();
+	}
+
+	/**
+	 * Passes on the outputs that are ready and requested, then requests more items from upstream.
+	 * Every signal to the subscriber is sent from here, so they never overlap.
+	 */
+	@SuppressWarnings("unchecked")
+	private void drain() {
+		if (mWip.getAndIncrement() != 0)
+			return;
+		int missed = 1;
+		do {
+			final Flow.Subscriber<? super R> downstream = mDownstream.get();
+			// an error waits for the subscriber, a cancellation does not
+			if (!mTerminated && (mCancelled || mError != null && downstream != null))
+				terminate(downstream);
+			if (!mTerminated && downstream != null) {
+				long emitted = 0;
+				final long requested = mRequested.get();
+				while (emitted != requested) {
+					final Slot head = mSlots.peek();
+					if (head == null || !head.done)
+						break;
+					if (head.cause != null) {
+						mError = head.cause;
+						terminate(downstream);
+						break;
+					}
+					mSlots.poll();
+					mNumSlots.decrementAndGet();
+					downstream.onNext((R) head.output);
+					emitted++;
+				}
+				if (emitted != 0 && requested != Long.MAX_VALUE)
+					mRequested.addAndGet(-emitted);
+				if (!mTerminated && mUpstreamDone && mError == null && mSlots.isEmpty()) {
+					mTerminated = true;
+					mDownstream.set(TERMINATED);
+					downstream.onComplete();
+				}
+			}
+			if (!mTerminated)
+				requestUpstream();
+			missed = mWip.addAndGet(-missed);
+		} while (missed != 0);
+	}
+
+	private void terminate(Flow.Subscriber<? super R> downstream) {
+		mTerminated = true;
+		if (downstream != null)
+			mDownstream.set(TERMINATED);
+		final Flow.Subscription upstream = mUpstream.get();
+		if (upstream != null && !mUpstreamDone)
+			upstream.cancel();
+		for (Slot slot = mSlots.poll(); slot != null; slot = mSlots.poll()) {
+			if (slot.chain != null)
+				slot.chain.cancel();
+		}
+		if (!mCancelled && downstream != null)
+			downstream.onError(mError);
+	}
+
+	private void requestUpstream() {
+		final Flow.Subscription upstream = mUpstream.get();
+		if (upstream == null || mUpstreamDone)
+			return;
+		final long window = Math.min(mMaxInFlight, mRequested.get());
+		final long missing = window - mNumSlots.get() - mNumPending.get();
+		if (missing > 0) {
+			mNumPending.addAndGet((int) missing);
+			upstream.request(missing);
+		}
+	}
+}
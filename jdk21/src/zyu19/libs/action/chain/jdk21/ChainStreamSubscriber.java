@@ -0,0 +1,89 @@
+package zyu19.libs.action.chain.jdk21;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
+
+import zyu19.libs.action.chain.ChainStream;
+import zyu19.libs.action.chain.config.NiceConsumer;
+
+/**
+ * A Flow.Subscriber that feeds the items of a Flow.Publisher to a ChainStream.
+ * <p>
+ * It requests as many items as the first stage of the stream can hold, then one more every time an item
+ * leaves that stage: the stream applies its backpressure to the publisher, and neither of them blocks.
+ * When the publisher completes, the stream is closed. When it fails, the stream is cancelled.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ * @see ChainProcessor
+ */
+public class ChainStreamSubscriber<T> implements Flow.Subscriber<T> {
+	private final ChainStream<T> mStream;
+	private final Runnable mOnDrained;
+	private final NiceConsumer<Throwable> mOnError;
+	private final AtomicReference<Flow.Subscription> mSubscription = new AtomicReference<>();
+
+	/**
+	 * @param stream the stream to feed. Its room listener is replaced by this subscriber.
+	 * @param onDrained if not null, called on the main thread once the publisher has completed (or failed) and every
+	 *                  item has left the stream (see ChainStream.close()).
+	 * @param onError if not null, called with the error of the publisher, or with the error of the stream that
+	 *                refused an item.
+	 */
+	public ChainStreamSubscriber(ChainStream<T> stream, Runnable onDrained, NiceConsumer<Throwable> onError) {
+		mStream = stream;
+		mOnDrained = onDrained;
+		mOnError = onError;
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		if (subscription == null)
+			throw new NullPointerException("subscription");
+		if (!mSubscription.compareAndSet(null, subscription)) {
+			subscription.cancel();
+			return;
+		}
+		mStream.setRoomListener(() -> subscription.request(1));
+		subscription.request(mStream.getQueueCapacity());
+	}
+
+	@Override
+	public void onNext(T item) {
+		if (item == null)
+			throw new NullPointerException("item");
+		final boolean accepted;
+		try {
+			accepted = mStream.offer(item);
+		} catch (IllegalStateException err) {
+			// the stream has been cancelled by someone else
+			mSubscription.get().cancel();
+			if (mOnError != null)
+				mOnError.consume(err);
+			return;
+		}
+		if (!accepted) {
+			mSubscription.get().cancel();
+			mStream.cancel();
+			if (mOnError != null)
+				mOnError.consume(new IllegalStateException("The publisher sent more items than requested"));
+		}
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		if (throwable == null)
+			throw new NullPointerException("throwable");
+		mStream.cancel();
+		mStream.close(mOnDrained);
+		if (mOnError != null)
+			mOnError.consume(throwable);
+	}
+
+	@Override
+	public void onComplete() {
+		mStream.close(mOnDrained);
+	}
+}
@@ -0,0 +1,47 @@
+package zyu19.libs.action.chain.jdk21;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import zyu19.libs.action.chain.config.ThreadChanger;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * A ThreadPolicy that runs every worker thread action on a new virtual thread.
+ * <p>
+ * A netThen() that blocks (on I/O, a lock, Thread.sleep()...) only parks its virtual thread, so
+ * there is no pool of platform threads to size for the number of blocked actions.
+ * <p>
+ * Note: keep the default ChainEngine.LOCK_FREE. ChainEngine.SYNCHRONIZED runs actions inside
+ * <strong>synchronized</strong> blocks, which pin the carrier thread while an action blocks.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public class VirtualThreadPolicy extends ThreadPolicy {
+
+	/**
+	 * @param threadChanger A functor that tell the OS to run a Runnable on the main/UI thread.
+	 * @param virtualThreadFactory creates the thread of every worker thread action,
+	 *                             e.g. Thread.ofVirtual().name("worker-", 0).factory()
+	 */
+	public VirtualThreadPolicy(ThreadChanger threadChanger, ThreadFactory virtualThreadFactory) {
+		super(threadChanger, Executors.newThreadPerTaskExecutor(virtualThreadFactory));
+	}
+
+	/**
+	 * @param threadChanger A functor that tell the OS to run a Runnable on the main/UI thread.
+	 */
+	public VirtualThreadPolicy(ThreadChanger threadChanger) {
+		this(threadChanger, Thread.ofVirtual().name("ActionChain-", 0).factory());
+	}
+
+	/**
+	 * Without a ThreadChanger, main thread actions run on whichever thread is running the chain.
+	 */
+	public VirtualThreadPolicy() {
+		this(null);
+	}
+}
@@ -0,0 +1,98 @@
+package zyu19.libs.action.chain.jdk21.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ReadOnlyChain;
+import zyu19.libs.action.chain.jdk21.AwaitActionChain;
+import zyu19.libs.action.chain.jdk21.AwaitContext;
+import zyu19.libs.action.chain.jdk21.VirtualThreadPolicy;
+
+/**
+ * Checks that awaitThen() actions can wait for subChains inline.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class AwaitThenTest {
+    VirtualThreadPolicy threadPolicy = new VirtualThreadPolicy();
+
+    ReadOnlyChain slowSubChain(int output) {
+        return new AwaitActionChain(threadPolicy).netThen(() -> {
+            Thread.sleep(200);
+            return output;
+        }).start();
+    }
+
+    @Test(timeout = 2000)
+    public void TestAwaitAndAwaitAll() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        new AwaitActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> 1).awaitThen((Integer input, AwaitContext context) -> {
+            int first = context.await(slowSubChain(input + 1));
+            // three subChains in parallel, plus a plain value
+            List<Object> rest = context.awaitAll(slowSubChain(first + 1), slowSubChain(first + 2), slowSubChain(first + 3), 10);
+            int sum = first;
+            for (Object obj : rest)
+                sum += (Integer) obj;
+            return sum;
+        }).start((Integer sum) -> {
+            Assert.assertEquals(2 + 3 + 4 + 5 + 10, (int) sum);
+            latch.countDown();
+        });
+        // two rounds of 200ms
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestAwaitThrowsUnhandledError() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Exception expected = new Exception("expected");
+        final AtomicReference<Exception> caught = new AtomicReference<>();
+
+        new AwaitActionChain(threadPolicy, error -> {
+            caught.set(error.getCause());
+            latch.countDown();
+        }).awaitThen((Object input, AwaitContext context) -> context.await(new AwaitActionChain(threadPolicy).netThen(() -> {
+            throw expected;
+        }).start())).start(obj -> Assert.fail("should not have succeeded"));
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertSame(expected, caught.get());
+    }
+
+    @Test(timeout = 10000)
+    public void TestManyAwaitingChains() throws InterruptedException {
+        final int numChains = 10000;
+        final CountDownLatch latch = new CountDownLatch(numChains);
+        final AtomicInteger wrongAnswers = new AtomicInteger(0);
+
+        for (int i = 0; i < numChains; i++) {
+            final int thisI = i;
+            new AwaitActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+            ).awaitThen((Object input, AwaitContext context) -> {
+                List<Object> subChains = new ArrayList<>();
+                for (int j = 0; j < 4; j++)
+                    subChains.add(slowSubChain(thisI + j));
+                int sum = 0;
+                for (Object obj : context.awaitAll(subChains))
+                    sum += (Integer) obj;
+                return sum;
+            }).start((Integer sum) -> {
+                if (sum != 4 * thisI + 6)
+                    wrongAnswers.incrementAndGet();
+                latch.countDown();
+            });
+        }
+
+        Assert.assertTrue("Some chains never finished", latch.await(8, TimeUnit.SECONDS));
+        Assert.assertEquals(0, wrongAnswers.get());
+    }
+}
@@ -0,0 +1,69 @@
+package zyu19.libs.action.chain.jdk21.tests;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+
+import org.reactivestreams.tck.TestEnvironment;
+import org.reactivestreams.tck.flow.IdentityFlowProcessorVerification;
+import org.testng.annotations.AfterClass;
+
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+import zyu19.libs.action.chain.jdk21.ChainProcessor;
+
+/**
+ * Runs the Reactive Streams TCK (TestNG) on ChainProcessor, with a template that passes the items on as they are.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class ChainProcessorTckTest extends IdentityFlowProcessorVerification<Integer> {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    ActionChainFactory factory = new ActionChainFactory(new ThreadPolicy(executor));
+
+    public ChainProcessorTckTest() {
+        super(new TestEnvironment(500));
+    }
+
+    @AfterClass
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    protected Flow.Processor<Integer, Integer> createIdentityFlowProcessor(int bufferSize) {
+        return new ChainProcessor<>(factory, chain -> chain.netThen((Integer x) -> x), bufferSize);
+    }
+
+    @Override
+    protected Flow.Publisher<Integer> createFailedFlowPublisher() {
+        final ChainProcessor<Integer, Integer> processor = new ChainProcessor<>(factory, chain -> chain.netThen((Integer x) -> x), 1);
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        processor.onError(new RuntimeException("failed upstream"));
+        return processor;
+    }
+
+    @Override
+    public ExecutorService publisherExecutorService() {
+        return executor;
+    }
+
+    @Override
+    public Integer createElement(int element) {
+        return element;
+    }
+
+    @Override
+    public long maxSupportedSubscribers() {
+        return 1;
+    }
+}
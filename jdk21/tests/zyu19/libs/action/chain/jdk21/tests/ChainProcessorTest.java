@@ -0,0 +1,142 @@
+package zyu19.libs.action.chain.jdk21.tests;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.ChainStream;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+import zyu19.libs.action.chain.jdk21.ChainProcessor;
+import zyu19.libs.action.chain.jdk21.ChainStreamSubscriber;
+
+/**
+ * Checks that ChainProcessor runs a chain per item with bounded concurrency and in order, and that
+ * ChainStreamSubscriber lets a Flow.Publisher feed a ChainStream.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class ChainProcessorTest {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    ThreadPolicy threadPolicy = new ThreadPolicy(executor);
+    ActionChainFactory factory = new ActionChainFactory(threadPolicy);
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Requests one output at a time, and records them.
+     */
+    static class SlowSubscriber implements Flow.Subscriber<Integer> {
+        final List<Integer> outputs = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            outputs.add(item);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void TestOrderAndBound() throws InterruptedException {
+        final int maxInFlight = 4;
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger maxRunning = new AtomicInteger(0);
+        final ChainProcessor<Integer, Integer> processor = new ChainProcessor<>(factory, chain -> chain.netThen((Integer x) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep((x * 7) % 5);
+            running.decrementAndGet();
+            return x * 2;
+        }), maxInFlight);
+        final SlowSubscriber subscriber = new SlowSubscriber();
+        processor.subscribe(subscriber);
+
+        try (SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>(executor, 16)) {
+            publisher.subscribe(processor);
+            for (int i = 0; i < 200; i++)
+                publisher.submit(i);
+        }
+        Assert.assertTrue(subscriber.done.await(4, TimeUnit.SECONDS));
+        Assert.assertNull(subscriber.error.get());
+        Assert.assertEquals(200, subscriber.outputs.size());
+        for (int i = 0; i < 200; i++)
+            Assert.assertEquals(i * 2, (int) subscriber.outputs.get(i));
+        Assert.assertTrue(maxRunning.get() <= maxInFlight);
+    }
+
+    @Test(timeout = 2000)
+    public void TestChainFailure() throws InterruptedException {
+        final IOException expected = new IOException("bad item");
+        final ChainProcessor<Integer, Integer> processor = new ChainProcessor<>(factory, chain -> chain.netThen((Integer x) -> {
+            if (x == 5)
+                throw expected;
+            return x;
+        }), 2);
+        final SlowSubscriber subscriber = new SlowSubscriber();
+        processor.subscribe(subscriber);
+
+        final SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>(executor, 16);
+        publisher.subscribe(processor);
+        for (int i = 0; i < 10; i++)
+            publisher.submit(i);
+        Assert.assertTrue(subscriber.done.await(1, TimeUnit.SECONDS));
+        Assert.assertSame(expected, subscriber.error.get());
+        Assert.assertEquals(List.of(0, 1, 2, 3, 4), subscriber.outputs);
+        publisher.close();
+    }
+
+    @Test(timeout = 5000)
+    public void TestPublisherFeedsStream() throws InterruptedException {
+        final AtomicLong sum = new AtomicLong(0);
+        final CountDownLatch drained = new CountDownLatch(1);
+        final ChainStream<Integer> stream = new ActionChain(threadPolicy).netThen((Integer x) -> x + 1)
+                .netThen((Integer x) -> (long) x).compile().stream(8, 4, (Long x) -> sum.addAndGet(x));
+
+        try (SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>(executor, 4)) {
+            publisher.subscribe(new ChainStreamSubscriber<>(stream, drained::countDown,
+                    error -> Assert.fail(error.toString())));
+            for (int i = 0; i < 5000; i++)
+                publisher.submit(i);
+        }
+        Assert.assertTrue(drained.await(4, TimeUnit.SECONDS));
+        Assert.assertEquals(5000L * 5001 / 2, sum.get());
+    }
+}
@@ -0,0 +1,46 @@
+package zyu19.libs.action.chain.jdk21.tests;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+
+import org.reactivestreams.tck.TestEnvironment;
+import org.reactivestreams.tck.flow.FlowSubscriberBlackboxVerification;
+import org.testng.annotations.AfterClass;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ChainStream;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+import zyu19.libs.action.chain.jdk21.ChainStreamSubscriber;
+
+/**
+ * Runs the Reactive Streams TCK (TestNG) on ChainStreamSubscriber.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class ChainStreamSubscriberTckTest extends FlowSubscriberBlackboxVerification<Integer> {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    ThreadPolicy threadPolicy = new ThreadPolicy(executor);
+
+    public ChainStreamSubscriberTckTest() {
+        super(new TestEnvironment(500));
+    }
+
+    @AfterClass
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Flow.Subscriber<Integer> createFlowSubscriber() {
+        final ChainStream<Integer> stream = new ActionChain(threadPolicy).netThen((Integer x) -> x * 2)
+                .compile().stream(4, 2, null);
+        return new ChainStreamSubscriber<>(stream, null, null);
+    }
+
+    @Override
+    public Integer createElement(int element) {
+        return element;
+    }
+}
@@ -0,0 +1,59 @@
+package zyu19.libs.action.chain.jdk21.tests;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.jdk21.VirtualThreadPolicy;
+
+/**
+ * Checks that blocking worker thread actions do not need one platform thread each.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class VirtualThreadPolicyTest {
+    ActionChainFactory factory = new ActionChainFactory(new VirtualThreadPolicy());
+
+    @Test(timeout = 2000)
+    public void TestRunsOnVirtualThreads() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        factory.get(error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> Thread.currentThread().isVirtual()).start((Boolean isVirtual) -> {
+            Assert.assertTrue(isVirtual);
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void TestManyBlockingChains() throws InterruptedException {
+        final int numChains = 10000;
+        final CountDownLatch latch = new CountDownLatch(numChains);
+        final AtomicInteger wrongAnswers = new AtomicInteger(0);
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < numChains; i++) {
+            final int thisI = i;
+            factory.get(error -> Assert.fail(error.getCause().toString())
+            ).netThen(() -> {
+                // a blocking call, e.g. I/O
+                Thread.sleep(500);
+                return thisI;
+            }).netThen((Integer obj) -> obj * 2).start((Integer obj) -> {
+                if (obj != thisI * 2)
+                    wrongAnswers.incrementAndGet();
+                latch.countDown();
+            });
+        }
+
+        // With a pool of platform threads, this would take numChains / poolSize * 500ms.
+        Assert.assertTrue("Some chains never finished", latch.await(8, TimeUnit.SECONDS));
+        Assert.assertEquals(0, wrongAnswers.get());
+        System.out.println(numChains + " blocking chains: " + (System.nanoTime() - startTime) / 1000000 + " ms");
+    }
+}
@@ -0,0 +1,50 @@
+package zyu19.libs.action.chain.jmh;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * The entry point of benchmarks.jar. It takes the usual JMH command line, and always adds the GC profiler,
+ * which reports the time spent in GC and the bytes allocated per operation by all the threads, worker
+ * threads included (gc.alloc.rate.norm), so that every run shows the allocations of the engine next to its times.
+ * <p>
+ * The module is compiled for Java 8, but run it with a recent JDK for the allocation figures: on JDK 8, the
+ * allocation counters of the worker threads stop growing after warm-up, and gc.alloc.rate.norm falls to what
+ * the benchmark thread alone allocates.
+ * <p>
+ * Usage:
+ * <p>
+ * java -jar target/benchmarks.jar                           # everything, under every ThreadPolicy
+ * java -jar target/benchmarks.jar FanOut -p policy=forkJoin # one benchmark, one ThreadPolicy
+ * java -jar target/benchmarks.jar -p engine=SYNCHRONIZED    # the other engine
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public final class BenchmarkMain {
+	private BenchmarkMain() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		final CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+				|| commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+			Main.main(args);
+			return;
+		}
+		final OptionsBuilder options = new OptionsBuilder();
+		options.parent(commandLine);
+		boolean hasGC = false;
+		for (ProfilerConfig profiler : commandLine.getProfilers())
+			hasGC |= profiler.getKlass().equals(GCProfiler.class.getName()) || profiler.getKlass().equals("gc");
+		if (!hasGC)
+			options.addProfiler(GCProfiler.class);
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,64 @@
+package zyu19.libs.action.chain.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.ChainPlan;
+
+/**
+ * A chain whose action starts numSubChains subChains and waits for all of them with ActionChain.all().
+ * The subChains are started from a compiled plan, so that the fan-out and the join are measured rather
+ * than the building of the chains.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FanOutBenchmark {
+	@Param({"10", "100", "1000", "10000"})
+	public int numSubChains;
+
+	private final Waiter mWaiter = new Waiter();
+	private ChainPlan mPlan;
+
+	@Setup(Level.Trial)
+	public void setUp(PolicyState policies) {
+		final ActionChainFactory factory = new ActionChainFactory(policies.threadPolicy);
+		final ChainPlan subPlan = factory.get().netThen(() -> 1).compile();
+		final int size = numSubChains;
+		mPlan = factory.get(mWaiter.failureHandler()).netThen(() -> {
+			final List<Object> subChains = new ArrayList<>(size);
+			for (int i = 0; i < size; i++)
+				subChains.add(subPlan.start());
+			return ActionChain.all(subChains);
+		}).compile();
+	}
+
+	@Benchmark
+	public Object all() {
+		return mWaiter.await(mPlan);
+	}
+}
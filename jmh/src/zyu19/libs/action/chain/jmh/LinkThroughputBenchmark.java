@@ -0,0 +1,60 @@
+package zyu19.libs.action.chain.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.ChainPlan;
+
+/**
+ * The throughput of chains of numLinks actions, all on the worker lane, all on the UI lane, or alternating
+ * between the two (so that every action changes threads). An operation is a whole chain.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class LinkThroughputBenchmark {
+	@Param({"1", "10", "100"})
+	public int numLinks;
+
+	@Param({"worker", "ui", "mixed"})
+	public String lane;
+
+	private final Waiter mWaiter = new Waiter();
+	private ChainPlan mPlan;
+
+	@Setup(Level.Trial)
+	public void setUp(PolicyState policies) {
+		final ActionChain chain = new ActionChainFactory(policies.threadPolicy).get(mWaiter.failureHandler())
+				.netThen(() -> 0);
+		for (int i = 0; i < numLinks; i++)
+			chain.then(PolicyState.runsOnWorkerThread(lane, i), (Integer x) -> x + 1);
+		mPlan = chain.compile();
+	}
+
+	@Benchmark
+	public Object chain() {
+		return mWaiter.await(mPlan);
+	}
+}
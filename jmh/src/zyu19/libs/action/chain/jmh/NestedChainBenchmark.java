@@ -0,0 +1,62 @@
+package zyu19.libs.action.chain.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.ChainPlan;
+
+/**
+ * A chain whose action returns a started subChain, whose action returns another one, and so on, depth
+ * times: the cost of waiting for returned chains, and of building them inside the actions.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class NestedChainBenchmark {
+	@Param({"1", "4", "16"})
+	public int depth;
+
+	private final Waiter mWaiter = new Waiter();
+	private ChainPlan mPlan;
+
+	@Setup(Level.Trial)
+	public void setUp(PolicyState policies) {
+		final ActionChainFactory factory = new ActionChainFactory(policies.threadPolicy);
+		mPlan = factory.get(mWaiter.failureHandler()).netThen(() -> nested(factory, depth)).compile();
+	}
+
+	/**
+	 * @return a started chain that outputs 0 after level nested chains, or 0 itself at the bottom.
+	 */
+	static Object nested(ActionChainFactory factory, int level) {
+		if (level == 0)
+			return 0;
+		return factory.get().netThen(() -> nested(factory, level - 1)).start();
+	}
+
+	@Benchmark
+	public Object nestedChains() {
+		return mWaiter.await(mPlan);
+	}
+}
@@ -0,0 +1,103 @@
+package zyu19.libs.action.chain.jmh;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.ForkJoinThreadPolicy;
+import zyu19.libs.action.chain.config.ThreadChanger;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * The ThreadPolicy every benchmark runs under, shared by the threads of a trial.
+ * <p>
+ * The worker threads come from a fixed pool (one thread per processor), a cached pool, or a ForkJoinPool
+ * (through ForkJoinThreadPolicy), whose workers take their own tasks last in first out, or first in first out
+ * with forkJoinFifo. Run with several benchmark threads (-t) to compare how they spread many concurrent chains.
+ * The main thread is a single thread executor, as the looper of a UI would be, so that the actions on the UI
+ * lane really change threads.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+@State(Scope.Benchmark)
+public class PolicyState {
+	@Param({"fixed", "cached", "forkJoin", "forkJoinFifo"})
+	public String policy;
+
+	@Param({"LOCK_FREE"})
+	public ChainEngine engine;
+
+	// see ThreadPolicy.setMaxLinksPerTask(): 1 disables link fusion
+	@Param({"1"})
+	public int maxLinksPerTask;
+
+	public ThreadPolicy threadPolicy;
+
+	private ExecutorService mMainThread;
+	private ExecutorService mWorkers;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		mMainThread = Executors.newSingleThreadExecutor();
+		final ThreadChanger threadChanger = mMainThread::execute;
+		final int numProcessors = Runtime.getRuntime().availableProcessors();
+		switch (policy) {
+			case "fixed":
+				mWorkers = Executors.newFixedThreadPool(numProcessors);
+				threadPolicy = new ThreadPolicy(threadChanger, mWorkers);
+				break;
+			case "cached":
+				mWorkers = Executors.newCachedThreadPool();
+				threadPolicy = new ThreadPolicy(threadChanger, mWorkers);
+				break;
+			case "forkJoin":
+				mWorkers = new ForkJoinPool(numProcessors);
+				threadPolicy = new ForkJoinThreadPolicy(threadChanger, (ForkJoinPool) mWorkers);
+				break;
+			case "forkJoinFifo":
+				mWorkers = new ForkJoinPool(numProcessors, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+				threadPolicy = new ForkJoinThreadPolicy(threadChanger, (ForkJoinPool) mWorkers);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown policy: " + policy);
+		}
+		threadPolicy.setEngine(engine).setMaxLinksPerTask(maxLinksPerTask);
+	}
+
+	/**
+	 * @param lane "worker", "ui", or "mixed", whose actions alternate between the two.
+	 * @return whether the action at position in a chain of that lane runs on a worker thread.
+	 */
+	static boolean runsOnWorkerThread(String lane, int position) {
+		switch (lane) {
+			case "worker":
+				return true;
+			case "ui":
+				return false;
+			case "mixed":
+				return position % 2 == 0;
+			default:
+				throw new IllegalArgumentException("Unknown lane: " + lane);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws InterruptedException {
+		mWorkers.shutdownNow();
+		mMainThread.shutdownNow();
+		mWorkers.awaitTermination(10, TimeUnit.SECONDS);
+		mMainThread.awaitTermination(10, TimeUnit.SECONDS);
+	}
+}
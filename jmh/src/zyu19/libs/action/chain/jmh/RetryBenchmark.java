@@ -0,0 +1,70 @@
+package zyu19.libs.action.chain.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.ChainPlan;
+
+/**
+ * A chain whose action fails numFailures times before it succeeds, with an error handler that calls
+ * retry() every time: the cost of a failure, a trip to the handler on the main thread, and a retry.
+ * The exception has no stack trace, so that it is the engine that is measured.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class RetryBenchmark {
+	@Param({"1", "10"})
+	public int numFailures;
+
+	private static final class Failure extends Exception {
+		Failure() {
+			super("retry me", null, false, false);
+		}
+	}
+
+	private static final Failure FAILURE = new Failure();
+
+	private final Waiter mWaiter = new Waiter();
+	private ChainPlan mPlan;
+	// only touched by the action, and reset before every chain, which publishes it
+	private int mAttempts;
+
+	@Setup(Level.Trial)
+	public void setUp(PolicyState policies) {
+		mPlan = new ActionChainFactory(policies.threadPolicy).get(mWaiter.failureHandler())
+				.fail(Failure.class, error -> error.retry())
+				.netThen(() -> {
+					if (mAttempts++ < numFailures)
+						throw FAILURE;
+					return mAttempts;
+				}).compile();
+	}
+
+	@Benchmark
+	public Object failAndRetry() {
+		mAttempts = 0;
+		return mWaiter.await(mPlan);
+	}
+}
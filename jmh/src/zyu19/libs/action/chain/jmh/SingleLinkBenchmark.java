@@ -0,0 +1,53 @@
+package zyu19.libs.action.chain.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.ChainPlan;
+
+/**
+ * The latency of a chain of one action, from start() to onSuccess: the cost of a round trip through the
+ * engine and the thread policy, sampled so that the percentiles show the tail as well.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class SingleLinkBenchmark {
+	@Param({"worker", "ui"})
+	public String lane;
+
+	private final Waiter mWaiter = new Waiter();
+	private ChainPlan mPlan;
+
+	@Setup(Level.Trial)
+	public void setUp(PolicyState policies) {
+		mPlan = new ActionChainFactory(policies.threadPolicy).get(mWaiter.failureHandler())
+				.then(PolicyState.runsOnWorkerThread(lane, 0), (Object input) -> input).compile();
+	}
+
+	@Benchmark
+	public Object singleLink() {
+		return mWaiter.await(mPlan);
+	}
+}
@@ -0,0 +1,84 @@
+package zyu19.libs.action.chain.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.ChainPlan;
+import zyu19.libs.action.chain.IntChain;
+import zyu19.libs.action.chain.TActionChain;
+import zyu19.libs.action.chain.TActionChainFactory;
+
+/**
+ * The same chain of numLinks worker thread actions on ActionChain, on TActionChain, and on IntChain, which
+ * does not box the values it passes on. The outputs are above the Integer cache, so that every boxed
+ * output is an allocation.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class TypedChainBenchmark {
+	@Param({"10"})
+	public int numLinks;
+
+	private final Waiter mWaiter = new Waiter();
+	private ChainPlan mActionChainPlan;
+	private ChainPlan mTActionChainPlan;
+	private ChainPlan mIntChainPlan;
+
+	@Setup(Level.Trial)
+	public void setUp(PolicyState policies) {
+		final ActionChain actionChain = new ActionChainFactory(policies.threadPolicy).get(mWaiter.failureHandler())
+				.netThen(() -> 1000);
+		for (int i = 0; i < numLinks; i++)
+			actionChain.netThen((Integer x) -> x + 1000);
+		mActionChainPlan = actionChain.compile();
+
+		final TActionChainFactory factory = new TActionChainFactory(policies.threadPolicy);
+		TActionChain<Integer> tActionChain = factory.get(mWaiter.failureHandler()).netThen(obj -> 1000);
+		for (int i = 0; i < numLinks; i++)
+			tActionChain = tActionChain.netThen((Integer x) -> x + 1000);
+		mTActionChainPlan = tActionChain.compile();
+
+		final IntChain intChain = factory.get(mWaiter.failureHandler()).netMapToInt(obj -> 1000);
+		for (int i = 0; i < numLinks; i++)
+			intChain.netMap(x -> x + 1000);
+		mIntChainPlan = intChain.compile();
+	}
+
+	@Benchmark
+	public Object actionChain() {
+		return mWaiter.await(mActionChainPlan);
+	}
+
+	@Benchmark
+	public Object tActionChain() {
+		return mWaiter.await(mTActionChainPlan);
+	}
+
+	@Benchmark
+	public Object intChain() {
+		return mWaiter.await(mIntChainPlan);
+	}
+}
@@ -0,0 +1,64 @@
+package zyu19.libs.action.chain.jmh;
+
+import java.util.concurrent.locks.LockSupport;
+
+import zyu19.libs.action.chain.ChainPlan;
+import zyu19.libs.action.chain.config.ErrorHolder;
+import zyu19.libs.action.chain.config.NiceConsumer;
+
+/**
+ * Starts a plan and parks the benchmark thread until it finishes.
+ * <p>
+ * One Waiter is used for every operation of a benchmark thread, and it is both the onSuccess and (through
+ * failureHandler()) the error handler of the chains, so that waiting allocates nothing: the allocations
+ * reported per operation are those of the engine.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public final class Waiter implements NiceConsumer<Object> {
+	private volatile Thread mThread;
+	private volatile boolean mDone;
+	private volatile Object mOutput;
+	private volatile Exception mCause;
+
+	private final NiceConsumer<ErrorHolder> mFailureHandler = error -> {
+		mCause = error.getCause();
+		wake();
+	};
+
+	/**
+	 * @return an error handler that ends await() with an IllegalStateException.
+	 */
+	public NiceConsumer<ErrorHolder> failureHandler() {
+		return mFailureHandler;
+	}
+
+	@Override
+	public void consume(Object output) {
+		mOutput = output;
+		wake();
+	}
+
+	private void wake() {
+		mDone = true;
+		LockSupport.unpark(mThread);
+	}
+
+	/**
+	 * @return the output of the last action of plan.
+	 */
+	public Object await(ChainPlan plan) {
+		mThread = Thread.currentThread();
+		mDone = false;
+		mCause = null;
+		plan.start(this);
+		while (!mDone)
+			LockSupport.park(this);
+		if (mCause != null)
+			throw new IllegalStateException("The benchmarked chain failed", mCause);
+		return mOutput;
+	}
+}
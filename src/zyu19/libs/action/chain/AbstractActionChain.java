@@ -2,7 +2,9 @@ package zyu19.libs.action.chain;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import zyu19.libs.action.chain.config.PureAction;
 import zyu19.libs.action.chain.config.*;
@@ -30,15 +32,23 @@ public abstract class AbstractActionChain<ThisType extends AbstractActionChain<T
 
 	@Override
 	public final <In> ReadOnlyChain start(NiceConsumer<In> onSuccess) {
-		ReadOnlyChain chain = new ReadOnlyChain(mActionSequence, onSuccess, mThreadPolicy);
-		chain.start();
-		return chain;
+		return compile().start(onSuccess);
+	}
+
+	@Override
+	public final ChainPlan compile() {
+		// Reuse the last plan while no action has been added, so that starting the same chain again copies nothing.
+		if (mPlan == null)
+			mPlan = new ChainPlan(mActionSequence, mThreadPolicy, mDeadlineNanos);
+		return mPlan;
 	}
 	
 	@Override
 	public ThisType clear(NiceConsumer<ErrorHolder> onFailure) {
 		mCurrentOnFailure = onFailure;
 		mActionSequence.clear();
+		mDeadlineNanos = 0;
+		mPlan = null;
 		return (ThisType)this;
 	}
 
@@ -65,21 +75,105 @@ public abstract class AbstractActionChain<ThisType extends AbstractActionChain<T
 		return (ThisType)this;
 	}
 
+	@Override
+	public <T extends Exception> ThisType fail(Class<T> claz, RetryPolicy policy, NiceConsumer<ErrorHolder<T>> onGiveUp) {
+		final NiceConsumer<ErrorHolder> oldHandler = mCurrentOnFailure;
+		mCurrentOnFailure = error -> {
+			if(claz.isAssignableFrom(error.getCause().getClass())) {
+				final long delay = policy.nextDelayNanos(error.getRetryCount());
+				if(delay >= 0) {
+					error.retryAfter(delay, TimeUnit.NANOSECONDS);
+					return;
+				}
+				if(onGiveUp != null) {
+					onGiveUp.consume((ErrorHolder<T>)error);
+					return;
+				}
+			}
+			if(oldHandler != null)
+				oldHandler.consume(error);
+			else {
+				ReadOnlyChain.printUncaughtEx(error.getCause());
+			}
+		};
+		return (ThisType)this;
+	}
+
 	@Override
 	public <In, Out> ThisType then(boolean runOnWorkerThread, PureAction<In, Out> action) {
 		mActionSequence.add(new ChainLink<In,Out>(action, mCurrentOnFailure, runOnWorkerThread));
+		mPlan = null;
 		return (ThisType)this;
 	}
 
 	@Override
 	public final <In, Out> ThisType netThen(PureAction<In, Out> action) {
 		mActionSequence.add(new ChainLink<In,Out>(action, mCurrentOnFailure, true));
+		mPlan = null;
 		return (ThisType)this;
 	}
 
 	@Override
 	public final <In, Out> ThisType uiThen(PureAction<In, Out> action) {
 		mActionSequence.add(new ChainLink<In,Out>(action, mCurrentOnFailure, false));
+		mPlan = null;
+		return (ThisType)this;
+	}
+
+	@Override
+	public <In, Out> ThisType then(boolean runOnWorkerThread, PureAction<In, Out> action, long timeout, TimeUnit unit) {
+		if (timeout <= 0)
+			throw new IllegalArgumentException("timeout must be positive");
+		mActionSequence.add(new ChainLink<In,Out>(action, mCurrentOnFailure, runOnWorkerThread, unit.toNanos(timeout)));
+		mPlan = null;
+		return (ThisType)this;
+	}
+
+	@Override
+	public final <In, Out> ThisType netThen(PureAction<In, Out> action, long timeout, TimeUnit unit) {
+		return then(true, action, timeout, unit);
+	}
+
+	@Override
+	public final <In, Out> ThisType uiThen(PureAction<In, Out> action, long timeout, TimeUnit unit) {
+		return then(false, action, timeout, unit);
+	}
+
+	@Override
+	public <In, K, Out> ThisType cachedThen(PureAction<In, K> keyFn, LinkCache<K, Out> cache, PureAction<In, Out> action) {
+		mActionSequence.add(new ChainLink<In,Out>(action, mCurrentOnFailure, true, keyFn, cache));
+		mPlan = null;
+		return (ThisType)this;
+	}
+
+	@Override
+	public <In, K, Out> ThisType singleFlightThen(PureAction<In, K> keyFn, SingleFlight<K> flights, PureAction<In, Out> action) {
+		final ThreadPolicy threadPolicy = mThreadPolicy;
+		return netThen((In input) -> {
+			final K key = keyFn.process(input);
+			return key == null ? action.process(input) : flights.join(key, input, action, threadPolicy);
+		});
+	}
+
+	@Override
+	public <In, Out> ThisType batchedThen(Batcher<In, Out> batcher) {
+		final ThreadPolicy threadPolicy = mThreadPolicy;
+		return netThen((In input) -> batcher.add(input, threadPolicy));
+	}
+
+	@Override
+	public <In, Out> ThisType thenMap(PureAction<In, Out> action, int parallelism, int chunkSize) {
+		ParallelMap.checkArguments(parallelism, chunkSize);
+		final ThreadPolicy threadPolicy = mThreadPolicy;
+		return netThen((Object input) -> ParallelMap.map(action, input, parallelism, chunkSize, threadPolicy));
+	}
+
+	@Override
+	public final ThisType deadline(long timeout, TimeUnit unit) {
+		if (timeout <= 0)
+			throw new IllegalArgumentException("timeout must be positive");
+		mDeadlineNanos = unit.toNanos(timeout);
+		mPlan = null;
 		return (ThisType)this;
 	}
 
@@ -137,6 +231,8 @@ public abstract class AbstractActionChain<ThisType extends AbstractActionChain<T
 
 	private NiceConsumer<ErrorHolder> mCurrentOnFailure;
 	private ArrayList<ChainLink<?,?>> mActionSequence = new ArrayList<>();
+	private long mDeadlineNanos = 0;
+	private ChainPlan mPlan = null;
 	protected final ThreadPolicy mThreadPolicy;
 	
 	public AbstractActionChain(ThreadPolicy threadPolicy) {
@@ -187,4 +283,149 @@ public abstract class AbstractActionChain<ThisType extends AbstractActionChain<T
 	public static Object all(List<? extends Object> objects) {
 		return new DotAll((List<Object>)objects);
 	}
+
+	/**
+	 * Like all(), but the subChains are started lazily, at most parallelism at a time:
+	 *
+	 * chain.then(obj -&gt; ActionChain.allLimited(8, new Iterator&lt;Producer&lt;Object&gt;&gt;() {...})).then((List&lt;Object&gt; ans) -&gt; {
+	 *     // ans contains the outputs of the subChains, in the order of sources
+	 * }
+	 *
+	 * Each Producer is only called when there is room for one more running subChain, so that only parallelism
+	 * subChains exist at a time, whatever the number of sources.
+	 * <p>
+	 * Note: only ChainEngine.LOCK_FREE supports allLimited().
+	 * @param parallelism the maximum number of subChains running at the same time.
+	 * @param sources producers that start a subChain each (or return a plain object, which is put into the result
+	 *                as it is). The iterator is only used by one thread at a time.
+	 * @return the object you should return inside the .then()
+	 */
+	public static Object allLimited(int parallelism, Iterator<? extends Producer<?>> sources) {
+		return new DotAllLimited(parallelism, sources);
+	}
+
+	/**
+	 * Like all(), but the output of every subChain is folded into an accumulator as soon as it finishes:
+	 *
+	 * chain.then(obj -&gt; ActionChain.allReduce(subChains, true, 0, (Integer sum, Integer x) -&gt; sum + x)).then((Integer sum) -&gt; {
+	 *     // sum of the outputs of the subChains
+	 * }
+	 *
+	 * The outputs are folded in the order in which the subChains finish, not in the order of objects. The reducer is
+	 * never called by two threads at the same time. If it throws, the chain fails as if the action had thrown.
+	 * <p>
+	 * Note: only ChainEngine.LOCK_FREE supports allReduce().
+	 * @param objects subChains (or plain objects, which are folded as they are).
+	 * @param runOnWorkerThread whether reducer runs on a worker thread, or on the main thread.
+	 * @param initial the accumulator before any output is folded. It is the result if objects is empty.
+	 * @param reducer returns the accumulator after folding one output into it.
+	 * @return the object you should return inside the .then()
+	 */
+	public static <Acc, T> Object allReduce(List<?> objects, boolean runOnWorkerThread, Acc initial, Reducer<Acc, T> reducer) {
+		return new DotAllStreaming((List<Object>) objects, runOnWorkerThread, initial, (Reducer<Object, Object>) (Reducer) reducer);
+	}
+
+	/**
+	 * Like all(), but onResult is called with the output of every subChain as soon as it finishes (so a UI can show
+	 * the first results while the slowest subChains still run). The next action receives null.
+	 * <p>
+	 * Note: only ChainEngine.LOCK_FREE supports allStreaming().
+	 * @param objects subChains (or plain objects, which are passed to onResult as they are).
+	 * @param runOnWorkerThread whether onResult runs on a worker thread, or on the main thread.
+	 * @param onResult called once per object, never by two threads at the same time.
+	 * @return the object you should return inside the .then()
+	 */
+	public static <T> Object allStreaming(List<?> objects, boolean runOnWorkerThread, final Consumer<T> onResult) {
+		return allReduce(objects, runOnWorkerThread, null, (Object nothing, T input) -> {
+			onResult.consume(input);
+			return null;
+		});
+	}
+
+	/**
+	 * Usage, inside a long action:
+	 *
+	 * chain.netThen(obj -&gt; {
+	 *     CancellationToken token = ActionChain.currentToken();
+	 *     for (Item item : items) {
+	 *         token.throwIfCancelled();
+	 *         process(item);
+	 *     }
+	 *     ...
+	 * }
+	 *
+	 * @return the token of the chain whose action is running on the calling thread (the ReadOnlyChain itself, or the
+	 * ChainStream), or CancellationToken.NONE outside of any action.
+	 * @see ReadOnlyChain#cancel()
+	 */
+	public static CancellationToken currentToken() {
+		return ReadOnlyChain.currentToken();
+	}
+
+	/**
+	 * Like all(), but the chain only waits for the first subChain that succeeds:
+	 *
+	 * chain.then(obj -&gt; ActionChain.firstOf(replica1.start(), replica2.start())).then(ans -&gt; {
+	 *     // ans is the output of the fastest replica
+	 * }
+	 *
+	 * The other subChains are cancelled. If all the subChains fail, the chain fails with an ExceptionList.
+	 * <p>
+	 * Note: only ChainEngine.LOCK_FREE supports firstOf().
+	 * @param objects subChains (a plain object counts as a subChain that has already succeeded).
+	 * @return the object you should return inside the .then()
+	 */
+	public static Object firstOf(Object... objects) {
+		return firstOf(Arrays.asList(objects));
+	}
+
+	/**
+	 * See firstOf(Object...).
+	 * @param objects subChains (a plain object counts as a subChain that has already succeeded).
+	 * @return the object you should return inside the .then()
+	 */
+	public static Object firstOf(List<?> objects) {
+		return firstOf(objects, null);
+	}
+
+	/**
+	 * See firstOf(Object...).
+	 * @param objects subChains (a plain object counts as a subChain that has already succeeded).
+	 * @param onRest see quorum(int, List, NiceConsumer).
+	 * @return the object you should return inside the .then()
+	 */
+	public static Object firstOf(List<?> objects, NiceConsumer<Object> onRest) {
+		return new DotAllQuorum((List<Object>) objects, 1, true, onRest);
+	}
+
+	/**
+	 * Like all(), but the chain only waits until quorum subChains have succeeded:
+	 *
+	 * chain.then(obj -&gt; ActionChain.quorum(2, replicas)).then((List&lt;Object&gt; ans) -&gt; {
+	 *     // ans contains the outputs of the first two replicas to succeed, in the order in which they finished
+	 * }
+	 *
+	 * The other subChains are cancelled, so that they stop using worker threads. Failed subChains are tolerated
+	 * as long as quorum can still be reached, otherwise the chain fails with an ExceptionList of their errors.
+	 * <p>
+	 * Note: only ChainEngine.LOCK_FREE supports quorum().
+	 * @param quorum the number of subChains that must succeed, between 1 and objects.size().
+	 * @param objects subChains (a plain object counts as a subChain that has already succeeded).
+	 * @return the object you should return inside the .then()
+	 */
+	public static Object quorum(int quorum, List<?> objects) {
+		return quorum(quorum, objects, null);
+	}
+
+	/**
+	 * See quorum(int, List).
+	 * @param quorum the number of subChains that must succeed, between 1 and objects.size().
+	 * @param objects subChains (a plain object counts as a subChain that has already succeeded).
+	 * @param onRest called on the main thread with the output of every subChain that succeeded after the quorum was
+	 *               reached, and with the Exception of every subChain that failed. Cancelled subChains are not reported.
+	 * @return the object you should return inside the .then()
+	 */
+	public static Object quorum(int quorum, List<?> objects, NiceConsumer<Object> onRest) {
+		return new DotAllQuorum((List<Object>) objects, quorum, false, onRest);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package zyu19.libs.action.chain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.HashedTimerWheel;
+import zyu19.libs.action.chain.config.PureAction;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Merges the inputs of ChainStyle.batchedThen() links into batches, so that a bulk endpoint is called
+ * once for many chains (like a DataLoader).
+ * <p>
+ * A batch is opened by the first input, and closed when it holds maxSize inputs or maxDelay after it was
+ * opened, whichever comes first. The batch function then runs on a worker thread, and each chain resumes
+ * with the output at the index of its input. Share one instance between all the chains whose inputs
+ * may be merged.
+ * <p>
+ * If the batch function throws, every chain of the batch fails with that error. If Out allows it, the
+ * batch function can also fail a single input by putting an Exception at its index.
+ * <p>
+ * Needs ChainEngine.LOCK_FREE.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public class Batcher<In, Out> {
+	private final PureAction<List<In>, List<Out>> mBatchFn;
+	private final int mMaxSize;
+	private final long mMaxDelayNanos;
+
+	// guarded by this: adding an input is a few writes, much shorter than the window of a batch
+	private Batch<In> mOpen = null;
+
+	private static final class Batch<In> {
+		final ArrayList<In> inputs = new ArrayList<>();
+		final ArrayList<Deferred> outputs = new ArrayList<>();
+		HashedTimerWheel.Timeout timeout;
+	}
+
+	/**
+	 * @param batchFn gets the inputs of a batch, and returns their outputs in the same order.
+	 * @param maxSize the number of inputs that closes a batch at once.
+	 * @param maxDelay the time a batch stays open at most.
+	 * @param unit the unit of maxDelay.
+	 */
+	public Batcher(PureAction<List<In>, List<Out>> batchFn, int maxSize, long maxDelay, TimeUnit unit) {
+		if (maxSize < 1)
+			throw new IllegalArgumentException("maxSize must be positive");
+		if (maxDelay < 0)
+			throw new IllegalArgumentException("maxDelay must not be negative");
+		mBatchFn = batchFn;
+		mMaxSize = maxSize;
+		mMaxDelayNanos = unit.toNanos(maxDelay);
+	}
+
+	/**
+	 * @return the output of input, once its batch has run.
+	 */
+	Deferred add(In input, final ThreadPolicy threadPolicy) {
+		if (threadPolicy.getEngine() != ChainEngine.LOCK_FREE)
+			throw new UnsupportedOperationException("batchedThen() needs ChainEngine.LOCK_FREE");
+		final Deferred output = new Deferred();
+		final Batch<In> batch;
+		final boolean opened;
+		final boolean full;
+		synchronized (this) {
+			opened = mOpen == null;
+			if (opened)
+				mOpen = new Batch<>();
+			batch = mOpen;
+			batch.inputs.add(input);
+			batch.outputs.add(output);
+			full = batch.inputs.size() >= mMaxSize;
+			if (full)
+				mOpen = null;
+		}
+		if (full) {
+			threadPolicy.runWorker(() -> run(batch));
+		} else if (opened) {
+			// the batch function must not run on the timer thread
+			final HashedTimerWheel.Timeout timeout = threadPolicy.getTimer().schedule(() -> {
+				if (close(batch))
+					threadPolicy.runWorker(() -> run(batch));
+			}, mMaxDelayNanos, TimeUnit.NANOSECONDS);
+			synchronized (this) {
+				batch.timeout = timeout;
+			}
+		}
+		return output;
+	}
+
+	/**
+	 * @return false if batch has already been closed because it was full.
+	 */
+	private synchronized boolean close(Batch<In> batch) {
+		if (mOpen != batch)
+			return false;
+		mOpen = null;
+		return true;
+	}
+
+	private void run(Batch<In> batch) {
+		synchronized (this) {
+			if (batch.timeout != null)
+				batch.timeout.cancel();
+		}
+		final List<Out> outputs;
+		try {
+			outputs = mBatchFn.process(batch.inputs);
+			if (outputs == null || outputs.size() != batch.inputs.size())
+				throw new IllegalStateException("The batch function returned " + (outputs == null ? "null" : outputs.size()
+						+ " outputs") + " for " + batch.inputs.size() + " inputs");
+		} catch (Exception err) {
+			for (Deferred output : batch.outputs)
+				output.fail(err);
+			return;
+		}
+		for (int i = 0; i < outputs.size(); i++) {
+			final Object output = outputs.get(i);
+			if (output instanceof Exception)
+				batch.outputs.get(i).fail((Exception) output);
+			else batch.outputs.get(i).complete(output);
+		}
+	}
+}
@@ -1,5 +1,10 @@
 package zyu19.libs.action.chain;
 
+import zyu19.libs.action.chain.config.DotAll;
+import zyu19.libs.action.chain.config.DotAllLimited;
+import zyu19.libs.action.chain.config.DotAllQuorum;
+import zyu19.libs.action.chain.config.DotAllStreaming;
+import zyu19.libs.action.chain.config.LinkCache;
 import zyu19.libs.action.chain.config.NiceConsumer;
 import zyu19.libs.action.chain.config.ErrorHolder;
 import zyu19.libs.action.chain.config.PureAction;
@@ -11,18 +16,71 @@ import zyu19.libs.action.chain.config.PureAction;
  * Created on 7/21/2015.
  * <p>
  * Changed to be a package class on 8/8/2015 (v0.2)
+ * <p>
+ * Made immutable on 10/18/2026, so that ChainPlan can share links between executions.
  * @author Zhongzhi Yu 
  * 
- * @version 0.3
+ * @version 0.4
  */
 class ChainLink<In, Out> {
 	final public PureAction<In, Out> pureAction;
 	final public boolean runOnWorkerThread;
-	public NiceConsumer<ErrorHolder> errorHandler;
+	final public NiceConsumer<ErrorHolder> errorHandler;
+	// 0 if this link never times out
+	final public long timeoutNanos;
+	// both null, unless this link was added by cachedThen()
+	final public PureAction<In, ?> keyFn;
+	final public LinkCache<Object, Out> cache;
 
 	public ChainLink(PureAction<In, Out> pureAction, NiceConsumer<ErrorHolder> errorHandler, boolean runOnWorkerThread) {
+		this(pureAction, errorHandler, runOnWorkerThread, 0);
+	}
+
+	public ChainLink(PureAction<In, Out> pureAction, NiceConsumer<ErrorHolder> errorHandler, boolean runOnWorkerThread, long timeoutNanos) {
+		this.pureAction = pureAction;
+		this.errorHandler = errorHandler;
+		this.runOnWorkerThread = runOnWorkerThread;
+		this.timeoutNanos = timeoutNanos;
+		this.keyFn = null;
+		this.cache = null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <K> ChainLink(PureAction<In, Out> pureAction, NiceConsumer<ErrorHolder> errorHandler, boolean runOnWorkerThread,
+						 PureAction<In, K> keyFn, LinkCache<K, Out> cache) {
 		this.pureAction = pureAction;
 		this.errorHandler = errorHandler;
 		this.runOnWorkerThread = runOnWorkerThread;
+		this.timeoutNanos = 0;
+		this.keyFn = keyFn;
+		this.cache = (LinkCache<Object, Out>) cache;
+	}
+
+	/**
+	 * Computed once per run of this link: the same key serves cached() and, on a miss, store().
+	 * @return the key of input in the cache, or null if this link has no cache or keyFn gave no key.
+	 */
+	Object keyOf(In input) throws Exception {
+		return cache == null ? null : keyFn.process(input);
+	}
+
+	/**
+	 * @param key a key returned by keyOf().
+	 * @return the output cached for key, or null if key is null or on a miss.
+	 */
+	Out cached(Object key) {
+		return key == null ? null : cache.get(key);
+	}
+
+	/**
+	 * Caches output for key, unless either is null or output stands for subChains the next link must wait for.
+	 */
+	@SuppressWarnings("unchecked")
+	void store(Object key, Object output) {
+		if (key == null || output == null || output instanceof ReadOnlyChain || output instanceof DotAll
+				|| output instanceof DotAllLimited || output instanceof DotAllStreaming || output instanceof DotAllQuorum
+				|| output instanceof Deferred)
+			return;
+		cache.put(key, (Out) output);
 	}
 }
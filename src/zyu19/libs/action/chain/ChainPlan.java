@@ -0,0 +1,90 @@
+package zyu19.libs.action.chain;
+
+import java.util.List;
+
+import zyu19.libs.action.chain.config.NiceConsumer;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * An immutable snapshot of the actions of an ActionChain or a TActionChain, made by compile().
+ * <p>
+ * The actions are frozen into an array that is never modified afterwards, so a ChainPlan can be
+ * started any number of times, from any number of threads at the same time. Every start() creates
+ * a new ReadOnlyChain that shares the array instead of copying it, and keeps everything that
+ * belongs to one execution (the position, the output, the error handlers inherited from a parent
+ * chain...) to itself.
+ * <p>
+ * Usage:
+ * <pre>
+ * ChainPlan plan = new ActionChain(threadPolicy, onFailure).netThen(...).uiThen(...).compile();
+ * // for every request:
+ * plan.start(output -&gt; ...);
+ * </pre>
+ * Created on 10/18/2026.
+ *
+ * @author Zhongzhi Yu
+ * @version 0.4
+ */
+public final class ChainPlan {
+	private final ChainLink<?, ?>[] mLinks;
+	private final ThreadPolicy mThreadPolicy;
+	private final long mDeadlineNanos;
+
+	ChainPlan(List<ChainLink<?, ?>> actionSequence, ThreadPolicy threadPolicy, long deadlineNanos) {
+		mLinks = actionSequence.toArray(new ChainLink<?, ?>[actionSequence.size()]);
+		mThreadPolicy = threadPolicy;
+		mDeadlineNanos = deadlineNanos;
+	}
+
+	/**
+	 * Starts a new execution of this plan.
+	 * @param onSuccess if not null, it will be called after all actions finish without Exception.
+	 * @param <In> The input type of onSuccess. Lambda will automatically set this template parameter.
+	 * @return the started chain. See ChainStyle.start() for how to use it.
+	 */
+	public <In> ReadOnlyChain start(NiceConsumer<In> onSuccess) {
+		ReadOnlyChain chain = ReadOnlyChain.newInstance(mLinks, onSuccess, mThreadPolicy, mDeadlineNanos);
+		chain.start();
+		return chain;
+	}
+
+	/**
+	 * Starts a new execution of this plan, without a onSuccess listener.
+	 * @return the started chain. See ChainStyle.start() for how to use it.
+	 */
+	public ReadOnlyChain start() {
+		return start(null);
+	}
+
+	/**
+	 * Runs this plan as a pipeline of many items instead of starting it once per item. See ChainStream.
+	 * @param queueCapacity the maximum number of items in each stage (one stage per action).
+	 * @param parallelism the maximum number of items each worker stage processes at the same time.
+	 *                    See ChainStream.setParallelism() to change it for one stage.
+	 * @param onItem if not null, called on the main thread with the output of the last action for every item.
+	 * @param <In> the type of the items, which are the inputs of the first action.
+	 * @param <Out> the output type of the last action.
+	 * @return a stream ready to take items.
+	 */
+	public <In, Out> ChainStream<In> stream(int queueCapacity, int parallelism, NiceConsumer<Out> onItem) {
+		return new ChainStream<>(mLinks, mThreadPolicy, queueCapacity, parallelism, onItem);
+	}
+
+	/**
+	 * @return the number of actions in this plan.
+	 */
+	public int size() {
+		return mLinks.length;
+	}
+
+	public ThreadPolicy getThreadPolicy() {
+		return mThreadPolicy;
+	}
+
+	/**
+	 * @return the time every execution of this plan has to finish, in nanoseconds, or 0 if there is no deadline.
+	 */
+	public long getDeadlineNanos() {
+		return mDeadlineNanos;
+	}
+}
@@ -0,0 +1,496 @@
+package zyu19.libs.action.chain;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import zyu19.libs.action.chain.config.CancellationToken;
+import zyu19.libs.action.chain.config.DotAll;
+import zyu19.libs.action.chain.config.DotAllLimited;
+import zyu19.libs.action.chain.config.DotAllQuorum;
+import zyu19.libs.action.chain.config.DotAllStreaming;
+import zyu19.libs.action.chain.config.ErrorHolder;
+import zyu19.libs.action.chain.config.NiceConsumer;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Runs the actions of a ChainPlan as a pipeline: every action is a stage with its own bounded queue and its
+ * own parallelism, and many items flow through the stages at the same time, instead of one ReadOnlyChain
+ * being started per item.
+ * <p>
+ * Usage:
+ * <pre>
+ * ChainStream&lt;Record&gt; stream = new ActionChain(threadPolicy, onFailure).netThen(parse).netThen(enrich)
+ *         .uiThen(show).compile().stream(64, 4, output -&gt; ...);
+ * for (Record record : records)
+ *     stream.put(record);
+ * stream.close(() -&gt; ...);
+ * </pre>
+ * Each item is the input of the first action, and the output of the last action is passed to onItem.
+ * A stage holds at most queueCapacity items (waiting, running, or done but waiting for room in the next stage).
+ * When a stage is full, the stage before it keeps its outputs and stops taking items, and so on up to put(),
+ * which blocks: the items in flight never exceed queueCapacity per stage. No worker thread ever blocks.
+ * <p>
+ * uiThen() stages run on the ThreadChanger, one item at a time. The other stages run up to their parallelism
+ * items at once, so the items may leave the stream out of order unless every parallelism is 1.
+ * <p>
+ * An action that throws calls its error handler on the main thread, with an ErrorHolder for that item only:
+ * retry() and retryAfter() run the action again on the same item, and jumpBy() moves the item to another stage
+ * (or to onItem, past the last one or before the first one). The item is dropped if the handler does neither. Timeouts and deadlines
+ * do not apply to streams, and an action may not return subChains (or ActionChain.all() and the like).
+ * <p>
+ * While an action runs, ActionChain.currentToken() returns its stream.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public final class ChainStream<In> implements CancellationToken {
+	private static final ThreadLocal<ChainStream<?>> RUNNING = new ThreadLocal<>();
+
+	private final Stage[] mStages;
+	private final ThreadPolicy mThreadPolicy;
+	private final NiceConsumer<Object> mOnItem;
+	private final int mCapacity;
+
+	// accepted by put() or offer(), and not delivered to onItem or dropped yet
+	private final AtomicLong mInFlight = new AtomicLong(0);
+	private final AtomicBoolean mDrained = new AtomicBoolean(false);
+	private volatile boolean mClosed = false;
+	private volatile boolean mCancelled = false;
+	private volatile Runnable mOnDrained = null;
+	private volatile Runnable mRoomListener = null;
+
+	// put() waits on it for room in the first stage. mNumWaiting is only written while holding it.
+	private final Object mRoom = new Object();
+	private volatile int mNumWaiting = 0;
+
+	@SuppressWarnings("unchecked")
+	ChainStream(ChainLink<?, ?>[] links, ThreadPolicy threadPolicy, int queueCapacity, int parallelism,
+				NiceConsumer<?> onItem) {
+		if (links.length == 0)
+			throw new IllegalArgumentException("A stream needs at least one action");
+		if (queueCapacity < 1)
+			throw new IllegalArgumentException("queueCapacity must be positive");
+		if (parallelism < 1)
+			throw new IllegalArgumentException("parallelism must be positive");
+		mThreadPolicy = threadPolicy;
+		mOnItem = (NiceConsumer<Object>) onItem;
+		mCapacity = queueCapacity;
+		mStages = (Stage[]) new ChainStream<?>.Stage[links.length];
+		for (int i = 0; i < links.length; i++)
+			mStages[i] = new Stage(i, (ChainLink<Object, Object>) links[i], parallelism);
+	}
+
+	/**
+	 * Changes the number of items that one stage may process at the same time. uiThen() stages always
+	 * process one item at a time.
+	 * @param stage the position of the action in the ChainPlan, starting at 0.
+	 * @param parallelism the maximum number of worker threads of that stage.
+	 * @return this object, thus enabling method chaining.
+	 */
+	public ChainStream<In> setParallelism(int stage, int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("parallelism must be positive");
+		if (mStages[stage].link.runOnWorkerThread)
+			mStages[stage].parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Lets a producer that must not block (such as a Flow.Subscriber) add items with offer() as room is made,
+	 * instead of polling: after it has taken getQueueCapacity() items, it may add one more item every time the
+	 * listener is called.
+	 * @param listener called every time an item leaves the first stage, on the thread that moved it.
+	 * @return this object, thus enabling method chaining.
+	 */
+	public ChainStream<In> setRoomListener(Runnable listener) {
+		mRoomListener = listener;
+		return this;
+	}
+
+	/**
+	 * @return the maximum number of items in each stage.
+	 */
+	public int getQueueCapacity() {
+		return mCapacity;
+	}
+
+	/**
+	 * Adds an item, waiting for room in the first stage if it is full.
+	 * @throws InterruptedException if the calling thread was interrupted while waiting. The item is not added.
+	 * @throws IllegalStateException if the stream has been closed or cancelled.
+	 */
+	public void put(In item) throws InterruptedException {
+		final Stage first = mStages[0];
+		if (!first.tryReserve()) {
+			synchronized (mRoom) {
+				mNumWaiting++;
+				try {
+					while (!first.tryReserve()) {
+						if (mCancelled)
+							throw new IllegalStateException("The stream has been cancelled");
+						mRoom.wait();
+					}
+				} finally {
+					mNumWaiting--;
+				}
+			}
+		}
+		accept(item);
+	}
+
+	/**
+	 * Adds an item if there is room in the first stage.
+	 * @return false if the first stage is full. The item is not added.
+	 * @throws IllegalStateException if the stream has been closed or cancelled.
+	 */
+	public boolean offer(In item) {
+		if (!mStages[0].tryReserve())
+			return false;
+		accept(item);
+		return true;
+	}
+
+	private void accept(In item) {
+		// counted before closed is read: see close()
+		mInFlight.incrementAndGet();
+		if (mClosed || mCancelled) {
+			mStages[0].release();
+			finishItem();
+			throw new IllegalStateException("The stream has been " + (mCancelled ? "cancelled" : "closed"));
+		}
+		mStages[0].enqueue(new Item(item));
+	}
+
+	/**
+	 * Tells the stream that no item will be added anymore.
+	 * @param onDrained if not null, called on the main thread once every item has been delivered or dropped.
+	 */
+	public void close(Runnable onDrained) {
+		mOnDrained = onDrained;
+		mClosed = true;
+		checkDrained();
+	}
+
+	public void close() {
+		close(null);
+	}
+
+	/**
+	 * Drops the items that are still in the stream. The actions that are running are not interrupted, but their
+	 * outputs are dropped as well, and onItem is no longer called. Items can no longer be added: close() only
+	 * remains useful to be told when the running actions are over.
+	 * Running actions can see the cancellation through ActionChain.currentToken().
+	 */
+	public void cancel() {
+		mCancelled = true;
+		synchronized (mRoom) {
+			mRoom.notifyAll();
+		}
+		for (Stage stage : mStages)
+			stage.schedule();
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return mCancelled;
+	}
+
+	@Override
+	public void throwIfCancelled() throws CancellationException {
+		if (mCancelled)
+			throw new CancellationException("The stream has been cancelled.");
+	}
+
+	/**
+	 * @return the number of items that have been added, but not delivered to onItem or dropped yet.
+	 */
+	public long size() {
+		return mInFlight.get();
+	}
+
+	/**
+	 * @return the stream whose action is running on the calling thread, or null.
+	 */
+	static ChainStream<?> running() {
+		return RUNNING.get();
+	}
+
+	private void finishItem() {
+		if (mInFlight.decrementAndGet() == 0)
+			checkDrained();
+	}
+
+	private void checkDrained() {
+		if (mClosed && mInFlight.get() == 0 && mDrained.compareAndSet(false, true))
+			mThreadPolicy.switchAndRun(mOnDrained);
+	}
+
+	private void deliver(final Stage from, final Item item) {
+		mThreadPolicy.switchAndRun(() -> {
+			try {
+				if (!mCancelled && mOnItem != null)
+					mOnItem.consume(item.value);
+			} finally {
+				// the slot is only freed once onItem has returned, so that a slow main thread slows put() down too
+				from.release();
+				finishItem();
+			}
+		});
+	}
+
+	private void drop(Stage from) {
+		from.release();
+		finishItem();
+	}
+
+	private static final class Item {
+		Object value;
+		int retryCount = 0;
+
+		Item(Object value) {
+			this.value = value;
+		}
+	}
+
+	private final class Stage {
+		final int index;
+		final ChainLink<Object, Object> link;
+		volatile int parallelism;
+
+		final ConcurrentLinkedQueue<Item> inbox = new ConcurrentLinkedQueue<>();
+		// outputs waiting for room in the next stage
+		final ConcurrentLinkedQueue<Item> outbox = new ConcurrentLinkedQueue<>();
+		// one per item in inbox, running, or in outbox
+		final AtomicInteger slots = new AtomicInteger(0);
+		final AtomicInteger active = new AtomicInteger(0);
+
+		Stage(int index, ChainLink<Object, Object> link, int parallelism) {
+			this.index = index;
+			this.link = link;
+			this.parallelism = link.runOnWorkerThread ? parallelism : 1;
+		}
+
+		boolean tryReserve() {
+			while (true) {
+				final int used = slots.get();
+				if (used >= mCapacity)
+					return false;
+				if (slots.compareAndSet(used, used + 1))
+					return true;
+			}
+		}
+
+		/**
+		 * Frees the slot of an item that has left this stage, and fills it from the stage before.
+		 */
+		void release() {
+			slots.decrementAndGet();
+			if (index > 0) {
+				pull();
+				return;
+			}
+			if (mNumWaiting > 0) {
+				synchronized (mRoom) {
+					mRoom.notifyAll();
+				}
+			}
+			final Runnable listener = mRoomListener;
+			if (listener != null)
+				listener.run();
+		}
+
+		/**
+		 * Moves the outputs of the stage before into this one while there is room. Called whenever one of the
+		 * two conditions may have become true (an output was parked, or a slot was freed), so none is forgotten.
+		 */
+		void pull() {
+			final Stage from = mStages[index - 1];
+			while (!from.outbox.isEmpty() && tryReserve()) {
+				final Item item = from.outbox.poll();
+				if (item == null) {
+					slots.decrementAndGet();
+					continue;
+				}
+				enqueue(item);
+				from.release();
+			}
+		}
+
+		void enqueue(Item item) {
+			inbox.add(item);
+			schedule();
+		}
+
+		/**
+		 * Starts one more task for this stage if it has waiting items and fewer tasks than its parallelism.
+		 */
+		void schedule() {
+			while (true) {
+				final int running = active.get();
+				if (running >= parallelism || inbox.isEmpty())
+					return;
+				if (active.compareAndSet(running, running + 1))
+					break;
+			}
+			if (link.runOnWorkerThread)
+				mThreadPolicy.runWorker(this::drain);
+			else mThreadPolicy.switchAndRun(this::drain);
+		}
+
+		private void drain() {
+			final ChainStream<?> outer = RUNNING.get();
+			RUNNING.set(ChainStream.this);
+			try {
+				// then yield the thread, so that a busy stage cannot starve the others
+				for (int i = 0; i < mCapacity; i++) {
+					final Item item = inbox.poll();
+					if (item == null)
+						break;
+					process(item);
+				}
+			} finally {
+				RUNNING.set(outer);
+				active.decrementAndGet();
+			}
+			schedule();
+		}
+
+		private void process(Item item) {
+			if (mCancelled) {
+				drop(this);
+				return;
+			}
+			final Object output;
+			try {
+				final Object key = link.keyOf(item.value);
+				final Object cached = link.cached(key);
+				if (cached == null) {
+					output = link.pureAction.process(item.value);
+					if (output instanceof ReadOnlyChain || output instanceof DotAll || output instanceof DotAllLimited
+							|| output instanceof DotAllStreaming || output instanceof DotAllQuorum
+							|| output instanceof Deferred || Deferred.isCompletionStage(output))
+						throw new UnsupportedOperationException("The actions of a ChainStream cannot wait for subChains");
+					link.store(key, output);
+				} else output = cached;
+			} catch (Exception err) {
+				fail(item, err);
+				return;
+			}
+			item.value = output;
+			item.retryCount = 0;
+			moveOn(item);
+		}
+
+		private void moveOn(Item item) {
+			if (index == mStages.length - 1) {
+				deliver(this, item);
+				return;
+			}
+			outbox.add(item);
+			mStages[index + 1].pull();
+		}
+
+		private void fail(Item item, Exception err) {
+			final NiceConsumer<ErrorHolder> handler = link.errorHandler;
+			if (handler == null) {
+				ReadOnlyChain.printUncaughtEx(err);
+				drop(this);
+				return;
+			}
+			final StreamError error = new StreamError(this, item, err);
+			mThreadPolicy.switchAndRun(() -> {
+				try {
+					handler.consume(error);
+				} finally {
+					if (!error.decided)
+						drop(this);
+				}
+			});
+		}
+	}
+
+	/**
+	 * The ErrorHolder of one item. Its slot in the stage stays taken until the handler has decided.
+	 */
+	private final class StreamError implements ErrorHolder<Exception> {
+		final Stage stage;
+		final Item item;
+		final Exception cause;
+		// only used on the thread of the handler
+		boolean decided = false;
+
+		StreamError(Stage stage, Item item, Exception cause) {
+			this.stage = stage;
+			this.item = item;
+			this.cause = cause;
+		}
+
+		@Override
+		public Exception getCause() {
+			return cause;
+		}
+
+		@Override
+		public void retry() {
+			if (decided)
+				return;
+			decided = true;
+			item.retryCount++;
+			stage.enqueue(item);
+		}
+
+		@Override
+		public void retryAfter(long delay, TimeUnit unit) {
+			if (delay <= 0) {
+				retry();
+				return;
+			}
+			if (decided)
+				return;
+			decided = true;
+			// the wheel must not run the action: on a uiThen() stage without a ThreadChanger, it would run inline
+			mThreadPolicy.getTimer().schedule(() -> mThreadPolicy.runWorker(() -> {
+				item.retryCount++;
+				stage.enqueue(item);
+			}), delay, unit);
+		}
+
+		@Override
+		public int getRetryCount() {
+			return item.retryCount;
+		}
+
+		@Override
+		public void jumpBy(int offset) {
+			if (offset == 0) {
+				retry();
+				return;
+			}
+			if (decided)
+				return;
+			decided = true;
+			final int target = stage.index + offset;
+			if (target < 0 || target >= mStages.length) {
+				// like a ReadOnlyChain that jumps out of its actions: it finishes with the current output
+				deliver(stage, item);
+			} else {
+				// a jump may overfill the target stage by one item, rather than wait for room in it
+				item.retryCount = 0;
+				mStages[target].slots.incrementAndGet();
+				mStages[target].enqueue(item);
+				stage.release();
+			}
+		}
+
+		@Override
+		public int getPosition() {
+			return stage.index;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package zyu19.libs.action.chain;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bridges ReadOnlyChain and the CompletionStage of Java 8, in both directions, without blocking any thread.
+ * <p>
+ * An action may return a CompletionStage: the chain then pauses, as it does for a returned subChain, and resumes
+ * from the completion of the stage with its result. If the stage fails, the action fails with the cause
+ * (unwrapped from any CompletionException). The other way round, toCompletableFuture() adapts a started chain.
+ * <p>
+ * This is the only class of the library that uses the APIs of Java 8. It is only loaded once a CompletionStage
+ * has been seen (or once toCompletableFuture() is called), so the library still runs on Java 7.
+ * Both directions need ChainEngine.LOCK_FREE.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public final class CompletionStages {
+	private CompletionStages() {
+	}
+
+	/**
+	 * Adapts a started chain. The future completes (on the main thread) with the output of the chain, or
+	 * completes exceptionally with its error if no failure handler takes that error. Cancelling the future
+	 * cancels the chain, and cancelling the chain cancels the future.
+	 * @param chain a ReadOnlyChain, as returned by start() (or by TActionChain.start()).
+	 * @param <T> the type of the output of the chain.
+	 * @return a future that nothing needs to block on.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> CompletableFuture<T> toCompletableFuture(Object chain) {
+		if (!(chain instanceof ReadOnlyChain))
+			throw new IllegalArgumentException("Not a started chain: " + chain);
+		if (!(chain instanceof LockFreeChain))
+			throw new UnsupportedOperationException("toCompletableFuture() needs ChainEngine.LOCK_FREE");
+		final LockFreeChain lockFree = (LockFreeChain) chain;
+		final CompletableFuture<T> future = new CompletableFuture<>();
+		final SubChainListener listener = new SubChainListener() {
+			@Override
+			void onSubChainSuccess(Object output) {
+				future.complete((T) output);
+			}
+
+			@Override
+			boolean onSubChainFailure(LockFreeChain subChain) {
+				if (future.isDone() || !subChain.claimFailure())
+					return false;
+				future.completeExceptionally(subChain.getCause());
+				return true;
+			}
+
+			@Override
+			void onSubChainCancelled(LockFreeChain subChain) {
+				future.cancel(false);
+			}
+		};
+		// the same protocol as await(): an error nobody has handled yet is claimed at once
+		if (!lockFree.addSubChainListener(listener))
+			future.complete((T) lockFree.getOutput());
+		else if (lockFree.claimFailure())
+			future.completeExceptionally(lockFree.getCause());
+		future.whenComplete((output, err) -> {
+			if (future.isCancelled())
+				lockFree.cancel();
+		});
+		return future;
+	}
+
+	/**
+	 * @param stage a CompletionStage (see Deferred.isCompletionStage()).
+	 */
+	static Deferred toDeferred(Object stage) {
+		final Deferred deferred = new Deferred();
+		((CompletionStage<?>) stage).whenComplete((output, err) -> {
+			if (err == null)
+				deferred.complete(output);
+			else deferred.fail(unwrap(err));
+		});
+		return deferred;
+	}
+
+	private static Exception unwrap(Throwable err) {
+		if (err instanceof CompletionException && err.getCause() != null)
+			err = err.getCause();
+		return err instanceof Exception ? (Exception) err : new ExecutionException(err);
+	}
+}
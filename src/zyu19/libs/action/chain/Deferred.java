@@ -0,0 +1,97 @@
+package zyu19.libs.action.chain;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * An output that is not ready yet: a chain whose action returns one pauses (like it does for a subChain)
+ * until another thread calls complete() or fail(). A returned CompletionStage is turned into one.
+ * <p>
+ * It has a single listener, the chain waiting for it, so its state is one reference, changed by compareAndSet:
+ * PENDING, then either the listener or the outcome, then the outcome.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+final class Deferred {
+	interface Listener {
+		/**
+		 * Called once, on the thread that completed the Deferred (or that listened to an already completed one).
+		 * @param cause null on success.
+		 */
+		void onDeferredComplete(Object output, Exception cause);
+	}
+
+	private static final class Outcome {
+		final Object output;
+		final Exception cause;
+
+		Outcome(Object output, Exception cause) {
+			this.output = output;
+			this.cause = cause;
+		}
+	}
+
+	// null on the platforms without java.util.concurrent.CompletionStage (Java 7, old versions of Android)
+	private static final Class<?> COMPLETION_STAGE = loadCompletionStage();
+
+	private static Class<?> loadCompletionStage() {
+		try {
+			return Class.forName("java.util.concurrent.CompletionStage");
+		} catch (ClassNotFoundException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Only CompletionStages refers to the classes of Java 8, and it is not loaded before this returns true.
+	 */
+	static boolean isCompletionStage(Object output) {
+		return COMPLETION_STAGE != null && COMPLETION_STAGE.isInstance(output);
+	}
+
+	private static final Object PENDING = new Object();
+	private static final AtomicReferenceFieldUpdater<Deferred, Object> STATE =
+			AtomicReferenceFieldUpdater.newUpdater(Deferred.class, Object.class, "mState");
+
+	private volatile Object mState = PENDING;
+
+	/**
+	 * @return false if this Deferred had already been completed.
+	 */
+	boolean complete(Object output) {
+		return settle(new Outcome(output, null));
+	}
+
+	/**
+	 * @return false if this Deferred had already been completed.
+	 */
+	boolean fail(Exception cause) {
+		return settle(new Outcome(null, cause));
+	}
+
+	private boolean settle(Outcome outcome) {
+		while (true) {
+			final Object state = mState;
+			if (state instanceof Outcome)
+				return false;
+			if (STATE.compareAndSet(this, state, outcome)) {
+				if (state != PENDING)
+					((Listener) state).onDeferredComplete(outcome.output, outcome.cause);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Must be called at most once.
+	 */
+	void listen(Listener listener) {
+		if (STATE.compareAndSet(this, PENDING, listener))
+			return;
+		// there is no other listener, so the state can only be the outcome
+		final Outcome outcome = (Outcome) mState;
+		listener.onDeferredComplete(outcome.output, outcome.cause);
+	}
+}
@@ -0,0 +1,144 @@
+package zyu19.libs.action.chain;
+
+import java.util.concurrent.TimeUnit;
+
+import zyu19.libs.action.chain.config.*;
+
+/**
+ * A TActionChain whose last action outputs an int. Its actions take an int, and pass it on without boxing it:
+ * with ChainEngine.LOCK_FREE the value is kept in a primitive field of the running chain, so a purely numeric
+ * chain allocates nothing per link. The value is boxed once, when it reaches onSuccess, an object action
+ * (mapToObj(), boxed()) or a chain waiting for this one.
+ * <p>
+ * Usage:
+ * <p>
+ * factory.get().netMapToInt(obj -&gt; 1).netMap(x -&gt; x * 2).netMap(x -&gt; x + 1).start(ans -&gt; {
+ * // here ans = 3
+ * });
+ * <p>
+ * Every action is added to the underlying TActionChain, which keeps its error handler: fail() sets the handler
+ * of the following actions, as in ChainStyle. With ChainEngine.SYNCHRONIZED, or after deadline() or an action
+ * with a timeout, the actions box their values like any other action.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ * @version 0.4
+ * @see LongChain
+ * @see DoubleChain
+ */
+public final class IntChain {
+    private final TActionChain<?> mChain;
+
+    IntChain(TActionChain<?> chain) {
+        mChain = chain;
+    }
+
+    //------------- actions ----------------
+
+    public IntChain map(boolean runOnWorkerThread, IntUnaryAction action) {
+        mChain.thenPrimitive(runOnWorkerThread, PrimitiveLink.of(action));
+        return this;
+    }
+
+    public IntChain netMap(IntUnaryAction action) {
+        return map(true, action);
+    }
+
+    public IntChain uiMap(IntUnaryAction action) {
+        return map(false, action);
+    }
+
+    /**
+     * Adds an action that turns the int into an object, and continues with the underlying TActionChain.
+     *
+     * @param runOnWorkerThread whether the action runs on a worker thread, or on the main thread.
+     * @param action            the action to be added.
+     * @return the underlying TActionChain.
+     */
+    @SuppressWarnings("unchecked")
+    public <Out> TActionChain<Out> mapToObj(boolean runOnWorkerThread, IntToObjAction<Out> action) {
+        mChain.thenPrimitive(runOnWorkerThread, PrimitiveLink.of(action));
+        return (TActionChain<Out>) mChain;
+    }
+
+    public <Out> TActionChain<Out> netMapToObj(IntToObjAction<Out> action) {
+        return mapToObj(true, action);
+    }
+
+    public <Out> TActionChain<Out> uiMapToObj(IntToObjAction<Out> action) {
+        return mapToObj(false, action);
+    }
+
+    /**
+     * @return a LongChain that continues this chain, with the value converted to a long (without boxing it).
+     */
+    public LongChain asLongChain() {
+        mChain.thenPrimitive(mChain.lastRunsOnWorkerThread(), PrimitiveLink.widen(PrimitiveLink.INT, PrimitiveLink.LONG));
+        return new LongChain(mChain);
+    }
+
+    /**
+     * @return a DoubleChain that continues this chain, with the value converted to a double (without boxing it).
+     */
+    public DoubleChain asDoubleChain() {
+        mChain.thenPrimitive(mChain.lastRunsOnWorkerThread(), PrimitiveLink.widen(PrimitiveLink.INT, PrimitiveLink.DOUBLE));
+        return new DoubleChain(mChain);
+    }
+
+    /**
+     * @return the underlying TActionChain: its next action receives the value boxed.
+     */
+    @SuppressWarnings("unchecked")
+    public TActionChain<Integer> boxed() {
+        return (TActionChain<Integer>) mChain;
+    }
+
+    //------------- error handlers ----------------
+
+    public IntChain fail(NiceConsumer<ErrorHolder> onFailure) {
+        mChain.fail(onFailure);
+        return this;
+    }
+
+    public <E extends Exception> IntChain fail(Class<E> claz, NiceConsumer<ErrorHolder<E>> onFailure) {
+        mChain.fail(claz, onFailure);
+        return this;
+    }
+
+    public <E extends Exception> IntChain fail(Class<E> claz, RetryPolicy policy, NiceConsumer<ErrorHolder<E>> onGiveUp) {
+        mChain.fail(claz, policy, onGiveUp);
+        return this;
+    }
+
+    /**
+     * See TActionChain.deadline(). The actions of a chain with a deadline box their values.
+     */
+    public IntChain deadline(long timeout, TimeUnit unit) {
+        mChain.deadline(timeout, unit);
+        return this;
+    }
+
+    //------------- start ----------------
+
+    /**
+     * starts running this chain.
+     *
+     * @param onSuccess a callback to consume the output of the last action, boxed once.
+     * @return a Object, if you return this object in another chain, the action after that will
+     * receive this chain's final output.
+     */
+    public Object start(NiceConsumer<Integer> onSuccess) {
+        return boxed().start(onSuccess);
+    }
+
+    public Object start() {
+        return mChain.start();
+    }
+
+    /**
+     * See TActionChain.compile().
+     */
+    public ChainPlan compile() {
+        return mChain.compile();
+    }
+}
@@ -0,0 +1,1405 @@
+package zyu19.libs.action.chain;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import zyu19.libs.action.chain.config.DotAll;
+import zyu19.libs.action.chain.config.DotAllLimited;
+import zyu19.libs.action.chain.config.DotAllQuorum;
+import zyu19.libs.action.chain.config.DotAllStreaming;
+import zyu19.libs.action.chain.config.ErrorHolder;
+import zyu19.libs.action.chain.config.HashedTimerWheel;
+import zyu19.libs.action.chain.config.NiceConsumer;
+import zyu19.libs.action.chain.config.Producer;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * The lock-free engine behind ReadOnlyChain (see ChainEngine.LOCK_FREE).
+ * <p>
+ * The phase of the execution and the position are packed into one long, which is only changed
+ * by compareAndSet. The output and the cause are plain fields:
+ * they are written before the CAS that publishes them, and read after the state word.
+ * <p>
+ * A chain never locks its subChains. It registers a SubChainListener on each of them, and whoever
+ * wins the CAS on a subChain's state is the only one to handle its success or its failure.
+ * The outputs of the subChains are collected by index into an array, and a single atomic counter
+ * tells the last one to finish that it must resume the chain.
+ * <p>
+ * Created on 10/18/2026.
+ *
+ * @author Zhongzhi Yu
+ * @version 0.4
+ */
+final class LockFreeChain extends ReadOnlyChain {
+
+    //---------------------- State word -------------------------
+    // | phase (8 bits) | attempt (24 bits) | position (32 bits) |
+    // The attempt changes every time an action starts again (at the next position, or after retry()), so that a
+    // timeout that was armed for an earlier attempt cannot match the state word anymore.
+
+    private static final int IDLE = 0;      // start() has not been called
+    private static final int RUNNING = 1;   // the action at position is scheduled or running
+    private static final int PAUSED = 2;    // the action at position returned subChains that have not finished
+    private static final int FAILED = 3;    // the action at position threw, and nobody has claimed the error
+    private static final int HANDLING = 4;  // an error handler owns the error, and may call retry() or jumpBy()
+    private static final int FINISHED = 5;  // onSuccess has been scheduled
+    private static final int CANCELLED = 6; // cancel() has been called: no action will be scheduled anymore
+    private static final int COMMITTING = 7;// the action at position can time out, and has returned: its thread owns the chain
+    private static final int WAITING = 8;   // retryAfter() will run the action at position again
+
+    private static final long PHASE_MASK = 0xFFL << 56;
+
+    private static long word(int phase, int attempt, int position) {
+        return ((long) phase << 56) | ((attempt & 0xFFFFFFL) << 32) | (position & 0xFFFFFFFFL);
+    }
+
+    private static long withPhase(long state, int phase) {
+        return (state & ~PHASE_MASK) | ((long) phase << 56);
+    }
+
+    private static int attemptOf(long state) {
+        return (int) (state >>> 32) & 0xFFFFFF;
+    }
+
+    private static int phaseOf(long state) {
+        return (int) (state >>> 56);
+    }
+
+    private static int positionOf(long state) {
+        return (int) state;
+    }
+
+    private static final AtomicLongFieldUpdater<LockFreeChain> STATE =
+            AtomicLongFieldUpdater.newUpdater(LockFreeChain.class, "mState");
+    private static final AtomicReferenceFieldUpdater<LockFreeChain, SubChainListener> LISTENERS =
+            AtomicReferenceFieldUpdater.newUpdater(LockFreeChain.class, SubChainListener.class, "mListeners");
+    private static final AtomicIntegerFieldUpdater<LockFreeChain> DEADLINE_PENDING =
+            AtomicIntegerFieldUpdater.newUpdater(LockFreeChain.class, "mDeadlinePending");
+
+    private volatile long mState = word(IDLE, 0, 0);
+    private volatile SubChainListener mListeners = null;
+    // 1 when the deadline expired while an error handler owned the error: whoever resets it reports the deadline
+    private volatile int mDeadlinePending = 0;
+
+    private boolean casState(long expect, long update) {
+        return STATE.compareAndSet(this, expect, update);
+    }
+
+    //---------------------- ErrorHolder interface -------------------------
+    private Exception mCause = null;
+
+    @Override
+    public Exception getCause() {
+        return mCause;
+    }
+
+    @Override
+    public void retry() {
+        resumeFromFailure(0);
+    }
+
+    @Override
+    public void retryAfter(long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            retry();
+            return;
+        }
+        final long state = mState;
+        final int phase = phaseOf(state);
+        if (phase != HANDLING && phase != FAILED)
+            return;
+        final long waiting = word(WAITING, attemptOf(state) + 1, positionOf(state));
+        if (!casState(state, waiting))
+            return;
+        // like a timeout, the retry must not run on the timer thread
+        mRetryTimeout = mThreadPolicy.getTimer().schedule(() -> mThreadPolicy.runWorker(() -> {
+            final long next = word(RUNNING, attemptOf(waiting) + 1, positionOf(waiting));
+            if (!casState(waiting, next))
+                return;
+            mCause = null;
+            mRetryCount++;
+            if (!failIfDeadlinePending(next))
+                dispatch(next);
+        }), delay, unit);
+    }
+
+    @Override
+    public void jumpBy(int offset) {
+        resumeFromFailure(offset);
+    }
+
+    @Override
+    public int getRetryCount() {
+        return mRetryCount;
+    }
+
+    @Override
+    public int getPosition() {
+        return positionOf(mState);
+    }
+
+    //---------------------- Executor functions -------------------------
+    private Object mLastActionOutput = null;
+    // the output of the last action when mLastActionOutput is a PrimitiveLink.Register. Published like mLastActionOutput.
+    long mPrimitive = 0;
+    private PendingJoin mJoin = null;
+
+    private final ChainLink<?, ?>[] mActionSequence;
+    private final ThreadPolicy mThreadPolicy;
+    private final NiceConsumer mOnSuccess;
+    private final Runnable mStep = () -> trampoline();
+    // dispatch() has just missed the cache of the link at the current position with mMissedKey, so step() need not
+    // compute the key or look it up again
+    private boolean mCacheMissed = false;
+    private Object mMissedKey = null;
+
+    // Only written by the thread that owns the current attempt. A stale value is harmless: cancelling a timeout
+    // that has already expired does nothing, and an expired timeout checks the attempt of the state word.
+    private final long mDeadlineNanos;
+    private final boolean mShared;
+    private HashedTimerWheel.Timeout mDeadlineTimeout = null;
+    private HashedTimerWheel.Timeout mLinkTimeout = null;
+    private HashedTimerWheel.Timeout mRetryTimeout = null;
+    private int mRetryCount = 0;
+
+    /**
+     * Constructor of LockFreeChain.
+     *
+     * @param actionSequence The array of action configurations to execute. It is shared, and never modified.
+     * @param onSuccess      The callback to notify when all actions finished without Exception.
+     * @param threadPolicy   For the usages of this object, please refer to the javadoc of threadPolicy.
+     * @param deadlineNanos  The time this chain has to finish once started, or 0.
+     */
+    LockFreeChain(ChainLink<?, ?>[] actionSequence, NiceConsumer<?> onSuccess, ThreadPolicy threadPolicy, long deadlineNanos) {
+        this(actionSequence, onSuccess, threadPolicy, deadlineNanos, false);
+    }
+
+    /**
+     * @param shared true for the flights of SingleFlight: the chains waiting for this one never cancel it,
+     *               and an error finishes it with a SingleFlight.Failure, so that all of them get it.
+     */
+    LockFreeChain(ChainLink<?, ?>[] actionSequence, NiceConsumer<?> onSuccess, ThreadPolicy threadPolicy, long deadlineNanos,
+                  boolean shared) {
+        mActionSequence = actionSequence;
+        mThreadPolicy = threadPolicy;
+        mOnSuccess = onSuccess;
+        mDeadlineNanos = deadlineNanos;
+        mShared = shared;
+    }
+
+    @Override
+    void start() {
+        final long idle = word(IDLE, 0, 0);
+        if (mState != idle)
+            return;
+        // armed first, so that a chain finishing at once can still cancel it
+        if (mDeadlineNanos > 0)
+            mDeadlineTimeout = arm(idle, mDeadlineNanos, true);
+        final long running = word(RUNNING, 0, 0);
+        if (casState(idle, running))
+            dispatch(running);
+    }
+
+    /**
+     * Runs the action at the position of state on its thread, or finishes the chain
+     * if the position is out of range.
+     *
+     * @param state a RUNNING state word that has just been published by this thread.
+     */
+    private void dispatch(long state) {
+        while (true) {
+            final int position = positionOf(state);
+            if (position < 0 || position >= mActionSequence.length) {
+                finish(state);
+                return;
+            }
+            final ChainLink action = mActionSequence[position];
+            if (action.cache != null) {
+                // a cache hit completes the link right here, without moving to the thread of its action
+                final Object key;
+                final Object cached;
+                try {
+                    key = action.keyOf(output());
+                    cached = action.cached(key);
+                } catch (Exception err) {
+                    if (mDeadlineNanos == 0 || (state = commit(state)) != 0)
+                        fail(state, action.errorHandler, err);
+                    return;
+                }
+                mCacheMissed = cached == null;
+                if (cached == null)
+                    mMissedKey = key;
+                else {
+                    if (mDeadlineNanos > 0 && (state = commit(state)) == 0)
+                        return;
+                    if ((state = moveTo(state, position + 1, cached)) == 0)
+                        return;
+                    continue;
+                }
+            }
+            if (action.runOnWorkerThread)
+                mThreadPolicy.runWorker(mStep);
+            else mThreadPolicy.switchAndRun(mStep);
+            return;
+        }
+    }
+
+    /**
+     * Steps that are started on a thread which is already running a step (a main thread action when
+     * there is no ThreadChanger, an error handler calling retry(), a subChain resuming its parent...)
+     * are queued here and run one after another by the outermost step, so the depth of the stack
+     * does not grow with the length of a chain.
+     */
+    private static final class Trampoline {
+        static final ThreadLocal<Trampoline> CURRENT = new ThreadLocal<Trampoline>() {
+            @Override
+            protected Trampoline initialValue() {
+                return new Trampoline();
+            }
+        };
+
+        final ArrayDeque<LockFreeChain> pending = new ArrayDeque<>();
+        boolean running = false;
+        LockFreeChain current = null;
+    }
+
+    /**
+     * @return the chain whose step is running on the calling thread, or null.
+     */
+    static LockFreeChain running() {
+        return Trampoline.CURRENT.get().current;
+    }
+
+    private void trampoline() {
+        final Trampoline trampoline = Trampoline.CURRENT.get();
+        if (trampoline.running) {
+            trampoline.pending.add(this);
+            return;
+        }
+        trampoline.running = true;
+        try {
+            runSteps(trampoline, this);
+        } finally {
+            trampoline.running = false;
+            trampoline.current = null;
+        }
+    }
+
+    /**
+     * Runs first (if not null), then the steps queued on trampoline until there is none left.
+     */
+    private static void runSteps(Trampoline trampoline, LockFreeChain first) {
+        Throwable firstError = null;
+        for (LockFreeChain chain = first != null ? first : trampoline.pending.poll(); chain != null;
+             chain = trampoline.pending.poll()) {
+            try {
+                trampoline.current = chain;
+                chain.step();
+            } catch (RuntimeException | Error err) {
+                // Keep running the queued steps: their chains would never be resumed otherwise.
+                if (firstError == null)
+                    firstError = err;
+            }
+        }
+        if (firstError instanceof RuntimeException)
+            throw (RuntimeException) firstError;
+        if (firstError != null)
+            throw (Error) firstError;
+    }
+
+    private void step() {
+        // Link fusion: keep running the following actions in this task while they want the same thread.
+        final int maxLinksPerTask = mThreadPolicy.getMaxLinksPerTask();
+        for (int numLinks = 1; ; numLinks++) {
+            long state = mState;
+            if (phaseOf(state) != RUNNING)
+                return;
+            final ChainLink action = mActionSequence[positionOf(state)];
+            // After a timeout, retry() may run this action again while this call is still running. So an action
+            // that can time out must win its attempt before it writes anything into this chain.
+            final boolean canTimeOut = action.timeoutNanos > 0 || mDeadlineNanos > 0;
+            if (action.timeoutNanos > 0)
+                mLinkTimeout = arm(state, action.timeoutNanos, false);
+            long next;
+            try {
+                Object key = mMissedKey;
+                Object output = null;
+                if (action.cache != null && !mCacheMissed) {
+                    key = action.keyOf(output());
+                    output = action.cached(key);
+                }
+                mCacheMissed = false;
+                mMissedKey = null;
+                if (output == null) {
+                    if (action.pureAction instanceof PrimitiveLink && !canTimeOut)
+                        // writes mPrimitive, so it is only used by the actions that cannot be retried while running
+                        output = ((PrimitiveLink) action.pureAction).apply(mLastActionOutput, this);
+                    else {
+                        final Object input = output();
+                        output = action.pureAction.process(input);
+                        action.store(key, output);
+                    }
+                }
+                if (canTimeOut && (state = commit(state)) == 0)
+                    return;
+                if (output != this && (output instanceof DotAll || output instanceof ReadOnlyChain))
+                    next = join(state, action, output);
+                else if (output instanceof DotAllLimited)
+                    next = joinLimited(state, action, (DotAllLimited) output);
+                else if (output instanceof DotAllStreaming)
+                    next = joinStreaming(state, action, (DotAllStreaming) output);
+                else if (output instanceof DotAllQuorum)
+                    next = joinQuorum(state, action, (DotAllQuorum) output);
+                else if (output instanceof Deferred)
+                    next = joinDeferred(state, action, (Deferred) output);
+                else if (Deferred.isCompletionStage(output))
+                    next = joinDeferred(state, action, CompletionStages.toDeferred(output));
+                else next = moveTo(state, positionOf(state) + 1, output);
+            } catch (Exception err) {
+                if (!canTimeOut || (state = commit(state)) != 0)
+                    fail(state, action.errorHandler, err);
+                return;
+            }
+            if (next == 0)
+                return;
+            if (numLinks >= maxLinksPerTask || !isOnSameThread(next, action)) {
+                dispatch(next);
+                return;
+            }
+        }
+    }
+
+    private boolean isOnSameThread(long state, ChainLink current) {
+        final int position = positionOf(state);
+        return position >= 0 && position < mActionSequence.length
+                && mActionSequence[position].runOnWorkerThread == current.runOnWorkerThread;
+    }
+
+    /**
+     * @return the new RUNNING state word, or 0 if the state was changed by someone else.
+     */
+    private long moveTo(long expect, int position, Object output) {
+        mLastActionOutput = output;
+        mRetryCount = 0;
+        if (mLinkTimeout != null) {
+            mLinkTimeout.cancel();
+            mLinkTimeout = null;
+        }
+        final long next = word(RUNNING, attemptOf(expect) + 1, position);
+        return casState(expect, next) ? next : 0;
+    }
+
+    /**
+     * @return the COMMITTING state word, or 0 if the attempt of state has timed out (or has been cancelled).
+     */
+    private long commit(long state) {
+        final long committing = withPhase(state, COMMITTING);
+        return casState(state, committing) ? committing : 0;
+    }
+
+    /**
+     * @return false if the state was changed by someone else.
+     */
+    private boolean finish(long state) {
+        if (!casState(state, withPhase(state, FINISHED)))
+            return false;
+        cancelTimeouts();
+        final SubChainListener listeners = LISTENERS.getAndSet(this, SubChainListener.SEALED);
+        final Object output = output();
+        if (listeners == null) {
+            mThreadPolicy.switchAndRun(mOnSuccess, output);
+            return true;
+        }
+        mThreadPolicy.switchAndRun(() -> {
+            if (mOnSuccess != null)
+                mOnSuccess.consume(output);
+            for (SubChainListener listener = listeners; listener != null; listener = listener.next)
+                listener.onSubChainSuccess(output);
+        });
+        return true;
+    }
+
+    /**
+     * Moves this chain from expect to an error state, then runs handler (on the main thread)
+     * or lets the chains waiting for this one claim the error.
+     *
+     * @return false if the state was changed by someone else.
+     */
+    private boolean fail(long expect, NiceConsumer<ErrorHolder> handler, Exception err) {
+        return fail(expect, handler, err, null);
+    }
+
+    /**
+     * @param abandoned if not null, its subChains are cancelled before anyone sees the error.
+     */
+    private boolean fail(long expect, NiceConsumer<ErrorHolder> handler, Exception err, PendingJoin abandoned) {
+        mCause = err;
+        if (handler != null) {
+            if (!casState(expect, withPhase(expect, HANDLING)))
+                return false;
+            cancelLinkTimeout();
+            if (abandoned != null)
+                abandoned.cancelSubChains();
+            mThreadPolicy.switchAndRun(handler, this);
+        } else if (mShared) {
+            // every chain waiting for a shared chain gets the error, instead of the first one to claim it
+            mLastActionOutput = new SingleFlight.Failure(err);
+            return finish(expect);
+        } else {
+            if (!casState(expect, withPhase(expect, FAILED)))
+                return false;
+            cancelLinkTimeout();
+            if (abandoned != null)
+                abandoned.cancelSubChains();
+            if (!notifyFailure())
+                printUncaughtEx(err);
+        }
+        return true;
+    }
+
+    private void resumeFromFailure(int offset) {
+        final long state = mState;
+        final int phase = phaseOf(state);
+        if (phase != HANDLING && phase != FAILED)
+            return;
+        final long next = word(RUNNING, attemptOf(state) + 1, positionOf(state) + offset);
+        if (!casState(state, next))
+            return;
+        mCause = null;
+        mRetryCount = offset == 0 ? mRetryCount + 1 : 0;
+        if (!failIfDeadlinePending(next))
+            dispatch(next);
+    }
+
+    /**
+     * Reports a deadline that expired while an error handler owned the error, now that the handler resumed the chain.
+     *
+     * @param state a RUNNING state word that has just been published by this thread.
+     * @return true if the deadline was reported, and the action must not run.
+     */
+    private boolean failIfDeadlinePending(long state) {
+        final int position = positionOf(state);
+        // jumping out of range finishes the chain, which the deadline does not prevent
+        if (position < 0 || position >= mActionSequence.length || !DEADLINE_PENDING.compareAndSet(this, 1, 0))
+            return false;
+        fail(state, mActionSequence[position].errorHandler, deadlineExceeded());
+        return true;
+    }
+
+    private TimeoutException deadlineExceeded() {
+        return new TimeoutException("The chain did not finish within " + TimeUnit.NANOSECONDS.toMillis(mDeadlineNanos) + " ms");
+    }
+
+    //---------------------- Timeouts -------------------------
+
+    // how soon an expired deadline is checked again when it finds the chain publishing the output of an action
+    private static final long COMMIT_RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private HashedTimerWheel.Timeout arm(final long state, long delayNanos, final boolean isDeadline) {
+        // the timer thread must never run an error handler
+        return mThreadPolicy.getTimer().schedule(() -> mThreadPolicy.runWorker(() -> timeOut(state, isDeadline)),
+                delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void cancelLinkTimeout() {
+        final HashedTimerWheel.Timeout timeout = mLinkTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+            mLinkTimeout = null;
+        }
+    }
+
+    private void cancelTimeouts() {
+        cancelLinkTimeout();
+        if (mDeadlineTimeout != null)
+            mDeadlineTimeout.cancel();
+        if (mRetryTimeout != null)
+            mRetryTimeout.cancel();
+    }
+
+    /**
+     * Fails the action that is running or waiting for its subChains, if it is still the attempt armed was made for
+     * (or whatever the attempt is, for the deadline of the chain).
+     */
+    private void timeOut(long armed, boolean isDeadline) {
+        while (true) {
+            final long state = mState;
+            final int phase = phaseOf(state);
+            if (phase == COMMITTING && isDeadline) {
+                // The action has returned, and its thread is publishing the next state, which may take a while
+                // for a large join: check again later, rather than hold this thread until then.
+                mDeadlineTimeout = arm(armed, COMMIT_RECHECK_NANOS, true);
+                return;
+            }
+            if ((phase == HANDLING || phase == FAILED) && isDeadline) {
+                // The handler is not interrupted: the chain fails when the handler resumes it. If it already has,
+                // this thread reports the deadline, unless the resuming thread took it first.
+                mDeadlinePending = 1;
+                if (mState == state || !DEADLINE_PENDING.compareAndSet(this, 1, 0))
+                    return;
+                continue;
+            }
+            // the deadline of the chain also covers the delays of retryAfter()
+            if (phase != RUNNING && phase != PAUSED && !(phase == WAITING && isDeadline))
+                return;
+            if (!isDeadline && (state & ~PHASE_MASK) != (armed & ~PHASE_MASK))
+                return;
+            final int position = positionOf(state);
+            if (position < 0 || position >= mActionSequence.length)
+                return;
+            final TimeoutException err = isDeadline
+                    ? deadlineExceeded()
+                    : new TimeoutException("The action at position " + position + " did not finish within "
+                    + TimeUnit.NANOSECONDS.toMillis(mActionSequence[position].timeoutNanos) + " ms");
+            // mJoin was published by the CAS to PAUSED
+            if (fail(state, mActionSequence[position].errorHandler, err, phase == PAUSED ? mJoin : null))
+                return;
+        }
+    }
+
+    //---------------------- SubChain protocol -------------------------
+
+    /**
+     * If this chain has already been cancelled, listener.onSubChainCancelled() is called before returning.
+     *
+     * @return false if this chain has already finished. In that case its output can be read directly.
+     */
+    boolean addSubChainListener(SubChainListener listener) {
+        while (true) {
+            final SubChainListener head = mListeners;
+            if (head == SubChainListener.SEALED) {
+                // the stack is only sealed after the final state has been published
+                if (phaseOf(mState) != CANCELLED)
+                    return false;
+                listener.onSubChainCancelled(this);
+                return true;
+            }
+            listener.next = head;
+            if (LISTENERS.compareAndSet(this, head, listener))
+                return true;
+        }
+    }
+
+    /**
+     * Takes the ownership of an error that nobody has handled yet.
+     *
+     * @return true if the caller is now responsible for calling retry(), jumpBy() or giving up.
+     */
+    boolean claimFailure() {
+        final long state = mState;
+        return phaseOf(state) == FAILED && casState(state, withPhase(state, HANDLING));
+    }
+
+    Object getOutput() {
+        return output();
+    }
+
+    /**
+     * @return the output of the last action, boxed if a numeric link has kept it in mPrimitive.
+     */
+    private Object output() {
+        final Object output = mLastActionOutput;
+        return output instanceof PrimitiveLink.Register ? ((PrimitiveLink.Register) output).box(mPrimitive) : output;
+    }
+
+    /**
+     * Error handlers that are still running can no longer resume this chain.
+     * The chains waiting for this one are notified through onSubChainCancelled().
+     */
+    @Override
+    public boolean cancel() {
+        long state;
+        while (true) {
+            state = mState;
+            final int phase = phaseOf(state);
+            if (phase == FINISHED || phase == CANCELLED)
+                return false;
+            if (casState(state, withPhase(state, CANCELLED)))
+                break;
+        }
+        cancelTimeouts();
+        // mJoin was published by the CAS to PAUSED
+        if (phaseOf(state) == PAUSED)
+            mJoin.cancelSubChains();
+        final SubChainListener listeners = LISTENERS.getAndSet(this, SubChainListener.SEALED);
+        for (SubChainListener listener = listeners; listener != null; listener = listener.next)
+            listener.onSubChainCancelled(this);
+        return true;
+    }
+
+    private boolean notifyFailure() {
+        boolean claimed = false;
+        for (SubChainListener listener = mListeners; listener != null; listener = listener.next)
+            if (listener.onSubChainFailure(this))
+                claimed = true;
+        return claimed;
+    }
+
+    @Override
+    public Object await() throws Exception {
+        final AwaitListener listener = new AwaitListener(Thread.currentThread());
+        if (!addSubChainListener(listener))
+            return getOutput();
+        if (claimFailure())
+            throw mCause;
+        // Called by an action: the steps queued behind it on this thread (a subChain running on the main thread
+        // without a ThreadChanger...) would wait for this thread forever, so they run before it parks.
+        final Trampoline trampoline = Trampoline.CURRENT.get();
+        if (trampoline.running) {
+            final LockFreeChain current = trampoline.current;
+            try {
+                runSteps(trampoline, null);
+            } finally {
+                trampoline.current = current;
+            }
+        }
+        return listener.await();
+    }
+
+    /**
+     * Parks the thread that called await() until the chain succeeds or fails without a handler.
+     */
+    private static final class AwaitListener extends SubChainListener {
+        final Thread waiter;
+        volatile boolean done = false;
+        Object output = null;
+        Exception cause = null;
+
+        AwaitListener(Thread waiter) {
+            this.waiter = waiter;
+        }
+
+        @Override
+        void onSubChainSuccess(Object output) {
+            this.output = output;
+            done = true;
+            LockSupport.unpark(waiter);
+        }
+
+        @Override
+        boolean onSubChainFailure(LockFreeChain subChain) {
+            if (done || !subChain.claimFailure())
+                return false;
+            cause = subChain.getCause();
+            done = true;
+            LockSupport.unpark(waiter);
+            return true;
+        }
+
+        @Override
+        void onSubChainCancelled(LockFreeChain subChain) {
+            cause = new CancellationException("The chain has been cancelled.");
+            done = true;
+            LockSupport.unpark(waiter);
+        }
+
+        Object await() throws Exception {
+            while (!done) {
+                LockSupport.park(this);
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+            }
+            if (cause != null)
+                throw cause;
+            return output;
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return phaseOf(mState) == CANCELLED;
+    }
+
+    private static LockFreeChain asLockFree(Object subChain) {
+        if (subChain instanceof LockFreeChain)
+            return (LockFreeChain) subChain;
+        throw new IllegalStateException("A sub-chain must run on the same ChainEngine as the chain waiting for it.");
+    }
+
+    /**
+     * What a PAUSED chain is waiting for: the subChains returned by the action at its position.
+     */
+    private abstract static class PendingJoin {
+        final ChainLink action;
+
+        PendingJoin(ChainLink action) {
+            this.action = action;
+        }
+
+        /**
+         * Called once, after the waiting chain has been cancelled.
+         */
+        abstract void cancelSubChains();
+    }
+
+    private static void cancelAll(Object[] subChains, LockFreeChain parent) {
+        for (Object obj : subChains)
+            if (obj instanceof LockFreeChain && obj != parent && !((LockFreeChain) obj).mShared)
+                ((LockFreeChain) obj).cancel();
+    }
+
+    /**
+     * Publishes join, then moves this chain from state to PAUSED.
+     *
+     * @return false if the state was changed by someone else (e.g. by cancel()). Then join will never resume this chain.
+     */
+    private boolean pause(long state, PendingJoin join) {
+        mJoin = join;
+        if (casState(state, withPhase(state, PAUSED)))
+            return true;
+        if (phaseOf(mState) == CANCELLED)
+            join.cancelSubChains();
+        return false;
+    }
+
+    /**
+     * The subChains returned by one action, either as a ReadOnlyChain or through ActionChain.all().
+     * <p>
+     * pending starts at one more than the number of subChains: join() only gives the extra one back
+     * after it has registered on every subChain, so the chain never resumes in the middle of join().
+     */
+    private static final class Join extends PendingJoin {
+        static final AtomicIntegerFieldUpdater<Join> PENDING =
+                AtomicIntegerFieldUpdater.newUpdater(Join.class, "pending");
+
+        final Object[] results;
+        final boolean unpackResults;
+        volatile int pending;
+
+        Join(ChainLink action, Object[] results, boolean unpackResults, int numSubChains) {
+            super(action);
+            this.results = results;
+            this.unpackResults = unpackResults;
+            this.pending = numSubChains + 1;
+        }
+
+        /**
+         * @return true if the caller has counted down the last pending subChain.
+         */
+        boolean countDown(int numFinished) {
+            return PENDING.addAndGet(this, -numFinished) == 0;
+        }
+
+        Object output() {
+            return unpackResults ? results[0] : Arrays.asList(results);
+        }
+
+        @Override
+        void cancelSubChains() {
+            // the outputs of finished subChains are never pending chains (and a finished chain ignores cancel())
+            cancelAll(results, null);
+        }
+    }
+
+    private final class JoinListener extends SubChainListener {
+        final Join join;
+        final int index;
+
+        JoinListener(Join join, int index) {
+            this.join = join;
+            this.index = index;
+        }
+
+        @Override
+        void onSubChainSuccess(Object output) {
+            join.results[index] = output;
+            if (join.countDown(1)) {
+                final long next = resume(join, join.output());
+                if (next != 0)
+                    dispatch(next);
+            }
+        }
+
+        @Override
+        boolean onSubChainFailure(LockFreeChain subChain) {
+            return onJoinFailure(join, subChain);
+        }
+
+        @Override
+        void onSubChainCancelled(LockFreeChain subChain) {
+            onJoinCancelled(join);
+        }
+    }
+
+    /**
+     * Pauses this chain until all the subChains in output have finished.
+     *
+     * @return the RUNNING state word to dispatch if every subChain had already finished, otherwise 0.
+     */
+    private long join(long state, ChainLink action, Object output) {
+        final boolean unpackResults = !(output instanceof DotAll);
+        // toArray() walks the list once, whatever kind of List was given to ActionChain.all()
+        final Object[] results = unpackResults ? new Object[]{output} : ((DotAll) output).objects.toArray();
+
+        // Check every subChain before pausing, so that a mismatch is reported by this action.
+        int numSubChains = 0;
+        for (Object obj : results)
+            if (obj instanceof ReadOnlyChain && obj != this) {
+                asLockFree(obj);
+                numSubChains++;
+            }
+
+        final int position = positionOf(state);
+        if (numSubChains == 0)
+            return moveTo(state, position + 1, unpackResults ? results[0] : Arrays.asList(results));
+
+        final Join join = new Join(action, results, unpackResults, numSubChains);
+        if (!pause(state, join))
+            return 0;
+
+        int numFinished = 0;
+        List<LockFreeChain> errHoldersToRun = null;
+        List<Exception> errorsNotHandled = null;
+        for (int i = 0; i < results.length; i++) {
+            final Object obj = results[i];
+            if (!(obj instanceof ReadOnlyChain) || obj == this)
+                continue;
+            final LockFreeChain that = (LockFreeChain) obj;
+            if (!that.addSubChainListener(new JoinListener(join, i))) {
+                // that chain has successfully finished
+                results[i] = that.getOutput();
+                numFinished++;
+            } else if (that.claimFailure()) {
+                // that chain has been stuck in error handling, and nobody took care of it
+                if (action.errorHandler != null) {
+                    if (errHoldersToRun == null)
+                        errHoldersToRun = new ArrayList<>();
+                    errHoldersToRun.add(that);
+                } else {
+                    if (errorsNotHandled == null)
+                        errorsNotHandled = new ArrayList<>();
+                    errorsNotHandled.add(that.getCause());
+                }
+            }
+        }
+
+        if (errorsNotHandled != null) {
+            failJoin(join, new ExceptionList(errorsNotHandled));
+            return 0;
+        }
+        if (errHoldersToRun != null) {
+            final List<LockFreeChain> holders = errHoldersToRun;
+            mThreadPolicy.switchAndRun(() -> {
+                for (LockFreeChain holder : holders)
+                    action.errorHandler.consume(holder);
+            });
+        }
+        // give back the extra count held during the setup
+        return join.countDown(numFinished + 1) ? resume(join, join.output()) : 0;
+    }
+
+    /**
+     * An output that another thread will provide (see Batcher). Nothing is cancelled with this chain:
+     * the Deferred may be shared with other work, and completing it later does nothing.
+     */
+    private final class DeferredJoin extends PendingJoin implements Deferred.Listener {
+        DeferredJoin(ChainLink action) {
+            super(action);
+        }
+
+        @Override
+        public void onDeferredComplete(Object output, Exception cause) {
+            if (cause != null) {
+                failJoin(this, cause);
+                return;
+            }
+            final long next = resume(this, output);
+            if (next != 0)
+                dispatch(next);
+        }
+
+        @Override
+        void cancelSubChains() {
+        }
+    }
+
+    /**
+     * Pauses this chain until deferred is completed.
+     *
+     * @return always 0: the chain resumes from onDeferredComplete(), possibly before this returns.
+     */
+    private long joinDeferred(long state, ChainLink action, Deferred deferred) {
+        final DeferredJoin join = new DeferredJoin(action);
+        if (pause(state, join))
+            deferred.listen(join);
+        return 0;
+    }
+
+    /**
+     * The subChains of ActionChain.allLimited(): at most parallelism of them run at the same time,
+     * and the next one is only produced when a running one finishes.
+     * <p>
+     * Only one thread at a time runs fill() (see signal()), so the sources, the results and numRunning
+     * need no synchronization. The listeners of the subChains hand their outputs over through finished.
+     */
+    private final class LimitedJoin extends PendingJoin {
+        final int parallelism;
+        final Iterator<? extends Producer<?>> sources;
+        final ArrayList<Object> results = new ArrayList<>();
+        final ConcurrentLinkedQueue<LimitedListener> finished = new ConcurrentLinkedQueue<>();
+        final AtomicInteger numSignals = new AtomicInteger(0);
+        int numRunning = 0;
+        boolean done = false;
+        volatile boolean cancelled = false;
+
+        LimitedJoin(ChainLink action, DotAllLimited output) {
+            super(action);
+            this.parallelism = output.parallelism;
+            this.sources = output.sources;
+        }
+
+        @Override
+        void cancelSubChains() {
+            // only fill() may touch results
+            cancelled = true;
+            final long next = signal();
+            if (next != 0)
+                dispatch(next);
+        }
+
+        /**
+         * Runs fill() until no more signals are pending, unless another thread is already doing so.
+         *
+         * @return the RUNNING state word to dispatch if this call completed the join, otherwise 0.
+         */
+        long signal() {
+            if (numSignals.getAndIncrement() != 0)
+                return 0;
+            long next = 0;
+            int missed = 1;
+            do {
+                if (!done)
+                    next = fill();
+                missed = numSignals.addAndGet(-missed);
+            } while (missed != 0);
+            return next;
+        }
+
+        private long fill() {
+            for (LimitedListener listener; (listener = finished.poll()) != null; ) {
+                results.set(listener.index, listener.output);
+                numRunning--;
+            }
+            if (mJoin != this || phaseOf(mState) != PAUSED) {
+                // abandoned because of an error, a timeout or cancel()
+                done = true;
+                if (cancelled)
+                    cancelAll(results.toArray(), LockFreeChain.this);
+                return 0;
+            }
+            try {
+                while (numRunning < parallelism && sources.hasNext()) {
+                    final int index = results.size();
+                    final Object obj = sources.next().produce();
+                    results.add(obj);
+                    if (!(obj instanceof ReadOnlyChain) || obj == LockFreeChain.this)
+                        continue;
+                    final LockFreeChain that = asLockFree(obj);
+                    if (!that.addSubChainListener(new LimitedListener(this, index))) {
+                        // that chain has successfully finished
+                        results.set(index, that.getOutput());
+                        continue;
+                    }
+                    numRunning++;
+                    if (that.claimFailure()) {
+                        // that chain has been stuck in error handling, and nobody took care of it
+                        if (action.errorHandler == null)
+                            throw new ExceptionList(Arrays.asList(that.getCause()));
+                        mThreadPolicy.switchAndRun(action.errorHandler, that);
+                    }
+                }
+            } catch (Exception err) {
+                done = true;
+                failJoin(this, err);
+                // Nobody will retry, so the subChains already produced are not left running for nothing.
+                // (cancelled after failing, so that their cancellation is not reported instead of err)
+                if (action.errorHandler == null)
+                    cancelAll(results.toArray(), LockFreeChain.this);
+                return 0;
+            }
+            if (numRunning > 0)
+                return 0;
+            done = true;
+            return resume(this, results);
+        }
+    }
+
+    private final class LimitedListener extends SubChainListener {
+        final LimitedJoin join;
+        final int index;
+        Object output = null;
+
+        LimitedListener(LimitedJoin join, int index) {
+            this.join = join;
+            this.index = index;
+        }
+
+        @Override
+        void onSubChainSuccess(Object output) {
+            this.output = output;
+            join.finished.offer(this);
+            final long next = join.signal();
+            if (next != 0)
+                dispatch(next);
+        }
+
+        @Override
+        boolean onSubChainFailure(LockFreeChain subChain) {
+            return onJoinFailure(join, subChain);
+        }
+
+        @Override
+        void onSubChainCancelled(LockFreeChain subChain) {
+            onJoinCancelled(join);
+        }
+    }
+
+    /**
+     * Pauses this chain, and starts the first subChains of ActionChain.allLimited().
+     *
+     * @return the RUNNING state word to dispatch if there was nothing to wait for, otherwise 0.
+     */
+    private long joinLimited(long state, ChainLink action, DotAllLimited output) {
+        final LimitedJoin join = new LimitedJoin(action, output);
+        if (!pause(state, join))
+            return 0;
+        return join.signal();
+    }
+
+    /**
+     * The subChains of ActionChain.allReduce() and ActionChain.allStreaming(): the output of each one is
+     * folded into the accumulator as soon as it finishes, so the outputs are never collected.
+     * <p>
+     * The listeners queue themselves in finished, and signal() schedules a drain task on the requested
+     * thread. Only one drain task exists at a time, so the reducer is never called concurrently.
+     */
+    private final class StreamingJoin extends PendingJoin implements Runnable {
+        final DotAllStreaming spec;
+        final Object[] objects;
+        final ConcurrentLinkedQueue<StreamingListener> finished = new ConcurrentLinkedQueue<>();
+        final AtomicInteger numSignals = new AtomicInteger(0);
+        int numRemaining;
+        Object accumulator;
+        boolean done = false;
+
+        StreamingJoin(ChainLink action, DotAllStreaming spec, Object[] objects) {
+            super(action);
+            this.spec = spec;
+            this.objects = objects;
+            this.numRemaining = objects.length;
+            this.accumulator = spec.initial;
+        }
+
+        @Override
+        void cancelSubChains() {
+            cancelAll(objects, LockFreeChain.this);
+        }
+
+        void offer(StreamingListener listener) {
+            finished.offer(listener);
+            if (numSignals.getAndIncrement() != 0)
+                return;
+            if (spec.runOnWorkerThread)
+                mThreadPolicy.runWorker(this);
+            else mThreadPolicy.switchAndRun(this);
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (!done)
+                    drain();
+                missed = numSignals.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (mJoin != this || phaseOf(mState) != PAUSED) {
+                // abandoned because of an error
+                done = true;
+                return;
+            }
+            try {
+                for (StreamingListener listener; (listener = finished.poll()) != null; ) {
+                    accumulator = spec.reducer.reduce(accumulator, listener.output);
+                    numRemaining--;
+                }
+            } catch (Exception err) {
+                done = true;
+                failJoin(this, err);
+                return;
+            }
+            if (numRemaining > 0)
+                return;
+            done = true;
+            final long next = resume(this, accumulator);
+            if (next != 0)
+                dispatch(next);
+        }
+    }
+
+    private final class StreamingListener extends SubChainListener {
+        final StreamingJoin join;
+        Object output;
+
+        StreamingListener(StreamingJoin join, Object output) {
+            this.join = join;
+            this.output = output;
+        }
+
+        @Override
+        void onSubChainSuccess(Object output) {
+            this.output = output;
+            join.offer(this);
+        }
+
+        @Override
+        boolean onSubChainFailure(LockFreeChain subChain) {
+            return onJoinFailure(join, subChain);
+        }
+
+        @Override
+        void onSubChainCancelled(LockFreeChain subChain) {
+            onJoinCancelled(join);
+        }
+    }
+
+    /**
+     * Pauses this chain until the outputs of all the subChains in output have been reduced.
+     *
+     * @return the RUNNING state word to dispatch if there was nothing to wait for, otherwise 0.
+     */
+    private long joinStreaming(long state, ChainLink action, DotAllStreaming output) {
+        final Object[] objects = output.objects.toArray();
+        for (Object obj : objects)
+            if (obj instanceof ReadOnlyChain && obj != this)
+                asLockFree(obj);
+
+        final int position = positionOf(state);
+        if (objects.length == 0)
+            return moveTo(state, position + 1, output.initial);
+
+        final StreamingJoin join = new StreamingJoin(action, output, objects);
+        if (!pause(state, join))
+            return 0;
+
+        List<LockFreeChain> errHoldersToRun = null;
+        for (Object obj : objects) {
+            if (!(obj instanceof ReadOnlyChain) || obj == this) {
+                join.offer(new StreamingListener(join, obj));
+                continue;
+            }
+            final LockFreeChain that = (LockFreeChain) obj;
+            final StreamingListener listener = new StreamingListener(join, null);
+            if (!that.addSubChainListener(listener)) {
+                // that chain has successfully finished
+                listener.onSubChainSuccess(that.getOutput());
+            } else if (that.claimFailure()) {
+                // that chain has been stuck in error handling, and nobody took care of it
+                if (action.errorHandler == null) {
+                    failJoin(join, new ExceptionList(Arrays.asList(that.getCause())));
+                    // like firstOf() and quorum(), the other subChains are not left running for nothing
+                    join.cancelSubChains();
+                    return 0;
+                }
+                if (errHoldersToRun == null)
+                    errHoldersToRun = new ArrayList<>();
+                errHoldersToRun.add(that);
+            }
+        }
+        if (errHoldersToRun != null) {
+            final List<LockFreeChain> holders = errHoldersToRun;
+            mThreadPolicy.switchAndRun(() -> {
+                for (LockFreeChain holder : holders)
+                    action.errorHandler.consume(holder);
+            });
+        }
+        return 0;
+    }
+
+    /**
+     * The subChains of ActionChain.firstOf() and ActionChain.quorum(): the chain resumes as soon as
+     * quorum of them have succeeded, or fails as soon as that is no longer possible. Then the other
+     * subChains are cancelled.
+     * <p>
+     * A winner takes a slot with numSucceeded, writes its output, then counts numWritten: whoever counts
+     * the last slot resumes the chain, so that all the outputs are visible by then.
+     */
+    private final class QuorumJoin extends PendingJoin {
+        final Object[] objects;
+        final DotAllQuorum spec;
+        final Object[] winners;
+        final AtomicInteger numSucceeded = new AtomicInteger(0);
+        final AtomicInteger numWritten = new AtomicInteger(0);
+        final AtomicInteger numFailed = new AtomicInteger(0);
+        final ConcurrentLinkedQueue<Exception> errors = new ConcurrentLinkedQueue<>();
+        volatile boolean done = false;
+
+        QuorumJoin(ChainLink action, Object[] objects, DotAllQuorum spec) {
+            super(action);
+            this.objects = objects;
+            this.spec = spec;
+            this.winners = new Object[spec.quorum];
+        }
+
+        void onSuccess(Object output) {
+            final int slot = numSucceeded.getAndIncrement();
+            if (slot >= winners.length) {
+                mThreadPolicy.switchAndRun(spec.onRest, output);
+                return;
+            }
+            winners[slot] = output;
+            if (numWritten.incrementAndGet() != winners.length)
+                return;
+            done = true;
+            cancelSubChains();
+            final long next = resume(this, spec.unpackResult ? winners[0] : Arrays.asList(winners));
+            if (next != 0)
+                dispatch(next);
+        }
+
+        void onFailure(Exception cause) {
+            mThreadPolicy.switchAndRun(spec.onRest, cause);
+            errors.offer(cause);
+            // one failure more than the subChains that can be spared
+            if (numFailed.incrementAndGet() != objects.length - winners.length + 1)
+                return;
+            done = true;
+            cancelSubChains();
+            failJoin(this, new ExceptionList(new ArrayList<>(errors)));
+        }
+
+        @Override
+        void cancelSubChains() {
+            done = true;
+            cancelAll(objects, LockFreeChain.this);
+        }
+    }
+
+    private final class QuorumListener extends SubChainListener {
+        final QuorumJoin join;
+
+        QuorumListener(QuorumJoin join) {
+            this.join = join;
+        }
+
+        @Override
+        void onSubChainSuccess(Object output) {
+            join.onSuccess(output);
+        }
+
+        @Override
+        boolean onSubChainFailure(LockFreeChain subChain) {
+            // the errors of the subChains are tolerated, so they are never handed to the error handler of the action
+            if (!subChain.claimFailure())
+                return false;
+            join.onFailure(subChain.getCause());
+            return true;
+        }
+
+        @Override
+        void onSubChainCancelled(LockFreeChain subChain) {
+            // the losers are cancelled by join itself
+            if (!join.done)
+                join.onFailure(new CancellationException("A sub-chain has been cancelled."));
+        }
+    }
+
+    /**
+     * Pauses this chain until quorum of the subChains in output have succeeded.
+     *
+     * @return always 0: this chain is resumed by the subChains (or by the plain objects of output).
+     */
+    private long joinQuorum(long state, ChainLink action, DotAllQuorum output) {
+        final Object[] objects = output.objects.toArray();
+        if (output.quorum > objects.length)
+            throw new IllegalArgumentException("quorum is " + output.quorum + ", but there are only " + objects.length + " sub-chains");
+        for (Object obj : objects)
+            if (obj instanceof ReadOnlyChain && obj != this)
+                asLockFree(obj);
+
+        final QuorumJoin join = new QuorumJoin(action, objects, output);
+        if (!pause(state, join))
+            return 0;
+
+        for (Object obj : objects) {
+            if (!(obj instanceof ReadOnlyChain) || obj == this) {
+                join.onSuccess(obj);
+                continue;
+            }
+            final LockFreeChain that = (LockFreeChain) obj;
+            final QuorumListener listener = new QuorumListener(join);
+            if (!that.addSubChainListener(listener))
+                join.onSuccess(that.getOutput());
+            else listener.onSubChainFailure(that); // in case that chain is already stuck in error handling
+        }
+        return 0;
+    }
+
+    /**
+     * Called once, by whoever saw the last subChain of join finish.
+     *
+     * @return the RUNNING state word to dispatch, or 0 if join has been abandoned (because of an error).
+     */
+    private long resume(PendingJoin join, Object output) {
+        final long state = mState;
+        if (phaseOf(state) != PAUSED || mJoin != join)
+            return 0;
+        if (output instanceof SingleFlight.Failure) {
+            failJoin(join, ((SingleFlight.Failure) output).cause);
+            return 0;
+        }
+        return moveTo(state, positionOf(state) + 1, output);
+    }
+
+    /**
+     * Called by the listeners of join when one of its subChains fails, and the failing action has no error handler.
+     *
+     * @return true if this chain has claimed the error of subChain.
+     */
+    private boolean onJoinFailure(PendingJoin join, LockFreeChain subChain) {
+        final long state = mState;
+        if (phaseOf(state) != PAUSED || mJoin != join || !subChain.claimFailure())
+            return false;
+        if (join.action.errorHandler != null)
+            mThreadPolicy.switchAndRun(join.action.errorHandler, subChain);
+        else failJoin(join, new ExceptionList(Arrays.asList(subChain.getCause())));
+        return true;
+    }
+
+    /**
+     * Called by the listeners of join when one of its subChains is cancelled: the action that returned
+     * that subChain fails, as it will never get its output.
+     */
+    private void onJoinCancelled(PendingJoin join) {
+        if (phaseOf(mState) == PAUSED && mJoin == join)
+            failJoin(join, new CancellationException("A sub-chain has been cancelled."));
+    }
+
+    private void failJoin(PendingJoin join, Exception err) {
+        while (true) {
+            final long state = mState;
+            if (phaseOf(state) == CANCELLED)
+                return;
+            if (phaseOf(state) != PAUSED || mJoin != join) {
+                printUncaughtEx(err);
+                return;
+            }
+            if (fail(state, join.action.errorHandler, err))
+                return;
+        }
+    }
+}
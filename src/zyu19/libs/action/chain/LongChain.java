@@ -0,0 +1,122 @@
+package zyu19.libs.action.chain;
+
+import java.util.concurrent.TimeUnit;
+
+import zyu19.libs.action.chain.config.*;
+
+/**
+ * Like IntChain, for a long: the actions take a long, and pass it on without boxing it.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ * @version 0.4
+ * @see IntChain
+ */
+public final class LongChain {
+    private final TActionChain<?> mChain;
+
+    LongChain(TActionChain<?> chain) {
+        mChain = chain;
+    }
+
+    //------------- actions ----------------
+
+    public LongChain map(boolean runOnWorkerThread, LongUnaryAction action) {
+        mChain.thenPrimitive(runOnWorkerThread, PrimitiveLink.of(action));
+        return this;
+    }
+
+    public LongChain netMap(LongUnaryAction action) {
+        return map(true, action);
+    }
+
+    public LongChain uiMap(LongUnaryAction action) {
+        return map(false, action);
+    }
+
+    /**
+     * Adds an action that turns the long into an object, and continues with the underlying TActionChain.
+     *
+     * @param runOnWorkerThread whether the action runs on a worker thread, or on the main thread.
+     * @param action            the action to be added.
+     * @return the underlying TActionChain.
+     */
+    @SuppressWarnings("unchecked")
+    public <Out> TActionChain<Out> mapToObj(boolean runOnWorkerThread, LongToObjAction<Out> action) {
+        mChain.thenPrimitive(runOnWorkerThread, PrimitiveLink.of(action));
+        return (TActionChain<Out>) mChain;
+    }
+
+    public <Out> TActionChain<Out> netMapToObj(LongToObjAction<Out> action) {
+        return mapToObj(true, action);
+    }
+
+    public <Out> TActionChain<Out> uiMapToObj(LongToObjAction<Out> action) {
+        return mapToObj(false, action);
+    }
+
+    /**
+     * @return a DoubleChain that continues this chain, with the value converted to a double (without boxing it).
+     */
+    public DoubleChain asDoubleChain() {
+        mChain.thenPrimitive(mChain.lastRunsOnWorkerThread(), PrimitiveLink.widen(PrimitiveLink.LONG, PrimitiveLink.DOUBLE));
+        return new DoubleChain(mChain);
+    }
+
+    /**
+     * @return the underlying TActionChain: its next action receives the value boxed.
+     */
+    @SuppressWarnings("unchecked")
+    public TActionChain<Long> boxed() {
+        return (TActionChain<Long>) mChain;
+    }
+
+    //------------- error handlers ----------------
+
+    public LongChain fail(NiceConsumer<ErrorHolder> onFailure) {
+        mChain.fail(onFailure);
+        return this;
+    }
+
+    public <E extends Exception> LongChain fail(Class<E> claz, NiceConsumer<ErrorHolder<E>> onFailure) {
+        mChain.fail(claz, onFailure);
+        return this;
+    }
+
+    public <E extends Exception> LongChain fail(Class<E> claz, RetryPolicy policy, NiceConsumer<ErrorHolder<E>> onGiveUp) {
+        mChain.fail(claz, policy, onGiveUp);
+        return this;
+    }
+
+    /**
+     * See TActionChain.deadline(). The actions of a chain with a deadline box their values.
+     */
+    public LongChain deadline(long timeout, TimeUnit unit) {
+        mChain.deadline(timeout, unit);
+        return this;
+    }
+
+    //------------- start ----------------
+
+    /**
+     * starts running this chain.
+     *
+     * @param onSuccess a callback to consume the output of the last action, boxed once.
+     * @return a Object, if you return this object in another chain, the action after that will
+     * receive this chain's final output.
+     */
+    public Object start(NiceConsumer<Long> onSuccess) {
+        return boxed().start(onSuccess);
+    }
+
+    public Object start() {
+        return mChain.start();
+    }
+
+    /**
+     * See TActionChain.compile().
+     */
+    public ChainPlan compile() {
+        return mChain.compile();
+    }
+}
@@ -0,0 +1,145 @@
+package zyu19.libs.action.chain;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import zyu19.libs.action.chain.config.CancellationToken;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.PureAction;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * This class is a helper class used by ChainStyle.thenMap().
+ * <p>
+ * Maps every element of a list on up to parallelism worker tasks, with recursive splitting: a task hands
+ * the upper half of its range over to a new task while there is room for one, and maps the rest chunk by
+ * chunk, trying to split again after every chunk. So the work spreads out as soon as workers are free,
+ * and with ForkJoinThreadPolicy the new tasks are forked onto the deque of the splitting worker, where
+ * idle workers steal them.
+ * <p>
+ * The outputs are written into one array, and the chain resumes (through a Deferred) when the last element
+ * has been mapped: there is a single join, whatever the number of elements.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+final class ParallelMap {
+	private final PureAction<Object, Object> mAction;
+	private final List<?> mInputs;
+	private final Object[] mOutputs;
+	private final int mParallelism;
+	private final int mChunkSize;
+	private final ThreadPolicy mThreadPolicy;
+	private final CancellationToken mToken;
+	private final Deferred mResult = new Deferred();
+
+	// the elements that have not been mapped yet: the task that brings it to 0 resumes the chain
+	private final AtomicInteger mRemaining;
+	private final AtomicInteger mNumTasks = new AtomicInteger(1);
+	private volatile boolean mFailed = false;
+
+	private ParallelMap(PureAction<Object, Object> action, List<?> inputs, int parallelism, int chunkSize,
+						ThreadPolicy threadPolicy, CancellationToken token) {
+		mAction = action;
+		mInputs = inputs;
+		mOutputs = new Object[inputs.size()];
+		mParallelism = parallelism;
+		mChunkSize = chunkSize;
+		mThreadPolicy = threadPolicy;
+		mToken = token;
+		mRemaining = new AtomicInteger(inputs.size());
+	}
+
+	/**
+	 * Called when the link is added, so that a wrong argument is reported by the code building the chain.
+	 */
+	static void checkArguments(int parallelism, int chunkSize) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("parallelism must be positive");
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("chunkSize must be positive");
+	}
+
+	/**
+	 * Runs on the worker thread of the link, which maps the first range itself.
+	 * @param input a List or an array.
+	 * @return the List of the outputs if input fits in one chunk, or a Deferred that completes with it.
+	 */
+	@SuppressWarnings("unchecked")
+	static Object map(PureAction<?, ?> action, Object input, int parallelism, int chunkSize, ThreadPolicy threadPolicy)
+			throws Exception {
+		if (threadPolicy.getEngine() != ChainEngine.LOCK_FREE)
+			throw new UnsupportedOperationException("thenMap() needs ChainEngine.LOCK_FREE");
+		final List<?> inputs;
+		if (input instanceof List)
+			inputs = input instanceof RandomAccess ? (List<?>) input : Arrays.asList(((List<?>) input).toArray());
+		else if (input instanceof Object[])
+			inputs = Arrays.asList((Object[]) input);
+		else throw new IllegalArgumentException("thenMap() needs a List or an array of objects, got " + input);
+
+		final PureAction<Object, Object> pureAction = (PureAction<Object, Object>) action;
+		if (inputs.size() <= chunkSize) {
+			final Object[] outputs = new Object[inputs.size()];
+			for (int i = 0; i < outputs.length; i++)
+				outputs[i] = pureAction.process(inputs.get(i));
+			return Arrays.asList(outputs);
+		}
+		final ParallelMap map = new ParallelMap(pureAction, inputs, parallelism, chunkSize, threadPolicy,
+				ReadOnlyChain.currentToken());
+		map.run(0, inputs.size());
+		return map.mResult;
+	}
+
+	private void run(int from, int to) {
+		try {
+			while (from < to && !mFailed && !mToken.isCancelled()) {
+				while (to - from > mChunkSize && tryAddTask()) {
+					final int upper = from + (to - from) / 2;
+					final int end = to;
+					try {
+						mThreadPolicy.runWorker(() -> run(upper, end));
+					} catch (RuntimeException err) {
+						// e.g. a saturated executor rejecting the task: this task keeps the upper half
+						mNumTasks.decrementAndGet();
+						break;
+					}
+					to = upper;
+				}
+				final int end = Math.min(from + mChunkSize, to);
+				mapChunk(from, end);
+				from = end;
+			}
+		} finally {
+			mNumTasks.decrementAndGet();
+		}
+	}
+
+	private boolean tryAddTask() {
+		while (true) {
+			final int numTasks = mNumTasks.get();
+			if (numTasks >= mParallelism)
+				return false;
+			if (mNumTasks.compareAndSet(numTasks, numTasks + 1))
+				return true;
+		}
+	}
+
+	private void mapChunk(int from, int to) {
+		try {
+			for (int i = from; i < to; i++)
+				mOutputs[i] = mAction.process(mInputs.get(i));
+		} catch (Exception err) {
+			// the other tasks stop after their current chunk
+			mFailed = true;
+			mResult.fail(err);
+			return;
+		}
+		// publishes the outputs of this chunk to the task that completes the result
+		if (mRemaining.addAndGet(from - to) == 0)
+			mResult.complete(Arrays.asList(mOutputs));
+	}
+}
@@ -0,0 +1,232 @@
+package zyu19.libs.action.chain;
+
+import zyu19.libs.action.chain.config.*;
+
+/**
+ * This class is the PureAction of the links added by IntChain, LongChain and DoubleChain
+ * (and by TActionChain.mapToInt() and its siblings).
+ * <p>
+ * On LockFreeChain, a numeric output is not boxed: apply() keeps it in the primitive register of the chain
+ * (LockFreeChain.mPrimitive), and outputs the Register of its type instead, which tells whoever reads the
+ * output where the value is. So consecutive numeric links allocate nothing, and the value is boxed once, if
+ * at all, when an object consumer (an ordinary link, onSuccess, a joining chain) reads it.
+ * <p>
+ * The three types share one long register: an int or a long is stored as a long, and a double as its raw bits.
+ * <p>
+ * SynchronizedChain, ChainStream and the links that can time out call process() instead, which boxes like
+ * any other PureAction.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+abstract class PrimitiveLink implements PureAction<Object, Object> {
+	static final int OBJECT = 0;
+	static final int INT = 1;
+	static final int LONG = 2;
+	static final int DOUBLE = 3;
+
+	/**
+	 * Stands for the value in the primitive register of a LockFreeChain.
+	 */
+	static final class Register {
+		final int type;
+
+		private Register(int type) {
+			this.type = type;
+		}
+
+		Object box(long bits) {
+			return PrimitiveLink.box(type, bits);
+		}
+	}
+
+	private static final Register[] REGISTERS = {null, new Register(INT), new Register(LONG), new Register(DOUBLE)};
+
+	private final int mInType;
+	private final int mOutType;
+
+	private PrimitiveLink(int inType, int outType) {
+		mInType = inType;
+		mOutType = outType;
+	}
+
+	// Only the one that matches the types of the link is overridden.
+
+	long map(long bits) throws Exception {
+		throw new AssertionError();
+	}
+
+	long fromObject(Object input) throws Exception {
+		throw new AssertionError();
+	}
+
+	Object toObject(long bits) throws Exception {
+		throw new AssertionError();
+	}
+
+	/**
+	 * Runs the action on LockFreeChain. The register is only written once the action has succeeded,
+	 * so that a retry reads the same input.
+	 * @param input the output of the previous link: a Register, or an object.
+	 * @return the Register of the output type, or the output itself if it is an object.
+	 */
+	final Object apply(Object input, LockFreeChain chain) throws Exception {
+		final long bits;
+		if (mInType == OBJECT)
+			// after boxed() or mapToObj(), the previous link may still be a numeric one
+			bits = fromObject(input instanceof Register ? ((Register) input).box(chain.mPrimitive) : input);
+		else {
+			// the Register is of another type after an error handler has jumped over some links
+			final long inBits = input instanceof Register ? convert(chain.mPrimitive, ((Register) input).type, mInType)
+					: unbox(mInType, input);
+			if (mOutType == OBJECT)
+				return toObject(inBits);
+			bits = map(inBits);
+		}
+		chain.mPrimitive = bits;
+		return REGISTERS[mOutType];
+	}
+
+	@Override
+	public final Object process(Object input) throws Exception {
+		if (mInType == OBJECT)
+			return box(mOutType, fromObject(input));
+		final long bits = unbox(mInType, input);
+		return mOutType == OBJECT ? toObject(bits) : box(mOutType, map(bits));
+	}
+
+	//---------------------- Encoding -------------------------
+
+	static Object box(int type, long bits) {
+		switch (type) {
+			case INT:
+				return (int) bits;
+			case LONG:
+				return bits;
+			default:
+				return Double.longBitsToDouble(bits);
+		}
+	}
+
+	private static long unbox(int type, Object input) {
+		switch (type) {
+			case INT:
+				return ((Number) input).intValue();
+			case LONG:
+				return ((Number) input).longValue();
+			default:
+				return Double.doubleToRawLongBits(((Number) input).doubleValue());
+		}
+	}
+
+	private static long convert(long bits, int from, int to) {
+		if (from == to || from == INT && to == LONG)
+			return bits;
+		if (from == DOUBLE)
+			return to == INT ? (int) Double.longBitsToDouble(bits) : (long) Double.longBitsToDouble(bits);
+		if (to == DOUBLE)
+			return Double.doubleToRawLongBits((double) bits);
+		// from LONG to INT
+		return (int) bits;
+	}
+
+	//---------------------- Factories -------------------------
+
+	/**
+	 * @return a link that widens the value in the register from one type to another.
+	 */
+	static PrimitiveLink widen(final int from, final int to) {
+		return new PrimitiveLink(from, to) {
+			@Override
+			long map(long bits) {
+				return convert(bits, from, to);
+			}
+		};
+	}
+
+	static PrimitiveLink of(final IntUnaryAction action) {
+		return new PrimitiveLink(INT, INT) {
+			@Override
+			long map(long bits) throws Exception {
+				return action.process((int) bits);
+			}
+		};
+	}
+
+	static PrimitiveLink of(final LongUnaryAction action) {
+		return new PrimitiveLink(LONG, LONG) {
+			@Override
+			long map(long bits) throws Exception {
+				return action.process(bits);
+			}
+		};
+	}
+
+	static PrimitiveLink of(final DoubleUnaryAction action) {
+		return new PrimitiveLink(DOUBLE, DOUBLE) {
+			@Override
+			long map(long bits) throws Exception {
+				return Double.doubleToRawLongBits(action.process(Double.longBitsToDouble(bits)));
+			}
+		};
+	}
+
+	static PrimitiveLink of(final IntToObjAction<?> action) {
+		return new PrimitiveLink(INT, OBJECT) {
+			@Override
+			Object toObject(long bits) throws Exception {
+				return action.process((int) bits);
+			}
+		};
+	}
+
+	static PrimitiveLink of(final LongToObjAction<?> action) {
+		return new PrimitiveLink(LONG, OBJECT) {
+			@Override
+			Object toObject(long bits) throws Exception {
+				return action.process(bits);
+			}
+		};
+	}
+
+	static PrimitiveLink of(final DoubleToObjAction<?> action) {
+		return new PrimitiveLink(DOUBLE, OBJECT) {
+			@Override
+			Object toObject(long bits) throws Exception {
+				return action.process(Double.longBitsToDouble(bits));
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	static PrimitiveLink of(final ToIntAction<?> action) {
+		return new PrimitiveLink(OBJECT, INT) {
+			@Override
+			long fromObject(Object input) throws Exception {
+				return ((ToIntAction<Object>) action).process(input);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	static PrimitiveLink of(final ToLongAction<?> action) {
+		return new PrimitiveLink(OBJECT, LONG) {
+			@Override
+			long fromObject(Object input) throws Exception {
+				return ((ToLongAction<Object>) action).process(input);
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	static PrimitiveLink of(final ToDoubleAction<?> action) {
+		return new PrimitiveLink(OBJECT, DOUBLE) {
+			@Override
+			long fromObject(Object input) throws Exception {
+				return Double.doubleToRawLongBits(((ToDoubleAction<Object>) action).process(input));
+			}
+		};
+	}
+}
@@ -1,242 +1,62 @@
 package zyu19.libs.action.chain;
 
-import java.util.*;
+import java.util.concurrent.CancellationException;
 
-import zyu19.libs.action.chain.config.DotAll;
-import zyu19.libs.action.chain.config.NiceConsumer;
+import zyu19.libs.action.chain.config.CancellationToken;
+import zyu19.libs.action.chain.config.ChainEngine;
 import zyu19.libs.action.chain.config.ErrorHolder;
+import zyu19.libs.action.chain.config.NiceConsumer;
 import zyu19.libs.action.chain.config.ThreadPolicy;
 
 /**
- * This class is a helper class used by AbstractActionChain
+ * This class represents a started ActionChain. It is what start() returns, and what
+ * error handlers receive as their ErrorHolder.
  * <p>
- * It is actually the core of this library.
+ * It is actually the core of this library. The execution itself is done by one of the engines
+ * selected through ThreadPolicy.setEngine():
+ * <ol>
+ * <li>SynchronizedChain: the original engine, which holds the chain's monitor around every step.</li>
+ * <li>LockFreeChain: keeps its execution state in a single CAS-updated word.</li>
+ * </ol>
  * <p>
  * Separated as a helper class on 8/8/2015.
+ * <br>
+ * Split into engines on 10/18/2026.
  *
  * @author Zhongzhi Yu
- * @version 0.3
+ * @version 0.4
+ * @see ChainEngine
  */
-public class ReadOnlyChain implements ErrorHolder {
-
-    //---------------------- ErrorHolder interface -------------------------
-    private Exception mCause = null;
-    private int mCauseLink = -1;
-
-    @Override
-    public final Exception getCause() {
-        return mCause;
-    }
-
-    @Override
-    public final void retry() {
-        iterate();
-    }
-
-    @Override
-    public void jumpBy(int offset) {
-        mNextAction += offset;
-        iterate();
-    }
-
-    @Override
-    public int getPosition() {
-        return mNextAction;
-    }
-
-    //---------------------- Executor functions -------------------------
-    private int mNextAction = 0;
-    private Object mLastActionOutput = null;
-    private boolean isOnSuccessCalled = false;
-    private boolean executionFinished = false;
-
-    private final ArrayList<ChainLink<?, ?>> mActionSequence = new ArrayList<>();
-    private final ThreadPolicy mThreadPolicy;
-    private NiceConsumer mOnSuccess;
-
-    private Integer numPendingSubChains = null;
+public abstract class ReadOnlyChain implements ErrorHolder, CancellationToken {
 
     /**
-     * Constructor of ReadOnlyChain.
-     *
-     * @param actionSequence The array of action configurations to execute. The constructor will make a copy of this array.
-     * @param onSuccess      The callback to notify when all actions finished without Exception.
-     * @param threadPolicy   For the usages of this object, please refer to the javadoc of threadPolicy.
+     * Only the engines in this package extend ReadOnlyChain. Use ActionChain.start() to get one.
      */
-    public ReadOnlyChain(ArrayList<ChainLink<?, ?>> actionSequence, NiceConsumer<?> onSuccess, ThreadPolicy threadPolicy) {
-        mActionSequence.addAll(actionSequence);
-        mThreadPolicy = threadPolicy;
-        mOnSuccess = onSuccess;
+    ReadOnlyChain() {
     }
 
     /**
-     * This function must be called within a <strong>synchronzied</strong> block!!!
+     * Creates the ReadOnlyChain for the engine selected by threadPolicy.
      *
-     * @return true if this ReadOnlyChain has reached its end and should exit.
+     * @param actionSequence The array of action configurations to execute. It is shared with other executions of
+     *                       the same ChainPlan, so the engine must never modify it.
+     * @param onSuccess      The callback to notify when all actions finished without Exception.
+     * @param threadPolicy   For the usages of this object, please refer to the javadoc of threadPolicy.
+     * @param deadlineNanos  The time the chain has to finish once started, or 0.
+     * @return a ReadOnlyChain that has not been started yet.
      */
-    private final boolean isIterationOver() {
-        if (isOnSuccessCalled)
-            return true;
-        else if (mNextAction < 0 || mNextAction >= mActionSequence.size()) {
-            mThreadPolicy.switchAndRun(mOnSuccess, mLastActionOutput);
-            isOnSuccessCalled = true;
-            return true;
-        } else return false;
-    }
-
-    private final NiceConsumer<ThreadPolicy> mIterator = threadPolicy -> {
-        synchronized (ReadOnlyChain.this) {
-            if (isIterationOver()) {
-                executionFinished = true;
-                return;
-            }
-            ChainLink action = mActionSequence.get(mNextAction);
-            try {
-                mLastActionOutput = action.pureAction.process(mLastActionOutput);
-                Set<ReadOnlyChain> filteredTargets = new HashSet<>();
-                HashMap<ReadOnlyChain, Integer> positions = new HashMap<>();
-
-                // If our outer handler is not null, we use errHandlersToRun otherwise we use errorsNotHandled
-                List<Runnable> errHandlersToRun = new ArrayList<>();
-                List<Exception> errorsNotHandled = new ArrayList<>();
-
-                boolean replaceOutputWithTarget = false;
-                final boolean shouldUnpackTargetsList[] = new boolean[]{false};
-                List<Object> targets;
-
-                if (mLastActionOutput != null && DotAll.class.isAssignableFrom(mLastActionOutput.getClass())) {
-                    // Version 0.4: support waiting for ActionChain.all() (this is the point of using .all()...)
-                    targets = ((DotAll) mLastActionOutput).objects;
-                    for(int i = 0; i < targets.size(); i++) {
-                        Object obj = targets.get(i);
-                        if(obj instanceof ReadOnlyChain) {
-                            filteredTargets.add((ReadOnlyChain) obj);
-                            positions.put((ReadOnlyChain) obj, i);
-                        }
-                    }
-
-                    filteredTargets.remove(this);
-                    replaceOutputWithTarget = true;
-                }
-                else if (mLastActionOutput != null && ReadOnlyChain.class.isAssignableFrom(mLastActionOutput.getClass()) && mLastActionOutput != this) {
-                    // Version 0.3: support waiting for inner ActionChains
-                    // The returned ReadOnlyChain is detected here
-                    replaceOutputWithTarget = true;
-                    shouldUnpackTargetsList[0] = true;
-                    targets = Arrays.asList((ReadOnlyChain) mLastActionOutput);
-                    filteredTargets.add((ReadOnlyChain) mLastActionOutput);
-                    positions.put((ReadOnlyChain) mLastActionOutput, 0);
-                } else targets = Arrays.asList();
-
-                numPendingSubChains = filteredTargets.size();
-
-                // wait for all ReadOnlyChains in filteredTargets
-                for(ReadOnlyChain that : filteredTargets) {
-                    synchronized (that) {
-                        // Pending, Success, Failed w/ handler in progress, Failed & finished
-                        boolean discardThatChain = false;
-                        boolean runErrorHolderOnThat = false;
-                        if (that.executionFinished) {
-                            if (that.mCause != null) {
-                                // in this case, that chain has been stuck in error handling
-
-                                runErrorHolderOnThat = that.mActionSequence.get(that.mCauseLink).errorHandler == null;
-                            } else {
-                                // that chain has successfully finished
-                                mLastActionOutput = that.mLastActionOutput;
-                                discardThatChain = true;
-                            }
-                        } else {
-                            // it's not possible to have a non-null mCause here.
-                            // thus we can PAUSE this chain
-                        }
-                        if (!discardThatChain) {
-                            // If not discarding that chain, we PAUSE this chain, add callback into that chain
-                            //   which will eventually restart our chain.
-
-                            // Firstly set UNCAUGHT error holders to current error holder
-                            if (action.errorHandler != null) for (int i = 0; i < that.mActionSequence.size(); i++)
-                                if (that.mActionSequence.get(i).errorHandler == null)
-                                    that.mActionSequence.get(i).errorHandler = action.errorHandler;
-
-                            // Add the callback
-                            final NiceConsumer wrapped = that.mOnSuccess;
-                            final int resumePoint = mNextAction + 1;        // the resume point is the same for all subChains
-                            NiceConsumer wrapper = input -> {
-                                if(wrapped != null)
-                                    wrapped.consume(input);
-
-                                // resume current chain. Detect count of finished actions here.
-                                synchronized (ReadOnlyChain.this) {
-                                    int pos = positions.get(that);
-                                    targets.set(pos, input);
-                                    ReadOnlyChain.this.numPendingSubChains --;
-                                    if(ReadOnlyChain.this.numPendingSubChains == 0) {
-                                        if(shouldUnpackTargetsList[0])
-                                            ReadOnlyChain.this.mLastActionOutput = targets.get(0);
-                                        else ReadOnlyChain.this.mLastActionOutput = targets;
-                                        ReadOnlyChain.this.mNextAction = resumePoint;
-                                        ReadOnlyChain.this.iterateNoLock();
-                                    }
-                                }
-                            };
-                            that.mOnSuccess = wrapper;
-
-                            // Call error holder to restart that chain if necessary (and if wanted)
-                            if (runErrorHolderOnThat) {
-                                that.mActionSequence.get(that.mCauseLink).errorHandler = action.errorHandler;
-                                if(action.errorHandler != null)
-                                    errHandlersToRun.add(() -> action.errorHandler.consume(that));
-                                else errorsNotHandled.add(that.mCause);
-                            }
-
-                        } else {
-                            // We discard that chain only if it's successful (see code above)
-                            // so we can directly replace the element in list
-                            int pos = positions.get(that);
-                            targets.set(pos, that.mLastActionOutput);
-                            // If we discard that chain, we immediately decrease the numPendingSubChains counter here
-                            numPendingSubChains --;
-                        }
-                    }
-                }
-
-                if(errorsNotHandled.size() > 0)
-                    throw new ExceptionList(errorsNotHandled);
-
-                // run all error handlers to determine whether to resume the subChain
-                threadPolicy.switchAndRun(() -> {
-                    // if both chains do not have error handlers, we can't even reach this line.
-                    for(Runnable runnable : errHandlersToRun)
-                        runnable.run();
-                });
-
-                if(numPendingSubChains != null && numPendingSubChains > 0) {
-                    // Finally PAUSE this chain.
-                    mNextAction = Integer.MAX_VALUE;
-                    return;
-                } else {
-                    if(replaceOutputWithTarget) {
-                        if(shouldUnpackTargetsList[0])
-                            mLastActionOutput = targets.get(0);
-                        else mLastActionOutput = targets;
-                    }
-                }
-
-            } catch (Exception err) {
-                executionFinished = true;
-                mCause = err;
-                mCauseLink = mNextAction;
-                if(action.errorHandler == null) {
-                    printUncaughtEx(err);
-                }
-                threadPolicy.switchAndRun(action.errorHandler, ReadOnlyChain.this);
-                return;
-            }
-            mNextAction++;
-            iterate();
+    static ReadOnlyChain newInstance(ChainLink<?, ?>[] actionSequence, NiceConsumer<?> onSuccess, ThreadPolicy threadPolicy,
+                                     long deadlineNanos) {
+        if (threadPolicy.getEngine() == ChainEngine.SYNCHRONIZED) {
+            boolean hasTimeouts = deadlineNanos > 0;
+            for (ChainLink<?, ?> link : actionSequence)
+                hasTimeouts |= link.timeoutNanos > 0;
+            if (hasTimeouts)
+                throw new UnsupportedOperationException("Timeouts and deadlines need ChainEngine.LOCK_FREE");
+            return new SynchronizedChain(actionSequence, onSuccess, threadPolicy);
         }
-    };
+        return new LockFreeChain(actionSequence, onSuccess, threadPolicy, deadlineNanos);
+    }
 
     public static void printUncaughtEx(Exception exception) {
         // Because some platforms do not allow throwing Exceptions to Main Thread,
@@ -245,31 +65,66 @@ public class ReadOnlyChain implements ErrorHolder {
         exception.printStackTrace();
     }
 
-    private final void iterate() {
-        synchronized (ReadOnlyChain.this) {
-            iterateNoLock();
-        }
-    }
+    /**
+     * Blocks the calling thread until this chain has finished, and returns the output of its last action.
+     * <p>
+     * If an action of this chain throws and neither that action nor any other chain handles the error,
+     * the error is thrown from await() instead. Errors that are handled by an error handler (which may
+     * call retry()) make await() wait for the outcome of that handler.
+     * <p>
+     * Never call this on the thread that must run the rest of this chain (e.g. the main thread when there
+     * is a ThreadChanger), or from one of the actions of this chain. An action may await another chain:
+     * the steps waiting for the thread of that action (the main thread actions of that chain, when there
+     * is no ThreadChanger) are run before it blocks.
+     * <p>
+     * Note: only ChainEngine.LOCK_FREE supports await().
+     * @return the output of the last action of this chain.
+     * @throws Exception the unhandled error of this chain.
+     * @throws InterruptedException if the calling thread was interrupted while waiting.
+     * @throws UnsupportedOperationException on ChainEngine.SYNCHRONIZED.
+     */
+    public abstract Object await() throws Exception;
 
-    private final void iterateNoLock() {
-        mCause = null;
-        mCauseLink = -1;
-        executionFinished = false;
-        if (isIterationOver()) {
-            executionFinished = true;
-            return;
-        }
-        ChainLink action = mActionSequence.get(mNextAction);
-        callIteratorOnProperThread(action);
-    }
+    /**
+     * Stops this chain. The action that is running (if any) is not interrupted, but its output is dropped,
+     * and no other action of this chain is scheduled: neither onSuccess nor any error handler is called afterwards.
+     * The running action can see the cancellation through ActionChain.currentToken().
+     * <p>
+     * The subChains this chain is waiting for (returned by its current action, directly or through
+     * ActionChain.all() and the like) are cancelled as well. A chain waiting for this one fails with a
+     * CancellationException, and await() throws it.
+     *
+     * @return false if this chain had already finished or been cancelled.
+     */
+    public abstract boolean cancel();
 
-    protected void callIteratorOnProperThread(ChainLink actionConfig) {
-        if (actionConfig.runOnWorkerThread)
-            mThreadPolicy.runWorker(() -> mIterator.consume(mThreadPolicy));
-        else mThreadPolicy.switchAndRun(mIterator, mThreadPolicy);
+    /**
+     * @return true if cancel() has been called before this chain finished.
+     */
+    @Override
+    public abstract boolean isCancelled();
+
+    @Override
+    public void throwIfCancelled() throws CancellationException {
+        if (isCancelled())
+            throw new CancellationException("The chain has been cancelled.");
     }
 
-    final void start() {
-        iterate();
+    /**
+     * @return the chain (or the ChainStream) whose action is running on the calling thread, or CancellationToken.NONE.
+     */
+    static CancellationToken currentToken() {
+        ReadOnlyChain chain = LockFreeChain.running();
+        if (chain == null)
+            chain = SynchronizedChain.running();
+        if (chain != null)
+            return chain;
+        final ChainStream<?> stream = ChainStream.running();
+        return stream != null ? stream : CancellationToken.NONE;
     }
+
+    /**
+     * Runs the first action. Must be called exactly once.
+     */
+    abstract void start();
 }
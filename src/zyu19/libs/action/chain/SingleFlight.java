@@ -0,0 +1,97 @@
+package zyu19.libs.action.chain;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.PureAction;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * The in-flight actions of ChainStyle.singleFlightThen(), by key. Share one instance between
+ * all the chains that should not run the same action twice at the same time.
+ * <p>
+ * The first chain to ask for a key starts a "flight": a small shared chain that runs the action.
+ * The chains asking for the same key while it runs wait for that flight, just like they wait for a
+ * subChain they returned, and all of them get its output, or its error. Cancelling one of them does
+ * not cancel the flight. Nothing is kept once the action has returned: the next chain asking for that
+ * key starts a new flight (see LruCache and cachedThen() to keep the outputs). If the action returns subChains,
+ * the chains that were waiting still wait for them, but new chains no longer do.
+ * <p>
+ * Needs ChainEngine.LOCK_FREE.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public class SingleFlight<K> {
+	private final ConcurrentHashMap<K, LockFreeChain> mFlights = new ConcurrentHashMap<>();
+	private final AtomicLong mNumFlights = new AtomicLong(0);
+	private final AtomicLong mNumShared = new AtomicLong(0);
+
+	/**
+	 * The output of a flight whose action has failed. A flight never fails by itself, so that
+	 * every chain waiting for it gets the error, instead of the first one to claim it.
+	 */
+	static final class Failure {
+		final Exception cause;
+
+		Failure(Exception cause) {
+			this.cause = cause;
+		}
+	}
+
+	/**
+	 * @return the flight running action for key: either started by this call, or by an earlier call
+	 * that has not finished yet.
+	 */
+	<In> ReadOnlyChain join(final K key, final In input, final PureAction<In, ?> action, ThreadPolicy threadPolicy) {
+		if (threadPolicy.getEngine() != ChainEngine.LOCK_FREE)
+			throw new UnsupportedOperationException("singleFlightThen() needs ChainEngine.LOCK_FREE");
+		final LockFreeChain running = mFlights.get(key);
+		if (running != null) {
+			mNumShared.incrementAndGet();
+			return running;
+		}
+		final LockFreeChain[] flight = new LockFreeChain[1];
+		final ChainLink<?, ?>[] links = { new ChainLink<Object, Object>(ignored -> {
+			try {
+				return action.process(input);
+			} finally {
+				// before the waiting chains resume, so that none of them can find this flight once it is over
+				mFlights.remove(key, flight[0]);
+			}
+		}, null, true) };
+		flight[0] = new LockFreeChain(links, null, threadPolicy, 0, true);
+		final LockFreeChain raced = mFlights.putIfAbsent(key, flight[0]);
+		if (raced != null) {
+			mNumShared.incrementAndGet();
+			return raced;
+		}
+		mNumFlights.incrementAndGet();
+		flight[0].start();
+		return flight[0];
+	}
+
+	/**
+	 * @return the number of keys that are being computed right now.
+	 */
+	public int size() {
+		return mFlights.size();
+	}
+
+	/**
+	 * @return the number of times an action has actually run.
+	 */
+	public long getNumFlights() {
+		return mNumFlights.get();
+	}
+
+	/**
+	 * @return the number of times a chain has waited for the flight of another chain instead of running the action.
+	 */
+	public long getNumShared() {
+		return mNumShared.get();
+	}
+}
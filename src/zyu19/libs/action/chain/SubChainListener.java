@@ -0,0 +1,55 @@
+package zyu19.libs.action.chain;
+
+/**
+ * This class is a helper class used by LockFreeChain.
+ * <p>
+ * A chain that waits for a subChain registers one of these on the subChain, instead of locking it
+ * and wrapping its onSuccess. The listeners of a subChain form a lock-free stack, which is sealed
+ * once the subChain has finished or has been cancelled.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+abstract class SubChainListener {
+	/**
+	 * Marks the stack of a subChain that has finished: nothing can be pushed onto it anymore.
+	 */
+	static final SubChainListener SEALED = new SubChainListener() {
+		@Override
+		void onSubChainSuccess(Object output) {
+		}
+
+		@Override
+		boolean onSubChainFailure(LockFreeChain subChain) {
+			return false;
+		}
+
+		@Override
+		void onSubChainCancelled(LockFreeChain subChain) {
+		}
+	};
+
+	SubChainListener next;
+
+	/**
+	 * Called once, on the main thread, after the onSuccess of the subChain.
+	 * @param output the output of the last action of the subChain.
+	 */
+	abstract void onSubChainSuccess(Object output);
+
+	/**
+	 * Called every time an action of the subChain throws and that action has no error handler.
+	 * @param subChain the failed subChain. Use subChain.claimFailure() before handling its error.
+	 * @return true if this listener has claimed and handled the error.
+	 */
+	abstract boolean onSubChainFailure(LockFreeChain subChain);
+
+	/**
+	 * Called once, on the thread that cancelled the subChain (or that registered this listener on an
+	 * already cancelled subChain). The subChain will never succeed.
+	 * @param subChain the cancelled subChain.
+	 */
+	abstract void onSubChainCancelled(LockFreeChain subChain);
+}
@@ -0,0 +1,387 @@
+package zyu19.libs.action.chain;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import zyu19.libs.action.chain.config.DotAll;
+import zyu19.libs.action.chain.config.DotAllLimited;
+import zyu19.libs.action.chain.config.DotAllQuorum;
+import zyu19.libs.action.chain.config.DotAllStreaming;
+import zyu19.libs.action.chain.config.ErrorHolder;
+import zyu19.libs.action.chain.config.NiceConsumer;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * The original engine behind ReadOnlyChain (see ChainEngine.SYNCHRONIZED).
+ * <p>
+ * Every step runs inside <strong>synchronized (this)</strong>, and the monitors of sub-chains are taken
+ * while waiting for them. It is kept so that it can be compared against LockFreeChain.
+ * <p>
+ * Separated as a helper class on 8/8/2015.
+ * <br>
+ * Renamed from ReadOnlyChain on 10/18/2026.
+ *
+ * @author Zhongzhi Yu
+ * @version 0.4
+ */
+final class SynchronizedChain extends ReadOnlyChain {
+
+    //---------------------- ErrorHolder interface -------------------------
+    private Exception mCause = null;
+    private int mCauseLink = -1;
+
+    @Override
+    public Exception getCause() {
+        return mCause;
+    }
+
+    private volatile int mRetryCount = 0;
+
+    @Override
+    public void retry() {
+        mRetryCount++;
+        iterate();
+    }
+
+    @Override
+    public void retryAfter(long delay, TimeUnit unit) {
+        if (delay <= 0)
+            retry();
+        else mThreadPolicy.getTimer().schedule(() -> mThreadPolicy.runWorker(this::retry), delay, unit);
+    }
+
+    @Override
+    public void jumpBy(int offset) {
+        mRetryCount = 0;
+        mNextAction += offset;
+        iterate();
+    }
+
+    @Override
+    public int getRetryCount() {
+        return mRetryCount;
+    }
+
+    @Override
+    public int getPosition() {
+        return mNextAction;
+    }
+
+    //---------------------- Executor functions -------------------------
+    private int mNextAction = 0;
+    private Object mLastActionOutput = null;
+    private volatile boolean isOnSuccessCalled = false;
+    private boolean executionFinished = false;
+
+    private final ChainLink<?, ?>[] mActionSequence;
+    private final ThreadPolicy mThreadPolicy;
+    private NiceConsumer mOnSuccess;
+
+    private Integer numPendingSubChains = null;
+
+    // Not guarded by the monitor: cancel() must not wait for the action that holds it
+    private final AtomicBoolean mCancelled = new AtomicBoolean(false);
+    private volatile List<SynchronizedChain> mPausedOn = null;
+
+    private static final ThreadLocal<SynchronizedChain> RUNNING = new ThreadLocal<>();
+
+    /**
+     * @return the chain whose action is running on the calling thread, or null.
+     */
+    static SynchronizedChain running() {
+        return RUNNING.get();
+    }
+
+    // Replaces the null error handlers of mActionSequence for this execution only: the links themselves
+    // are shared with the other executions of the same ChainPlan.
+    private NiceConsumer<ErrorHolder> mInheritedErrorHandler = null;
+
+    private NiceConsumer<ErrorHolder> errorHandlerAt(int position) {
+        final NiceConsumer<ErrorHolder> handler = mActionSequence[position].errorHandler;
+        return handler != null ? handler : mInheritedErrorHandler;
+    }
+
+    /**
+     * Constructor of SynchronizedChain.
+     *
+     * @param actionSequence The array of action configurations to execute. It is shared, and never modified.
+     * @param onSuccess      The callback to notify when all actions finished without Exception.
+     * @param threadPolicy   For the usages of this object, please refer to the javadoc of threadPolicy.
+     */
+    SynchronizedChain(ChainLink<?, ?>[] actionSequence, NiceConsumer<?> onSuccess, ThreadPolicy threadPolicy) {
+        mActionSequence = actionSequence;
+        mThreadPolicy = threadPolicy;
+        mOnSuccess = onSuccess;
+    }
+
+    /**
+     * This function must be called within a <strong>synchronzied</strong> block!!!
+     *
+     * @return true if this ReadOnlyChain has reached its end and should exit.
+     */
+    private final boolean isIterationOver() {
+        if (isOnSuccessCalled || mCancelled.get())
+            return true;
+        else if (mNextAction < 0 || mNextAction >= mActionSequence.length) {
+            mThreadPolicy.switchAndRun(mOnSuccess, mLastActionOutput);
+            isOnSuccessCalled = true;
+            return true;
+        } else return false;
+    }
+
+    private final NiceConsumer<ThreadPolicy> mIterator = threadPolicy -> {
+        synchronized (SynchronizedChain.this) {
+            if (isIterationOver()) {
+                executionFinished = true;
+                return;
+            }
+            ChainLink action = SynchronizedChain.this.mActionSequence[mNextAction];
+            final NiceConsumer<ErrorHolder> errorHandler = errorHandlerAt(mNextAction);
+            final SynchronizedChain outer = RUNNING.get();
+            try {
+                RUNNING.set(SynchronizedChain.this);
+                try {
+                    final Object key = action.keyOf(mLastActionOutput);
+                    final Object cached = action.cached(key);
+                    if (cached == null) {
+                        mLastActionOutput = action.pureAction.process(mLastActionOutput);
+                        action.store(key, mLastActionOutput);
+                    } else mLastActionOutput = cached;
+                } finally {
+                    RUNNING.set(outer);
+                }
+                if (mLastActionOutput instanceof DotAllLimited || mLastActionOutput instanceof DotAllStreaming
+                        || mLastActionOutput instanceof DotAllQuorum)
+                    throw new UnsupportedOperationException("ActionChain.allLimited(), allReduce(), allStreaming(), firstOf() and quorum() need ChainEngine.LOCK_FREE");
+                if (mLastActionOutput instanceof Deferred)
+                    throw new UnsupportedOperationException("batchedThen() needs ChainEngine.LOCK_FREE");
+                if (Deferred.isCompletionStage(mLastActionOutput))
+                    throw new UnsupportedOperationException("Returning a CompletionStage needs ChainEngine.LOCK_FREE");
+                // Fast path: an ordinary output needs none of the bookkeeping below, so nothing is allocated for it
+                if (needsJoin(mLastActionOutput)) {
+                    Set<SynchronizedChain> filteredTargets = new HashSet<>();
+                    HashMap<SynchronizedChain, Integer> positions = new HashMap<>();
+
+                    // If our outer handler is not null, we use errHandlersToRun otherwise we use errorsNotHandled
+                    List<Runnable> errHandlersToRun = new ArrayList<>();
+                    List<Exception> errorsNotHandled = new ArrayList<>();
+
+                    boolean replaceOutputWithTarget = false;
+                    final boolean shouldUnpackTargetsList[] = new boolean[]{false};
+                    List<Object> targets;
+
+                    if (mLastActionOutput != null && DotAll.class.isAssignableFrom(mLastActionOutput.getClass())) {
+                        // Version 0.4: support waiting for ActionChain.all() (this is the point of using .all()...)
+                        targets = ((DotAll) mLastActionOutput).objects;
+                        for(int i = 0; i < targets.size(); i++) {
+                            Object obj = targets.get(i);
+                            if(obj instanceof ReadOnlyChain) {
+                                filteredTargets.add(asSynchronized(obj));
+                                positions.put(asSynchronized(obj), i);
+                            }
+                        }
+
+                        filteredTargets.remove(this);
+                        replaceOutputWithTarget = true;
+                    }
+                    else if (mLastActionOutput != null && ReadOnlyChain.class.isAssignableFrom(mLastActionOutput.getClass()) && mLastActionOutput != this) {
+                        // Version 0.3: support waiting for inner ActionChains
+                        // The returned ReadOnlyChain is detected here
+                        replaceOutputWithTarget = true;
+                        shouldUnpackTargetsList[0] = true;
+                        targets = Arrays.asList(mLastActionOutput);
+                        filteredTargets.add(asSynchronized(mLastActionOutput));
+                        positions.put(asSynchronized(mLastActionOutput), 0);
+                    } else targets = Arrays.asList();
+
+                    numPendingSubChains = filteredTargets.size();
+
+                    // Published before locking the subChains below: a subChain still running its action holds its
+                    // monitor, and cancel() must reach it while we wait for that monitor
+                    mPausedOn = filteredTargets.isEmpty() ? null : new ArrayList<>(filteredTargets);
+                    if (mCancelled.get())
+                        cancelPausedOn();
+
+                    // wait for all ReadOnlyChains in filteredTargets
+                    for(SynchronizedChain that : filteredTargets) {
+                        synchronized (that) {
+                            // Pending, Success, Failed w/ handler in progress, Failed & finished
+                            boolean discardThatChain = false;
+                            boolean runErrorHolderOnThat = false;
+                            if (that.executionFinished) {
+                                if (that.mCause != null) {
+                                    // in this case, that chain has been stuck in error handling
+
+                                    runErrorHolderOnThat = that.errorHandlerAt(that.mCauseLink) == null;
+                                } else {
+                                    // that chain has successfully finished
+                                    mLastActionOutput = that.mLastActionOutput;
+                                    discardThatChain = true;
+                                }
+                            } else {
+                                // it's not possible to have a non-null mCause here.
+                                // thus we can PAUSE this chain
+                            }
+                            if (!discardThatChain) {
+                                // If not discarding that chain, we PAUSE this chain, add callback into that chain
+                                //   which will eventually restart our chain.
+
+                                // Firstly set UNCAUGHT error holders to current error holder
+                                if (errorHandler != null && that.mInheritedErrorHandler == null)
+                                    that.mInheritedErrorHandler = errorHandler;
+
+                                // Add the callback
+                                final NiceConsumer wrapped = that.mOnSuccess;
+                                final int resumePoint = mNextAction + 1;        // the resume point is the same for all subChains
+                                NiceConsumer wrapper = input -> {
+                                    if(wrapped != null)
+                                        wrapped.consume(input);
+
+                                    // resume current chain. Detect count of finished actions here.
+                                    synchronized (SynchronizedChain.this) {
+                                        int pos = positions.get(that);
+                                        targets.set(pos, input);
+                                        SynchronizedChain.this.numPendingSubChains --;
+                                        if(SynchronizedChain.this.numPendingSubChains == 0) {
+                                            SynchronizedChain.this.mPausedOn = null;
+                                            if(shouldUnpackTargetsList[0])
+                                                SynchronizedChain.this.mLastActionOutput = targets.get(0);
+                                            else SynchronizedChain.this.mLastActionOutput = targets;
+                                            SynchronizedChain.this.mNextAction = resumePoint;
+                                            SynchronizedChain.this.mRetryCount = 0;
+                                            SynchronizedChain.this.iterateNoLock();
+                                        }
+                                    }
+                                };
+                                that.mOnSuccess = wrapper;
+
+                                // Call error holder to restart that chain if necessary (and if wanted)
+                                if (runErrorHolderOnThat) {
+                                    if(errorHandler != null)
+                                        errHandlersToRun.add(() -> errorHandler.consume(that));
+                                    else errorsNotHandled.add(that.mCause);
+                                }
+
+                            } else {
+                                // We discard that chain only if it's successful (see code above)
+                                // so we can directly replace the element in list
+                                int pos = positions.get(that);
+                                targets.set(pos, that.mLastActionOutput);
+                                // If we discard that chain, we immediately decrease the numPendingSubChains counter here
+                                numPendingSubChains --;
+                            }
+                        }
+                    }
+
+                    if(errorsNotHandled.size() > 0) {
+                        mPausedOn = null;
+                        throw new ExceptionList(errorsNotHandled);
+                    }
+
+                    // run all error handlers to determine whether to resume the subChain
+                    threadPolicy.switchAndRun(() -> {
+                        // if both chains do not have error handlers, we can't even reach this line.
+                        for(Runnable runnable : errHandlersToRun)
+                            runnable.run();
+                    });
+
+                    if(numPendingSubChains != null && numPendingSubChains > 0) {
+                        // Finally PAUSE this chain.
+                        mNextAction = Integer.MAX_VALUE;
+                        return;
+                    } else {
+                        mPausedOn = null;
+                        if(replaceOutputWithTarget) {
+                            if(shouldUnpackTargetsList[0])
+                                mLastActionOutput = targets.get(0);
+                            else mLastActionOutput = targets;
+                        }
+                    }
+                }
+
+            } catch (Exception err) {
+                executionFinished = true;
+                if (mCancelled.get())
+                    return;
+                mCause = err;
+                mCauseLink = mNextAction;
+                if(errorHandler == null) {
+                    printUncaughtEx(err);
+                }
+                threadPolicy.switchAndRun(errorHandler, SynchronizedChain.this);
+                return;
+            }
+            mNextAction++;
+            mRetryCount = 0;
+            iterate();
+        }
+    };
+
+    private boolean needsJoin(Object output) {
+        return output instanceof DotAll || (output instanceof ReadOnlyChain && output != this);
+    }
+
+    private static SynchronizedChain asSynchronized(Object subChain) {
+        if (subChain instanceof SynchronizedChain)
+            return (SynchronizedChain) subChain;
+        throw new IllegalStateException("A sub-chain must run on the same ChainEngine as the chain waiting for it.");
+    }
+
+    private final void iterate() {
+        synchronized (SynchronizedChain.this) {
+            iterateNoLock();
+        }
+    }
+
+    private final void iterateNoLock() {
+        mCause = null;
+        mCauseLink = -1;
+        executionFinished = false;
+        if (isIterationOver()) {
+            executionFinished = true;
+            return;
+        }
+        ChainLink action = mActionSequence[mNextAction];
+        callIteratorOnProperThread(action);
+    }
+
+    // created once, so that moving to another thread does not allocate a new Runnable every time
+    private final Runnable mIteration = () -> mIterator.consume(SynchronizedChain.this.mThreadPolicy);
+
+    protected void callIteratorOnProperThread(ChainLink actionConfig) {
+        if (actionConfig.runOnWorkerThread)
+            mThreadPolicy.runWorker(mIteration);
+        else mThreadPolicy.switchAndRun(mIteration);
+    }
+
+    @Override
+    void start() {
+        iterate();
+    }
+
+    @Override
+    public boolean cancel() {
+        if (isOnSuccessCalled || !mCancelled.compareAndSet(false, true))
+            return false;
+        cancelPausedOn();
+        return true;
+    }
+
+    private void cancelPausedOn() {
+        final List<SynchronizedChain> subChains = mPausedOn;
+        if (subChains != null)
+            for (SynchronizedChain that : subChains)
+                that.cancel();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return mCancelled.get() && !isOnSuccessCalled;
+    }
+
+    @Override
+    public Object await() throws Exception {
+        throw new UnsupportedOperationException("await() needs ChainEngine.LOCK_FREE");
+    }
+}
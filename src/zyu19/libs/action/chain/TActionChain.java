@@ -4,8 +4,10 @@ import zyu19.libs.action.chain.config.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Type Safe version if ActionChain
@@ -34,14 +36,27 @@ public class TActionChain<T> {
      * receive this chain's final output (Thus this type cannot be easily inferred using Java Generics).
      */
     public final Object start(NiceConsumer<T> onSuccess) {
-        ReadOnlyChain chain = new ReadOnlyChain(mActionSequence, onSuccess, mThreadPolicy);
-        chain.start();
-        return chain;
+        return compile().start(onSuccess);
+    }
+
+    /**
+     * Freezes the actions added so far into a ChainPlan, which can be started many times (even concurrently)
+     * without copying them again. Actions added afterwards do not change the returned plan.
+     *
+     * @return an immutable plan of the actions in this chain.
+     */
+    public final ChainPlan compile() {
+        // Reuse the last plan while no action has been added, so that starting the same chain again copies nothing.
+        if (mPlan == null)
+            mPlan = new ChainPlan(mActionSequence, mThreadPolicy, mDeadlineNanos);
+        return mPlan;
     }
 
     public TActionChain<Void> clear(NiceConsumer<ErrorHolder> onFailure) {
         mCurrentOnFailure = onFailure;
         mActionSequence.clear();
+        mDeadlineNanos = 0;
+        mPlan = null;
         return (TActionChain<Void>) this;
     }
 
@@ -61,21 +76,175 @@ public class TActionChain<T> {
         return this;
     }
 
+    public <E extends Exception> TActionChain<T> fail(Class<E> claz, RetryPolicy policy, NiceConsumer<ErrorHolder<E>> onGiveUp) {
+        final NiceConsumer<ErrorHolder> oldHandler = mCurrentOnFailure;
+        mCurrentOnFailure = error -> {
+            if (claz.isAssignableFrom(error.getCause().getClass())) {
+                final long delay = policy.nextDelayNanos(error.getRetryCount());
+                if (delay >= 0) {
+                    error.retryAfter(delay, TimeUnit.NANOSECONDS);
+                    return;
+                }
+                if (onGiveUp != null) {
+                    onGiveUp.consume((ErrorHolder<E>) error);
+                    return;
+                }
+            }
+            if (oldHandler != null)
+                oldHandler.consume(error);
+        };
+        return this;
+    }
+
     public <Out> TActionChain<Out> then(boolean runOnWorkerThread, PureAction<T, Out> action) {
         mActionSequence.add(new ChainLink<T, Out>(action, mCurrentOnFailure, runOnWorkerThread));
+        mPlan = null;
         return (TActionChain<Out>) this;
     }
 
     public final <Out> TActionChain<Out> netThen(PureAction<T, Out> action) {
         mActionSequence.add(new ChainLink<T, Out>(action, mCurrentOnFailure, true));
+        mPlan = null;
         return (TActionChain<Out>) this;
     }
 
     public final <Out> TActionChain<Out> uiThen(PureAction<T, Out> action) {
         mActionSequence.add(new ChainLink<T, Out>(action, mCurrentOnFailure, false));
+        mPlan = null;
+        return (TActionChain<Out>) this;
+    }
+
+
+    /**
+     * Adds an action that must finish within timeout. See ChainStyle.then(boolean, PureAction, long, TimeUnit).
+     *
+     * @param runOnWorkerThread whether the action runs on a worker thread, or on the main thread.
+     * @param action            the action to be added.
+     * @param timeout           the time the action has to finish, counted from the moment it starts running.
+     * @param unit              the unit of timeout.
+     * @return this object, thus enabling method chaining.
+     */
+    public <Out> TActionChain<Out> then(boolean runOnWorkerThread, PureAction<T, Out> action, long timeout, TimeUnit unit) {
+        if (timeout <= 0)
+            throw new IllegalArgumentException("timeout must be positive");
+        mActionSequence.add(new ChainLink<T, Out>(action, mCurrentOnFailure, runOnWorkerThread, unit.toNanos(timeout)));
+        mPlan = null;
+        return (TActionChain<Out>) this;
+    }
+
+    public final <Out> TActionChain<Out> netThen(PureAction<T, Out> action, long timeout, TimeUnit unit) {
+        return then(true, action, timeout, unit);
+    }
+
+    public final <Out> TActionChain<Out> uiThen(PureAction<T, Out> action, long timeout, TimeUnit unit) {
+        return then(false, action, timeout, unit);
+    }
+
+    public <K, Out> TActionChain<Out> singleFlightThen(PureAction<T, K> keyFn, SingleFlight<K> flights, PureAction<T, Out> action) {
+        final ThreadPolicy threadPolicy = mThreadPolicy;
+        return netThen((T input) -> {
+            final K key = keyFn.process(input);
+            return key == null ? action.process(input) : (Out) flights.join(key, input, action, threadPolicy);
+        });
+    }
+
+    public <Out> TActionChain<Out> batchedThen(Batcher<T, Out> batcher) {
+        final ThreadPolicy threadPolicy = mThreadPolicy;
+        return netThen((T input) -> (Out) batcher.add(input, threadPolicy));
+    }
+
+    public <E, Out> TActionChain<List<Out>> thenMap(PureAction<E, Out> action, int parallelism, int chunkSize) {
+        ParallelMap.checkArguments(parallelism, chunkSize);
+        final ThreadPolicy threadPolicy = mThreadPolicy;
+        // the link outputs a Deferred until the chain resumes with the List, so it cannot be cast to List here
+        return (TActionChain) netThen((T input) -> ParallelMap.map(action, input, parallelism, chunkSize, threadPolicy));
+    }
+
+    /**
+     * Adds an action that outputs an int, and continues with an IntChain, whose actions pass the int on
+     * without boxing it (with ChainEngine.LOCK_FREE). See IntChain.
+     *
+     * @param runOnWorkerThread whether the action runs on a worker thread, or on the main thread.
+     * @param action            the action to be added.
+     * @return an IntChain that adds its actions to this chain.
+     */
+    public IntChain mapToInt(boolean runOnWorkerThread, ToIntAction<T> action) {
+        thenPrimitive(runOnWorkerThread, PrimitiveLink.of(action));
+        return new IntChain(this);
+    }
+
+    public final IntChain netMapToInt(ToIntAction<T> action) {
+        return mapToInt(true, action);
+    }
+
+    public final IntChain uiMapToInt(ToIntAction<T> action) {
+        return mapToInt(false, action);
+    }
+
+    /**
+     * Like mapToInt(), for a long. See LongChain.
+     */
+    public LongChain mapToLong(boolean runOnWorkerThread, ToLongAction<T> action) {
+        thenPrimitive(runOnWorkerThread, PrimitiveLink.of(action));
+        return new LongChain(this);
+    }
+
+    public final LongChain netMapToLong(ToLongAction<T> action) {
+        return mapToLong(true, action);
+    }
+
+    public final LongChain uiMapToLong(ToLongAction<T> action) {
+        return mapToLong(false, action);
+    }
+
+    /**
+     * Like mapToInt(), for a double. See DoubleChain.
+     */
+    public DoubleChain mapToDouble(boolean runOnWorkerThread, ToDoubleAction<T> action) {
+        thenPrimitive(runOnWorkerThread, PrimitiveLink.of(action));
+        return new DoubleChain(this);
+    }
+
+    public final DoubleChain netMapToDouble(ToDoubleAction<T> action) {
+        return mapToDouble(true, action);
+    }
+
+    public final DoubleChain uiMapToDouble(ToDoubleAction<T> action) {
+        return mapToDouble(false, action);
+    }
+
+    final void thenPrimitive(boolean runOnWorkerThread, PrimitiveLink link) {
+        mActionSequence.add(new ChainLink<Object, Object>(link, mCurrentOnFailure, runOnWorkerThread));
+        mPlan = null;
+    }
+
+    /**
+     * @return whether the last action added runs on a worker thread, so that a conversion can follow it on its thread.
+     */
+    final boolean lastRunsOnWorkerThread() {
+        return mActionSequence.isEmpty() || mActionSequence.get(mActionSequence.size() - 1).runOnWorkerThread;
+    }
+
+    public <K, Out> TActionChain<Out> cachedThen(PureAction<T, K> keyFn, LinkCache<K, Out> cache, PureAction<T, Out> action) {
+        mActionSequence.add(new ChainLink<T, Out>(action, mCurrentOnFailure, true, keyFn, cache));
+        mPlan = null;
         return (TActionChain<Out>) this;
     }
 
+    /**
+     * Sets the time every execution of this chain has to finish. See ChainStyle.deadline().
+     *
+     * @param timeout the time the chain has to finish, counted from start().
+     * @param unit    the unit of timeout.
+     * @return this object, thus enabling method chaining.
+     */
+    public final TActionChain<T> deadline(long timeout, TimeUnit unit) {
+        if (timeout <= 0)
+            throw new IllegalArgumentException("timeout must be positive");
+        mDeadlineNanos = unit.toNanos(timeout);
+        mPlan = null;
+        return this;
+    }
 
     /**
      * starts running this chain.
@@ -125,6 +294,8 @@ public class TActionChain<T> {
 
     private NiceConsumer<ErrorHolder> mCurrentOnFailure;
     private ArrayList<ChainLink<?, ?>> mActionSequence = new ArrayList<>();
+    private long mDeadlineNanos = 0;
+    private ChainPlan mPlan = null;
     protected final ThreadPolicy mThreadPolicy;
 
     /**
@@ -174,4 +345,88 @@ public class TActionChain<T> {
     public static Object all(List<? extends Object> objects) {
         return new DotAll((List<Object>)objects);
     }
+
+    /**
+     * Like all(), but the subChains are started lazily, at most parallelism at a time.
+     * See AbstractActionChain.allLimited() for details.
+     *
+     * @param parallelism the maximum number of subChains running at the same time.
+     * @param sources     producers that start a subChain each (or return a plain object, which is put into the result
+     *                    as it is).
+     * @return the object you should return inside the .then()
+     */
+    public static Object allLimited(int parallelism, Iterator<? extends Producer<?>> sources) {
+        return new DotAllLimited(parallelism, sources);
+    }
+
+    /**
+     * Like all(), but the output of every subChain is folded into an accumulator as soon as it finishes.
+     * See AbstractActionChain.allReduce() for details.
+     *
+     * @param objects           subChains (or plain objects, which are folded as they are).
+     * @param runOnWorkerThread whether reducer runs on a worker thread, or on the main thread.
+     * @param initial           the accumulator before any output is folded.
+     * @param reducer           returns the accumulator after folding one output into it.
+     * @return the object you should return inside the .then()
+     */
+    public static <Acc, T> Object allReduce(List<?> objects, boolean runOnWorkerThread, Acc initial, Reducer<Acc, T> reducer) {
+        return AbstractActionChain.allReduce(objects, runOnWorkerThread, initial, reducer);
+    }
+
+    /**
+     * Like all(), but onResult is called with the output of every subChain as soon as it finishes.
+     * See AbstractActionChain.allStreaming() for details.
+     *
+     * @param objects           subChains (or plain objects, which are passed to onResult as they are).
+     * @param runOnWorkerThread whether onResult runs on a worker thread, or on the main thread.
+     * @param onResult          called once per object.
+     * @return the object you should return inside the .then()
+     */
+    public static <T> Object allStreaming(List<?> objects, boolean runOnWorkerThread, Consumer<T> onResult) {
+        return AbstractActionChain.allStreaming(objects, runOnWorkerThread, onResult);
+    }
+
+    /**
+     * See AbstractActionChain.currentToken().
+     *
+     * @return the token of the chain whose action is running on the calling thread, or CancellationToken.NONE.
+     */
+    public static CancellationToken currentToken() {
+        return ReadOnlyChain.currentToken();
+    }
+
+    /**
+     * Like all(), but the chain only waits for the first subChain that succeeds, and the other ones are cancelled.
+     * See AbstractActionChain.firstOf() for details.
+     *
+     * @param objects subChains (a plain object counts as a subChain that has already succeeded).
+     * @return the object you should return inside the .then()
+     */
+    public static Object firstOf(Object... objects) {
+        return AbstractActionChain.firstOf(objects);
+    }
+
+    /**
+     * See firstOf(Object...).
+     *
+     * @param objects subChains (a plain object counts as a subChain that has already succeeded).
+     * @param onRest  see AbstractActionChain.quorum(int, List, NiceConsumer).
+     * @return the object you should return inside the .then()
+     */
+    public static Object firstOf(List<?> objects, NiceConsumer<Object> onRest) {
+        return AbstractActionChain.firstOf(objects, onRest);
+    }
+
+    /**
+     * Like all(), but the chain only waits until quorum subChains have succeeded, and the other ones are cancelled.
+     * See AbstractActionChain.quorum() for details.
+     *
+     * @param quorum  the number of subChains that must succeed, between 1 and objects.size().
+     * @param objects subChains (a plain object counts as a subChain that has already succeeded).
+     * @param onRest  called with the outputs of the late subChains and the errors of the failed ones, or null.
+     * @return the object you should return inside the .then()
+     */
+    public static Object quorum(int quorum, List<?> objects, NiceConsumer<Object> onRest) {
+        return AbstractActionChain.quorum(quorum, objects, onRest);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package zyu19.libs.action.chain.config;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Tells a running action whether the chain it belongs to has been cancelled.
+ * <p>
+ * Cancelling a chain never interrupts the action that is running: long actions should poll the token
+ * (which is returned by ActionChain.currentToken()) between their steps, and return early once it is cancelled.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public interface CancellationToken {
+	/**
+	 * The token seen outside of any action. It is never cancelled.
+	 */
+	CancellationToken NONE = new CancellationToken() {
+		@Override
+		public boolean isCancelled() {
+			return false;
+		}
+
+		@Override
+		public void throwIfCancelled() {
+		}
+	};
+
+	/**
+	 * @return true once the chain has been cancelled.
+	 */
+	boolean isCancelled();
+
+	/**
+	 * @throws CancellationException if the chain has been cancelled. The exception is dropped by the chain,
+	 *                               and reaches no error handler.
+	 */
+	void throwIfCancelled() throws CancellationException;
+}
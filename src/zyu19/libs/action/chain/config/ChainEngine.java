@@ -0,0 +1,28 @@
+package zyu19.libs.action.chain.config;
+
+/**
+ * The engine that runs the actions of a started ActionChain.
+ * <p>
+ * Both engines keep the same ordering of actions, and the same behavior of ErrorHolder.retry()
+ * and ErrorHolder.jumpBy(). Choose one through ThreadPolicy.setEngine().
+ * <p>
+ * Note: a chain can only wait for subChains that run on the same engine.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public enum ChainEngine {
+	/**
+	 * The original engine. Every step holds the monitor of its chain, and the monitors of the
+	 * subChains it waits for.
+	 */
+	SYNCHRONIZED,
+
+	/**
+	 * The default engine. The position, the output and the number of pending subChains live in one
+	 * state word that is only updated by compareAndSet, so no monitor is ever taken.
+	 */
+	LOCK_FREE
+}
@@ -1,6 +1,11 @@
 package zyu19.libs.action.chain.config;
 
+import java.util.concurrent.TimeUnit;
+
+import zyu19.libs.action.chain.ChainPlan;
+import zyu19.libs.action.chain.Batcher;
 import zyu19.libs.action.chain.ReadOnlyChain;
+import zyu19.libs.action.chain.SingleFlight;
 
 /**
  * This interface restricts ActionChain to avoid callback hell, and to enable
@@ -46,6 +51,15 @@ public interface ChainStyle <ThisType extends ChainStyle<ThisType>> {
 	 */
 	<In> ReadOnlyChain start();
 
+	/**
+	 * Freeze the 'PureAction' objects added so far into a ChainPlan, which can be started many times
+	 * (even concurrently) without copying them again. start() is the same as compile().start().
+	 * <p>
+	 * Actions added after compile() do not change the returned plan.
+	 * @return an immutable plan of the actions in this ChainStyle.
+	 */
+	ChainPlan compile();
+
 	/**
 	 * Clear all actions. You can call this function after start() so as to arrange a
 	 * new sequence of actions.
@@ -77,6 +91,18 @@ public interface ChainStyle <ThisType extends ChainStyle<ThisType>> {
 	 */
 	<T extends Exception> ThisType fail(Class<T> claz, NiceConsumer<ErrorHolder<T>> onFailure);
 
+	/**
+	 * Like fail(Class, NiceConsumer), but the errors of type claz are retried according to policy
+	 * (through ErrorHolder.retryAfter(), so no thread waits for the retries).
+	 * @param claz specifying the type of Exception you want to retry, other types will not be caught.
+	 * @param policy decides how many times, and after which delay, the failed action runs again.
+	 * @param onGiveUp a callback to be invoked when policy gives up. If it is null, the error goes to
+	 * the previous failure handler instead.
+	 * @param <T> The type of Exception that this handler is looking for
+	 * @return this object, thus enabling method chaining
+	 */
+	<T extends Exception> ThisType fail(Class<T> claz, RetryPolicy policy, NiceConsumer<ErrorHolder<T>> onGiveUp);
+
 	/**
 	 * Add a 'PureAction' object, or an "action", in this ChainStyle.
 	 * @param runOnWorkerThread if set to false, the action will run on the main thread (UI thread)
@@ -90,6 +116,35 @@ public interface ChainStyle <ThisType extends ChainStyle<ThisType>> {
 
 	<Out> ThisType then(boolean runOnWorkerThread, Producer<Out> action);
 
+	/**
+	 * Add an action that must finish within timeout, including the time spent waiting for the subChains it returns.
+	 * Otherwise it fails with a java.util.concurrent.TimeoutException, which goes to the error handler like any other
+	 * Exception (so retry() and jumpBy() work as usual). The action itself is not interrupted, but its output is dropped.
+	 * <p>
+	 * Note: only ChainEngine.LOCK_FREE supports timeouts.
+	 * @param runOnWorkerThread if set to false, the action will run on the main thread (UI thread)
+	 * specified by ThreadChanger. Otherwise the task will run on any other thread (worker thread).
+	 * @param action the action to be added.
+	 * @param timeout the time the action has to finish, counted from the moment it starts running.
+	 * @param unit the unit of timeout.
+	 * @param <In> The input type of this action. Lambda will automatically set this template parameter.
+	 * @param <Out> The output type of this action. Lambda will automatically set this template parameter.
+	 * @return this object, thus enabling method chaining.
+	 */
+	<In, Out> ThisType then(boolean runOnWorkerThread, PureAction<In, Out> action, long timeout, TimeUnit unit);
+
+	/**
+	 * Set the time every execution of this chain has to finish, counted from start(). When it has elapsed, the action
+	 * that is running (or waiting for its subChains) fails with a java.util.concurrent.TimeoutException, as for
+	 * then(boolean, PureAction, long, TimeUnit). The deadline fires once: an error handler may still retry afterwards.
+	 * <p>
+	 * Note: only ChainEngine.LOCK_FREE supports deadlines.
+	 * @param timeout the time the chain has to finish.
+	 * @param unit the unit of timeout.
+	 * @return this object, thus enabling method chaining.
+	 */
+	ThisType deadline(long timeout, TimeUnit unit);
+
 
 	/**
 	 * In order to prevent compiler from being confused when using lambda, we renamed the method.
@@ -114,6 +169,83 @@ public interface ChainStyle <ThisType extends ChainStyle<ThisType>> {
 
 	<Out> ThisType netThen(Producer<Out> action);
 
+	/**
+	 * Same as then(true, action, timeout, unit).
+	 * @param action the action to be added.
+	 * @param timeout the time the action has to finish.
+	 * @param unit the unit of timeout.
+	 * @param <In> The input type of this action. Lambda will automatically set this template parameter.
+	 * @param <Out> The output type of this action. Lambda will automatically set this template parameter.
+	 * @return this object, thus enabling method chaining.
+	 */
+	<In, Out> ThisType netThen(PureAction<In, Out> action, long timeout, TimeUnit unit);
+
+	/**
+	 * Add a 'PureAction' object on the <strong>worker</strong> thread, whose outputs are memoized in cache.
+	 * <p>
+	 * Before running action, the link looks up keyFn(input) in cache. A hit completes the link on the
+	 * current thread, without moving to a worker thread. A miss runs action, and stores its output
+	 * unless it is null or subChains.
+	 * @param keyFn computes the key of an input. It should be cheap, since it runs on the thread of the
+	 * previous action. An input whose key is null is never cached.
+	 * @param cache shared by all the executions of this link (and by any other link you pass it to).
+	 * @param action the action to be added.
+	 * @param <In> The input type of this action. Lambda will automatically set this template parameter.
+	 * @param <K> The type of the keys of cache.
+	 * @param <Out> The output type of this action. Lambda will automatically set this template parameter.
+	 * @return this object, thus enabling method chaining.
+	 * @see LruCache
+	 */
+	<In, K, Out> ThisType cachedThen(PureAction<In, K> keyFn, LinkCache<K, Out> cache, PureAction<In, Out> action);
+
+	/**
+	 * Add a 'PureAction' object on the <strong>worker</strong> thread, which runs at most once at a time
+	 * for each key across all the chains sharing flights.
+	 * <p>
+	 * If another chain is already running action for keyFn(input), this chain waits for it (as it would wait
+	 * for a subChain) and gets the same output, or the same error, instead of running action again.
+	 * Requires ChainEngine.LOCK_FREE.
+	 * @param keyFn computes the key of an input. An input whose key is null always runs action.
+	 * @param flights the actions in flight, shared by the chains that should not duplicate them.
+	 * @param action the action to be added.
+	 * @param <In> The input type of this action. Lambda will automatically set this template parameter.
+	 * @param <K> The type of the keys.
+	 * @param <Out> The output type of this action. Lambda will automatically set this template parameter.
+	 * @return this object, thus enabling method chaining.
+	 */
+	<In, K, Out> ThisType singleFlightThen(PureAction<In, K> keyFn, SingleFlight<K> flights, PureAction<In, Out> action);
+
+	/**
+	 * Add a link that hands its input over to batcher, and waits for the output of that input.
+	 * <p>
+	 * The inputs of all the chains reaching batcher within its window are merged into one call to its
+	 * batch function, on a worker thread. If that call fails, the error goes to the failure handler of
+	 * this link, as if the link had thrown it. Requires ChainEngine.LOCK_FREE.
+	 * @param batcher shared by the chains whose inputs may be merged.
+	 * @param <In> The input type of this link.
+	 * @param <Out> The output type of this link.
+	 * @return this object, thus enabling method chaining.
+	 */
+	<In, Out> ThisType batchedThen(Batcher<In, Out> batcher);
+
+	/**
+	 * Add a link that maps every element of its input (a List or an array) with action, in parallel on the
+	 * <strong>worker</strong> threads, and outputs the List of the results, in the order of the elements.
+	 * <p>
+	 * The input is split recursively into chunks of chunkSize elements, on at most parallelism tasks at a time
+	 * (see ForkJoinThreadPolicy to let idle workers steal them), and the chain resumes once, when every element
+	 * has been mapped. Nothing is split if the input fits in one chunk. If action throws, the other tasks stop
+	 * after their current chunk and the error goes to the failure handler of this link.
+	 * Requires ChainEngine.LOCK_FREE.
+	 * @param action runs once per element, possibly on several threads at the same time.
+	 * @param parallelism the maximum number of worker tasks mapping elements at the same time.
+	 * @param chunkSize the number of elements a task maps between two attempts to split its range.
+	 * @param <In> The type of the elements.
+	 * @param <Out> The type of the results.
+	 * @return this object, thus enabling method chaining.
+	 */
+	<In, Out> ThisType thenMap(PureAction<In, Out> action, int parallelism, int chunkSize);
+
 
 	/**
 	 * In order to prevent compiler from being confused when using lambda, we renamed the method.
@@ -135,6 +267,17 @@ public interface ChainStyle <ThisType extends ChainStyle<ThisType>> {
 
 	<Out> ThisType uiThen(Producer<Out> action);
 
+	/**
+	 * Same as then(false, action, timeout, unit).
+	 * @param action the action to be added.
+	 * @param timeout the time the action has to finish.
+	 * @param unit the unit of timeout.
+	 * @param <In> The input type of this action. Lambda will automatically set this template parameter.
+	 * @param <Out> The output type of this action. Lambda will automatically set this template parameter.
+	 * @return this object, thus enabling method chaining.
+	 */
+	<In, Out> ThisType uiThen(PureAction<In, Out> action, long timeout, TimeUnit unit);
+
 	/**
 	 * In order to prevent compiler from being confused when using lambda, we renamed the method.
 	 * this is similar to then except that the callback does not need to return anything.
@@ -0,0 +1,25 @@
+package zyu19.libs.action.chain.config;
+
+import java.util.Iterator;
+
+/**
+ * A special type to tag the return value of a .then() that uses ActionChain.allLimited().
+ * <p>
+ * Unlike DotAll, it holds producers of subChains instead of started subChains, so that they can
+ * be started a few at a time.
+ * Created on 10/18/2026.
+ *
+ * @author Zhongzhi Yu
+ * @version 0.4
+ */
+public class DotAllLimited {
+    public final int parallelism;
+    public final Iterator<? extends Producer<?>> sources;
+
+    public DotAllLimited(int parallelism, Iterator<? extends Producer<?>> sources) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        this.parallelism = parallelism;
+        this.sources = sources;
+    }
+}
@@ -0,0 +1,29 @@
+package zyu19.libs.action.chain.config;
+
+import java.util.List;
+
+/**
+ * A special type to tag the return value of a .then() that uses ActionChain.firstOf() or ActionChain.quorum().
+ * <p>
+ * Unlike DotAll, the chain does not wait for every subChain: it resumes as soon as quorum of them have
+ * succeeded, and the other subChains are cancelled.
+ * Created on 10/18/2026.
+ *
+ * @author Zhongzhi Yu
+ * @version 0.4
+ */
+public class DotAllQuorum {
+    public final List<Object> objects;
+    public final int quorum;
+    public final boolean unpackResult;
+    public final NiceConsumer<Object> onRest;
+
+    public DotAllQuorum(List<Object> objects, int quorum, boolean unpackResult, NiceConsumer<Object> onRest) {
+        if (quorum < 1)
+            throw new IllegalArgumentException("quorum must be at least 1");
+        this.objects = objects;
+        this.quorum = quorum;
+        this.unpackResult = unpackResult;
+        this.onRest = onRest;
+    }
+}
@@ -0,0 +1,28 @@
+package zyu19.libs.action.chain.config;
+
+import java.util.List;
+
+/**
+ * A special type to tag the return value of a .then() that uses ActionChain.allReduce() or
+ * ActionChain.allStreaming().
+ * <p>
+ * Unlike DotAll, the outputs of the subChains are not collected into a list: each of them is
+ * folded into the accumulator as soon as its subChain finishes.
+ * Created on 10/18/2026.
+ *
+ * @author Zhongzhi Yu
+ * @version 0.4
+ */
+public class DotAllStreaming {
+    public final List<Object> objects;
+    public final boolean runOnWorkerThread;
+    public final Object initial;
+    public final Reducer<Object, Object> reducer;
+
+    public DotAllStreaming(List<Object> objects, boolean runOnWorkerThread, Object initial, Reducer<Object, Object> reducer) {
+        this.objects = objects;
+        this.runOnWorkerThread = runOnWorkerThread;
+        this.initial = initial;
+        this.reducer = reducer;
+    }
+}
@@ -1,5 +1,7 @@
 package zyu19.libs.action.chain.config;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * ActionChain will provide instances of this type through 'NiceConsumer&lt;ErrorHolder&gt;'
  * when an error occurred, to inform the user whether the error may be recoverable.
@@ -64,6 +66,21 @@ public interface ErrorHolder <E extends Exception> {
 	 */
 	void retry();
 
+	/**
+	 * Like retry(), but the last PureAction only runs again once delay has elapsed. No thread is held
+	 * while waiting: the retry is scheduled on the HashedTimerWheel of the ThreadPolicy.
+	 * @param delay the time to wait before running the action again. retry() is called at once if it is not positive.
+	 * @param unit the unit of delay.
+	 * @see RetryPolicy
+	 */
+	void retryAfter(long delay, TimeUnit unit);
+
+	/**
+	 * @return how many times retry() or retryAfter() have run the action at getPosition() again in a row.
+	 * It is 0 when that action fails for the first time.
+	 */
+	int getRetryCount();
+
 	/**
 	 * Skip the piece of action causing trouble, by jumping to a next / previous action.
 	 * @param offset by how much to jump... Note: if it jumps too far, it will simply stop executing.
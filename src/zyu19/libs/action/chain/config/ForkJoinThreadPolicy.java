@@ -0,0 +1,56 @@
+package zyu19.libs.action.chain.config;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A ThreadPolicy backed by a work-stealing ForkJoinPool.
+ * <p>
+ * When a worker thread action hands over to the next worker thread action of its chain, the next
+ * one is forked onto the local deque of the current worker instead of the shared queue of the pool.
+ * So a chain tends to stay on the same worker (and on the same core, with warm caches), and the
+ * workers do not all contend on the head of one queue. Idle workers steal from the busy ones.
+ * <p>
+ * Actions started from other threads (the main thread, the thread calling start()...) are submitted
+ * to the pool as usual.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public class ForkJoinThreadPolicy extends ThreadPolicy {
+	private final ForkJoinPool mPool;
+
+	/**
+	 * @param threadChanger A functor that tell the OS to run a Runnable on the main/UI thread.
+	 * @param pool the pool of worker threads. The default (LIFO) mode of ForkJoinPool keeps a chain on
+	 *             its worker; a pool in asyncMode (FIFO) trades some of that affinity for fairness between chains.
+	 */
+	public ForkJoinThreadPolicy(ThreadChanger threadChanger, ForkJoinPool pool) {
+		super(threadChanger, pool);
+		mPool = pool;
+	}
+
+	/**
+	 * @param threadChanger A functor that tell the OS to run a Runnable on the main/UI thread.
+	 */
+	public ForkJoinThreadPolicy(ThreadChanger threadChanger) {
+		this(threadChanger, new ForkJoinPool());
+	}
+
+	/**
+	 * Without a ThreadChanger, all "actions" run on the worker threads of pool.
+	 * @param pool the pool of worker threads.
+	 */
+	public ForkJoinThreadPolicy(ForkJoinPool pool) {
+		this(null, pool);
+	}
+
+	@Override
+	public void runWorker(Runnable operation) {
+		if (ForkJoinTask.getPool() == mPool)
+			ForkJoinTask.adapt(operation).fork();
+		else mPool.execute(operation);
+	}
+}
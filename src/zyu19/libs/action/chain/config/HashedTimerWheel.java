@@ -0,0 +1,269 @@
+package zyu19.libs.action.chain.config;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timer wheel: one thread serves any number of pending timeouts.
+ * <p>
+ * The wheel is an array of buckets, and a tick moves the thread to the next bucket. A timeout is put into the
+ * bucket of the tick at which it expires, with the number of whole turns of the wheel to wait before that.
+ * Scheduling and cancelling only touch lock-free queues, which the thread drains at every tick, so they cost
+ * O(1) whatever the number of pending timeouts. The precision is one tick: a timeout never fires early,
+ * but may fire up to one tick late.
+ * <p>
+ * The thread is started by the first call to schedule(), and sleeps while no timeout is pending.
+ * <p>
+ * Tasks run on the thread of the wheel: they must be short, and must not block. Hand longer work over to
+ * another thread (ActionChain uses ThreadPolicy.runWorker()).
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public class HashedTimerWheel {
+	private static final int NOT_STARTED = 0;
+	private static final int STARTED = 1;
+	private static final int STOPPED = 2;
+	private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+	private static final AtomicIntegerFieldUpdater<HashedTimerWheel> WORKER_STATE =
+			AtomicIntegerFieldUpdater.newUpdater(HashedTimerWheel.class, "mWorkerState");
+
+	private final long mTickNanos;
+	private final Bucket[] mWheel;
+	private final int mMask;
+	private final ConcurrentLinkedQueue<Timeout> mNewTimeouts = new ConcurrentLinkedQueue<>();
+	private final ConcurrentLinkedQueue<Timeout> mCancelledTimeouts = new ConcurrentLinkedQueue<>();
+	private final AtomicLong mNumPending = new AtomicLong(0);
+	private final Thread mWorker;
+	private volatile int mWorkerState = NOT_STARTED;
+	private volatile boolean mIdle = false;
+
+	/**
+	 * @param tickDuration the precision of the timeouts.
+	 * @param unit the unit of tickDuration.
+	 * @param ticksPerWheel the number of buckets (rounded up to a power of 2). Timeouts that are longer than a
+	 *                      turn of the wheel are kept in their bucket for several turns.
+	 */
+	public HashedTimerWheel(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+		if (tickDuration <= 0)
+			throw new IllegalArgumentException("tickDuration must be positive");
+		if (ticksPerWheel < 1 || ticksPerWheel > (1 << 30))
+			throw new IllegalArgumentException("ticksPerWheel must be between 1 and 2^30");
+		int length = 1;
+		while (length < ticksPerWheel)
+			length <<= 1;
+		mTickNanos = unit.toNanos(tickDuration);
+		mWheel = new Bucket[length];
+		for (int i = 0; i < length; i++)
+			mWheel[i] = new Bucket();
+		mMask = length - 1;
+		mWorker = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				work();
+			}
+		}, "ActionChain-timer");
+		mWorker.setDaemon(true);
+	}
+
+	/**
+	 * A wheel of 512 ticks of 10 milliseconds.
+	 */
+	public HashedTimerWheel() {
+		this(10, TimeUnit.MILLISECONDS, 512);
+	}
+
+	/**
+	 * Runs task on the thread of this wheel once delay has elapsed.
+	 * @param task a short task, which must not block.
+	 * @param delay the time to wait before running task.
+	 * @param unit the unit of delay.
+	 * @return a handle that can cancel task.
+	 * @throws IllegalStateException if stop() has been called.
+	 */
+	public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+		if (task == null)
+			throw new NullPointerException("task");
+		if (mWorkerState == NOT_STARTED && WORKER_STATE.compareAndSet(this, NOT_STARTED, STARTED))
+			mWorker.start();
+		if (mWorkerState == STOPPED)
+			throw new IllegalStateException("The timer wheel has been stopped");
+		final Timeout timeout = new Timeout(this, task, System.nanoTime() + unit.toNanos(delay));
+		mNumPending.incrementAndGet();
+		mNewTimeouts.offer(timeout);
+		if (mIdle)
+			LockSupport.unpark(mWorker);
+		return timeout;
+	}
+
+	/**
+	 * @return the number of timeouts that have been scheduled, and have neither expired nor been cancelled yet.
+	 */
+	public long getPendingTimeouts() {
+		return mNumPending.get();
+	}
+
+	/**
+	 * Stops the thread of this wheel. The pending timeouts will never expire.
+	 */
+	public void stop() {
+		if (WORKER_STATE.getAndSet(this, STOPPED) == STARTED)
+			mWorker.interrupt();
+	}
+
+	private void work() {
+		final long startTime = System.nanoTime();
+		long tick = 0;
+		while (mWorkerState == STARTED) {
+			if (mNumPending.get() == 0) {
+				// nothing to do until the next schedule(), which unparks this thread
+				mIdle = true;
+				if (mNumPending.get() == 0)
+					LockSupport.park(this);
+				mIdle = false;
+				// every bucket is empty: skip the ticks spent sleeping
+				tick = Math.max(tick, (System.nanoTime() - startTime) / mTickNanos);
+				continue;
+			}
+			final long deadline = startTime + (tick + 1) * mTickNanos;
+			for (long sleep; (sleep = deadline - System.nanoTime()) > 0 && mWorkerState == STARTED; )
+				LockSupport.parkNanos(this, sleep);
+			removeCancelled();
+			transfer(startTime, tick);
+			expire(mWheel[(int) (tick & mMask)]);
+			tick++;
+		}
+	}
+
+	private void removeCancelled() {
+		for (Timeout timeout; (timeout = mCancelledTimeouts.poll()) != null; ) {
+			if (timeout.bucket != null)
+				timeout.bucket.remove(timeout);
+			mNumPending.decrementAndGet();
+		}
+	}
+
+	private void transfer(long startTime, long tick) {
+		for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+			final Timeout timeout = mNewTimeouts.poll();
+			if (timeout == null)
+				return;
+			if (timeout.state != Timeout.INIT)
+				continue;
+			final long expiryTick = (timeout.deadline - startTime) / mTickNanos;
+			timeout.remainingRounds = (expiryTick - tick) / mWheel.length;
+			// a timeout that should already have expired goes into the current bucket
+			mWheel[(int) (Math.max(expiryTick, tick) & mMask)].add(timeout);
+		}
+	}
+
+	private void expire(Bucket bucket) {
+		for (Timeout timeout = bucket.head; timeout != null; ) {
+			final Timeout next = timeout.next;
+			if (timeout.remainingRounds <= 0) {
+				bucket.remove(timeout);
+				timeout.expire();
+			} else if (timeout.state == Timeout.CANCELLED) {
+				bucket.remove(timeout);
+			} else timeout.remainingRounds--;
+			timeout = next;
+		}
+	}
+
+	/**
+	 * A task scheduled on a HashedTimerWheel.
+	 */
+	public static final class Timeout {
+		private static final int INIT = 0;
+		private static final int CANCELLED = 1;
+		private static final int EXPIRED = 2;
+
+		private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+				AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+		private final HashedTimerWheel wheel;
+		private final Runnable task;
+		private final long deadline;
+		private volatile int state = INIT;
+
+		// only used by the thread of the wheel
+		private long remainingRounds;
+		private Timeout prev;
+		private Timeout next;
+		private Bucket bucket;
+
+		private Timeout(HashedTimerWheel wheel, Runnable task, long deadline) {
+			this.wheel = wheel;
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * @return false if the task has already run (or is running), or if it has already been cancelled.
+		 */
+		public boolean cancel() {
+			if (!STATE.compareAndSet(this, INIT, CANCELLED))
+				return false;
+			wheel.mCancelledTimeouts.offer(this);
+			return true;
+		}
+
+		public boolean isCancelled() {
+			return state == CANCELLED;
+		}
+
+		public boolean isExpired() {
+			return state == EXPIRED;
+		}
+
+		private void expire() {
+			if (!STATE.compareAndSet(this, INIT, EXPIRED))
+				return;
+			wheel.mNumPending.decrementAndGet();
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				// the other timeouts must still expire
+				System.err.print("UNHANDLED Exception in HashedTimerWheel:");
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * A doubly-linked list of timeouts, only used by the thread of the wheel.
+	 */
+	private static final class Bucket {
+		private Timeout head;
+		private Timeout tail;
+
+		void add(Timeout timeout) {
+			timeout.bucket = this;
+			if (head == null) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		void remove(Timeout timeout) {
+			if (timeout.prev != null)
+				timeout.prev.next = timeout.next;
+			else head = timeout.next;
+			if (timeout.next != null)
+				timeout.next.prev = timeout.prev;
+			else tail = timeout.prev;
+			timeout.prev = null;
+			timeout.next = null;
+			timeout.bucket = null;
+		}
+	}
+}
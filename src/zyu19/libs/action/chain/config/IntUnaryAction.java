@@ -0,0 +1,16 @@
+package zyu19.libs.action.chain.config;
+
+/**
+ * A PureAction from int to int, used by IntChain so that the value is never boxed.
+ * <p>
+ * This interface's instances are meant to be used as callbacks, in the form of
+ * lambda expressions or anonymous classes.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public interface IntUnaryAction {
+	int process(int input) throws Exception;
+}
@@ -0,0 +1,26 @@
+package zyu19.libs.action.chain.config;
+
+/**
+ * The cache behind ChainStyle.cachedThen(). Implement it to plug in another cache library;
+ * LruCache is a simple default.
+ * <p>
+ * It is called from many chains at once, so it must be thread-safe. It should also be fast: on a hit,
+ * the link completes on the thread that looked it up, which may be the main thread.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public interface LinkCache<K, V> {
+	/**
+	 * @return the value stored for key, or null on a miss.
+	 */
+	V get(K key);
+
+	/**
+	 * Called after the action of the link has returned value for key.
+	 * @param value never null.
+	 */
+	void put(K key, V value);
+}
@@ -0,0 +1,121 @@
+package zyu19.libs.action.chain.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A LinkCache that keeps at most maxSize entries, evicting the least recently used one first,
+ * and forgets every entry once it is older than its time to live.
+ * <p>
+ * It is a LinkedHashMap in access order behind one lock: lookups are short, so the lock is held
+ * for a few hundred nanoseconds at most. The counters can be read at any time without locking.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public class LruCache<K, V> implements LinkCache<K, V> {
+	private final int mMaxSize;
+	private final long mTtlNanos;
+	private final AtomicLong mHits = new AtomicLong(0);
+	private final AtomicLong mMisses = new AtomicLong(0);
+	private final AtomicLong mEvictions = new AtomicLong(0);
+
+	private final LinkedHashMap<K, Entry<V>> mEntries;
+
+	private static final class Entry<V> {
+		final V value;
+		final long storedAt;
+
+		Entry(V value, long storedAt) {
+			this.value = value;
+			this.storedAt = storedAt;
+		}
+	}
+
+	/**
+	 * @param maxSize the number of entries above which the least recently used one is evicted.
+	 * @param ttl how long an entry stays valid after put().
+	 * @param unit the unit of ttl.
+	 */
+	public LruCache(final int maxSize, long ttl, TimeUnit unit) {
+		if (maxSize < 1)
+			throw new IllegalArgumentException("maxSize must be positive");
+		if (ttl <= 0)
+			throw new IllegalArgumentException("ttl must be positive");
+		mMaxSize = maxSize;
+		mTtlNanos = unit.toNanos(ttl);
+		mEntries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+				if (size() <= maxSize)
+					return false;
+				mEvictions.incrementAndGet();
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * A cache whose entries never expire.
+	 * @param maxSize the number of entries above which the least recently used one is evicted.
+	 */
+	public LruCache(int maxSize) {
+		this(maxSize, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public V get(K key) {
+		final Entry<V> entry;
+		synchronized (mEntries) {
+			entry = mEntries.get(key);
+			if (entry != null && System.nanoTime() - entry.storedAt > mTtlNanos) {
+				mEntries.remove(key);
+				mEvictions.incrementAndGet();
+				mMisses.incrementAndGet();
+				return null;
+			}
+		}
+		(entry != null ? mHits : mMisses).incrementAndGet();
+		return entry != null ? entry.value : null;
+	}
+
+	@Override
+	public void put(K key, V value) {
+		final Entry<V> entry = new Entry<>(value, System.nanoTime());
+		synchronized (mEntries) {
+			mEntries.put(key, entry);
+		}
+	}
+
+	/**
+	 * @return the number of entries, including the expired ones that have not been looked up since.
+	 */
+	public int size() {
+		synchronized (mEntries) {
+			return mEntries.size();
+		}
+	}
+
+	public int getMaxSize() {
+		return mMaxSize;
+	}
+
+	public long getHits() {
+		return mHits.get();
+	}
+
+	public long getMisses() {
+		return mMisses.get();
+	}
+
+	/**
+	 * @return the number of entries removed because the cache was full, or because they had expired.
+	 */
+	public long getEvictions() {
+		return mEvictions.get();
+	}
+}
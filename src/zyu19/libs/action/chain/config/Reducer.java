@@ -0,0 +1,16 @@
+package zyu19.libs.action.chain.config;
+
+/**
+ * This interface's instances are meant to be used as callbacks, in the form of
+ * lambda expressions or anonymous classes.
+ * <p>
+ * Used by ActionChain.allReduce() to fold the output of every subChain into an accumulator.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public interface Reducer<Acc, In> {
+	Acc reduce(Acc accumulator, In input) throws Exception;
+}
@@ -0,0 +1,52 @@
+package zyu19.libs.action.chain.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the rate of the retries of every chain sharing this budget, so that a degraded dependency
+ * does not receive a storm of retries on top of its usual load.
+ * <p>
+ * Up to maxRetries retries may happen at once, and the budget then refills at maxRetries per period.
+ * It is one atomic long (the time at which the budget will be full again), so taking a retry is a single CAS.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public class RetryBudget {
+	private final long mIntervalNanos;
+	private final long mPeriodNanos;
+	// the retries taken so far push this time into the future by mIntervalNanos each
+	private final AtomicLong mFullAt = new AtomicLong(System.nanoTime());
+
+	/**
+	 * @param maxRetries the number of retries allowed in each period.
+	 * @param period the time it takes to refill an empty budget.
+	 * @param unit the unit of period.
+	 */
+	public RetryBudget(int maxRetries, long period, TimeUnit unit) {
+		if (maxRetries < 1)
+			throw new IllegalArgumentException("maxRetries must be positive");
+		if (period <= 0)
+			throw new IllegalArgumentException("period must be positive");
+		mPeriodNanos = unit.toNanos(period);
+		mIntervalNanos = Math.max(1, mPeriodNanos / maxRetries);
+	}
+
+	/**
+	 * @return true if a retry was taken from this budget, false if the budget is empty.
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			final long now = System.nanoTime();
+			final long fullAt = mFullAt.get();
+			final long next = (fullAt - now > 0 ? fullAt : now) + mIntervalNanos;
+			if (next - now > mPeriodNanos)
+				return false;
+			if (mFullAt.compareAndSet(fullAt, next))
+				return true;
+		}
+	}
+}
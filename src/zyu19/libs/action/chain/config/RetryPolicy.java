@@ -0,0 +1,102 @@
+package zyu19.libs.action.chain.config;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes when a failed action should run again: at most maxRetries times in a row, after a delay
+ * that grows exponentially, with some random jitter so that the chains failing together do not retry together.
+ * <p>
+ * Pass it to ChainStyle.fail(Class, RetryPolicy, NiceConsumer): the retries are scheduled through
+ * ErrorHolder.retryAfter(), so no thread is held while waiting.
+ * <p>
+ * A RetryPolicy is immutable: backoff(), jitter() and budget() return a new policy, and the same
+ * policy can be shared by any number of chains.
+ * <p>
+ * Created on 10/18/2026.
+ * @author Zhongzhi Yu
+ *
+ * @version 0.4
+ */
+public class RetryPolicy {
+	private final int mMaxRetries;
+	private final long mInitialDelayNanos;
+	private final double mMultiplier;
+	private final long mMaxDelayNanos;
+	private final double mJitter;
+	private final RetryBudget mBudget;
+
+	/**
+	 * A policy waiting initialDelay before every retry. Use backoff() to make the delay grow.
+	 * @param maxRetries how many times the action may run again in a row.
+	 * @param initialDelay the delay before the first retry.
+	 * @param unit the unit of initialDelay.
+	 */
+	public RetryPolicy(int maxRetries, long initialDelay, TimeUnit unit) {
+		this(maxRetries, unit.toNanos(initialDelay), 1, Long.MAX_VALUE, 0, null);
+		if (maxRetries < 0)
+			throw new IllegalArgumentException("maxRetries must not be negative");
+		if (initialDelay < 0)
+			throw new IllegalArgumentException("initialDelay must not be negative");
+	}
+
+	private RetryPolicy(int maxRetries, long initialDelayNanos, double multiplier, long maxDelayNanos,
+						double jitter, RetryBudget budget) {
+		mMaxRetries = maxRetries;
+		mInitialDelayNanos = initialDelayNanos;
+		mMultiplier = multiplier;
+		mMaxDelayNanos = maxDelayNanos;
+		mJitter = jitter;
+		mBudget = budget;
+	}
+
+	/**
+	 * @param multiplier the factor applied to the delay after each retry.
+	 * @param maxDelay the longest delay before a retry.
+	 * @param unit the unit of maxDelay.
+	 * @return a new policy with exponential backoff.
+	 */
+	public RetryPolicy backoff(double multiplier, long maxDelay, TimeUnit unit) {
+		if (!(multiplier >= 1))
+			throw new IllegalArgumentException("multiplier must be at least 1");
+		if (maxDelay < 0)
+			throw new IllegalArgumentException("maxDelay must not be negative");
+		return new RetryPolicy(mMaxRetries, mInitialDelayNanos, multiplier, unit.toNanos(maxDelay), mJitter, mBudget);
+	}
+
+	/**
+	 * @param fraction how much of each delay is random, between 0 (none) and 1 (the delay is drawn
+	 *                 uniformly between 0 and the backoff, aka "full jitter").
+	 * @return a new policy with jitter.
+	 */
+	public RetryPolicy jitter(double fraction) {
+		if (!(fraction >= 0 && fraction <= 1))
+			throw new IllegalArgumentException("fraction must be between 0 and 1");
+		return new RetryPolicy(mMaxRetries, mInitialDelayNanos, mMultiplier, mMaxDelayNanos, fraction, mBudget);
+	}
+
+	/**
+	 * @param budget shared by all the policies that retry against the same dependency. A chain whose budget
+	 *               is empty gives up at once, as if it had no retry left.
+	 * @return a new policy with a retry budget.
+	 */
+	public RetryPolicy budget(RetryBudget budget) {
+		return new RetryPolicy(mMaxRetries, mInitialDelayNanos, mMultiplier, mMaxDelayNanos, mJitter, budget);
+	}
+
+	/**
+	 * Takes a retry from the budget (if any) when the answer is not negative.
+	 * @param retryCount the number of retries already made in a row (see ErrorHolder.getRetryCount()).
+	 * @return the delay in nanoseconds before the next retry, or -1 to give up.
+	 */
+	public long nextDelayNanos(int retryCount) {
+		if (retryCount >= mMaxRetries)
+			return -1;
+		if (mBudget != null && !mBudget.tryAcquire())
+			return -1;
+		double delay = Math.min(mInitialDelayNanos * Math.pow(mMultiplier, retryCount), mMaxDelayNanos);
+		if (mJitter > 0)
+			delay -= delay * mJitter * ThreadLocalRandom.current().nextDouble();
+		return (long) delay;
+	}
+}
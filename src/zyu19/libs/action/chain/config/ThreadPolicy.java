@@ -19,6 +19,9 @@ import java.util.concurrent.ExecutorService;
 public class ThreadPolicy {
 	private final ThreadChanger mThreadChanger;
 	private final ExecutorService mExecutorService;
+	private volatile ChainEngine mEngine = ChainEngine.LOCK_FREE;
+	private volatile int mMaxLinksPerTask = 1;
+	private volatile HashedTimerWheel mTimer = null;
 
 	/**
 	 * One type of constructor.
@@ -48,6 +51,78 @@ public class ThreadPolicy {
 		mThreadChanger = null;
 	}
 
+	/**
+	 * Select the engine that runs the chains started with this ThreadPolicy.
+	 * Chains that have already been started keep their engine.
+	 * @param engine ChainEngine.LOCK_FREE (the default) or ChainEngine.SYNCHRONIZED
+	 * @return this object, thus enabling method chaining.
+	 *
+	 * @see ChainEngine
+	 */
+	public ThreadPolicy setEngine(ChainEngine engine) {
+		if (engine == null)
+			throw new NullPointerException("engine");
+		mEngine = engine;
+		return this;
+	}
+
+	public ChainEngine getEngine() {
+		return mEngine;
+	}
+
+	/**
+	 * Link fusion: when the next action of a chain runs on the same kind of thread (worker or main)
+	 * as the current one, run it in the same task instead of calling runWorker() or the ThreadChanger again.
+	 * <p>
+	 * After maxLinksPerTask actions, the chain yields its thread and dispatches the next action as usual,
+	 * so that a long chain cannot starve other chains.
+	 * <p>
+	 * Note: only ChainEngine.LOCK_FREE fuses actions.
+	 * @param maxLinksPerTask the maximum number of actions that run in one task. 1 (the default) disables fusion.
+	 * @return this object, thus enabling method chaining.
+	 */
+	public ThreadPolicy setMaxLinksPerTask(int maxLinksPerTask) {
+		if (maxLinksPerTask < 1)
+			throw new IllegalArgumentException("maxLinksPerTask must be at least 1");
+		mMaxLinksPerTask = maxLinksPerTask;
+		return this;
+	}
+
+	public int getMaxLinksPerTask() {
+		return mMaxLinksPerTask;
+	}
+
+	/**
+	 * The timer behind the timeouts and the deadlines of the chains started with this ThreadPolicy. It is created
+	 * on first use, and shared by all those chains, so that there is one timer thread whatever the number of
+	 * pending timeouts.
+	 * @return the timer wheel of this ThreadPolicy.
+	 */
+	public HashedTimerWheel getTimer() {
+		HashedTimerWheel timer = mTimer;
+		if (timer == null) {
+			synchronized (this) {
+				timer = mTimer;
+				if (timer == null)
+					mTimer = timer = new HashedTimerWheel();
+			}
+		}
+		return timer;
+	}
+
+	/**
+	 * Replace the timer wheel of this ThreadPolicy, e.g. to share one between several ThreadPolicy objects,
+	 * or to change its precision. The timeouts that are already pending stay on the old one.
+	 * @param timer the new timer wheel.
+	 * @return this object, thus enabling method chaining.
+	 */
+	public ThreadPolicy setTimer(HashedTimerWheel timer) {
+		if (timer == null)
+			throw new NullPointerException("timer");
+		mTimer = timer;
+		return this;
+	}
+
 	public void runWorker(Runnable operation) {
 		mExecutorService.submit(operation);
 	}
@@ -0,0 +1,229 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.ReadOnlyChain;
+import zyu19.libs.action.chain.config.Producer;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that ActionChain.allLimited() never runs more subChains than allowed, and keeps the
+ * order of its sources.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class AllLimitedTest {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    ActionChainFactory factory = new ActionChainFactory(new ThreadPolicy(executor));
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Produces numItems subChains that output their index, and records how many of them exist at the same time.
+     */
+    static class Sources implements Iterator<Producer<Object>> {
+        final ActionChainFactory factory;
+        final int numItems;
+        final AtomicInteger numAlive = new AtomicInteger(0);
+        final AtomicInteger maxAlive = new AtomicInteger(0);
+        int next = 0;
+
+        Sources(ActionChainFactory factory, int numItems) {
+            this.factory = factory;
+            this.numItems = numItems;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < numItems;
+        }
+
+        @Override
+        public Producer<Object> next() {
+            final int index = next++;
+            return () -> {
+                maxAlive.accumulateAndGet(numAlive.incrementAndGet(), Math::max);
+                return factory.get().netThen(() -> index).netThen((Integer obj) -> {
+                    numAlive.decrementAndGet();
+                    return obj;
+                }).start();
+            };
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void TestManyItems() throws InterruptedException {
+        final int numItems = 50000;
+        final int parallelism = 8;
+        final Sources sources = new Sources(factory, numItems);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicBoolean correct = new AtomicBoolean(false);
+
+        factory.get(error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> ActionChain.allLimited(parallelism, sources)
+        ).start((List<Object> obj) -> {
+            boolean inOrder = obj.size() == numItems;
+            for (int i = 0; inOrder && i < numItems; i++)
+                inOrder = (Integer) obj.get(i) == i;
+            correct.set(inOrder);
+            latch.countDown();
+        });
+
+        Assert.assertTrue(latch.await(9, TimeUnit.SECONDS));
+        Assert.assertTrue(correct.get());
+        Assert.assertTrue(sources.maxAlive.get() + " subChains at the same time", sources.maxAlive.get() <= parallelism);
+    }
+
+    @Test(timeout = 5000)
+    public void TestInlineSubChains() {
+        final int numItems = 100000;
+        final AtomicReference<List<Object>> output = new AtomicReference<>();
+        // no ThreadChanger: the subChains run inline, on the thread that starts the parent
+        final ThreadPolicy threadPolicy = new ThreadPolicy(executor);
+        final Iterator<Producer<Object>> sources = new Iterator<Producer<Object>>() {
+            int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < numItems;
+            }
+
+            @Override
+            public Producer<Object> next() {
+                final int index = next++;
+                // mix subChains with plain objects
+                if (index % 2 == 0)
+                    return () -> index;
+                return () -> new ActionChain(threadPolicy).uiThen(() -> index).start();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+        ).uiThen(() -> ActionChain.allLimited(4, sources)
+        ).start(output::set);
+
+        Assert.assertEquals(numItems, output.get().size());
+        for (int i = 0; i < numItems; i++)
+            Assert.assertEquals(i, (int) (Integer) output.get().get(i));
+    }
+
+    @Test(timeout = 2000)
+    public void TestNoSources() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        factory.get(error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> ActionChain.allLimited(4, Collections.<Producer<Object>>emptyList().iterator())
+        ).start((List<Object> obj) -> {
+            Assert.assertTrue(obj.isEmpty());
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestParentHandlerRetriesSubChain() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger numErrors = new AtomicInteger(0);
+        final AtomicBoolean hasThrown = new AtomicBoolean(false);
+        final Producer<Object> failingOnce = () -> factory.get().netThen(() -> {
+            if (!hasThrown.getAndSet(true))
+                throw new Exception("expected");
+            return -1;
+        }).start();
+
+        final List<Producer<Object>> sources = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final int index = i;
+            sources.add(index == 2 ? failingOnce : () -> factory.get().netThen(() -> index).start());
+        }
+
+        factory.get(error -> {
+            numErrors.incrementAndGet();
+            error.retry();
+        }).netThen(() -> ActionChain.allLimited(2, sources.iterator())
+        ).start((List<Object> obj) -> {
+            Assert.assertEquals(Arrays.asList(0, 1, -1, 3, 4), obj);
+            latch.countDown();
+        });
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, numErrors.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestProducerThrows() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Exception expected = new Exception("expected");
+        factory.get(error -> {
+            Assert.assertSame(expected, error.getCause());
+            latch.countDown();
+        }).netThen(() -> ActionChain.allLimited(2, Collections.<Producer<Object>>singletonList(() -> {
+            throw expected;
+        }).iterator())).start(obj -> Assert.fail("should not have succeeded"));
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestProducerThrowsCancelsStartedSubChains() throws Exception {
+        final CountDownLatch mayGoOn = new CountDownLatch(1);
+        final AtomicReference<ReadOnlyChain> started = new AtomicReference<>();
+        final Exception expected = new Exception("expected");
+        final List<Producer<Object>> sources = Arrays.asList(() -> {
+            started.set(factory.get().netThen(() -> {
+                mayGoOn.await();
+                return 0;
+            }).start());
+            return started.get();
+        }, () -> {
+            throw expected;
+        });
+
+        // no error handler: nobody can retry the action, so its first subChain must not be left running
+        final ReadOnlyChain chain = factory.get().netThen(() -> ActionChain.allLimited(2, sources.iterator())).start();
+        try {
+            chain.await();
+            Assert.fail("should have thrown");
+        } catch (Exception err) {
+            Assert.assertSame(expected, err);
+        }
+        // the subChain is cancelled once the error has been published, so this may come first
+        try {
+            started.get().await();
+            Assert.fail("should have been cancelled");
+        } catch (CancellationException err) {
+            // expected
+        }
+        mayGoOn.countDown();
+    }
+}
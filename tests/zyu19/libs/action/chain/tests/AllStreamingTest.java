@@ -0,0 +1,217 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.ExceptionList;
+import zyu19.libs.action.chain.ReadOnlyChain;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that ActionChain.allReduce() and ActionChain.allStreaming() hand over the output of every
+ * subChain as soon as it finishes.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class AllStreamingTest {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    ActionChainFactory factory = new ActionChainFactory(new ThreadPolicy(executor));
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 10000)
+    public void TestSumOfManySubChains() throws InterruptedException {
+        final int numSubChains = 20000;
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long[] sum = new long[]{-1};
+
+        factory.get(error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> {
+            List<Object> subChains = new ArrayList<>();
+            for (int i = 0; i < numSubChains; i++) {
+                final int index = i;
+                // mix subChains with plain objects
+                subChains.add(index % 3 == 0 ? index : factory.get().netThen(() -> index).start());
+            }
+            return ActionChain.allReduce(subChains, true, 0L, (Long acc, Integer x) -> acc + x);
+        }).start((Long obj) -> {
+            sum[0] = obj;
+            latch.countDown();
+        });
+
+        Assert.assertTrue(latch.await(9, TimeUnit.SECONDS));
+        Assert.assertEquals((long) numSubChains * (numSubChains - 1) / 2, sum[0]);
+    }
+
+    @Test(timeout = 5000)
+    public void TestFirstResultBeforeSlowestSubChain() throws InterruptedException {
+        final CountDownLatch slowCanFinish = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final List<Object> seen = Collections.synchronizedList(new ArrayList<>());
+
+        factory.get(error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> {
+            ReadOnlyChain slow = factory.get().netThen(() -> {
+                slowCanFinish.await();
+                return "slow";
+            }).start();
+            ReadOnlyChain fast = factory.get().netThen(() -> "fast").start();
+            return ActionChain.allStreaming(Arrays.asList(slow, fast), true, (String output) -> {
+                seen.add(output);
+                // the slow subChain is only allowed to finish once the fast one has been streamed
+                slowCanFinish.countDown();
+            });
+        }).start(obj -> {
+            Assert.assertNull(obj);
+            latch.countDown();
+        });
+
+        Assert.assertTrue(latch.await(4, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("fast", "slow"), seen);
+    }
+
+    @Test(timeout = 5000)
+    public void TestStreamOnMainThread() {
+        final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+        final Thread mainThread = Thread.currentThread();
+        final ThreadPolicy threadPolicy = new ThreadPolicy(queue::add, executor);
+        final AtomicInteger numStreamed = new AtomicInteger(0);
+        final AtomicInteger numWrongThread = new AtomicInteger(0);
+        final AtomicBoolean finished = new AtomicBoolean(false);
+        final int numSubChains = 200;
+
+        new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> {
+            List<ReadOnlyChain> subChains = new ArrayList<>();
+            for (int i = 0; i < numSubChains; i++) {
+                final int index = i;
+                subChains.add(new ActionChain(threadPolicy).netThen(() -> index).start());
+            }
+            return ActionChain.allStreaming(subChains, false, (Integer output) -> {
+                if (Thread.currentThread() != mainThread)
+                    numWrongThread.incrementAndGet();
+                numStreamed.incrementAndGet();
+            });
+        }).start(obj -> finished.set(true));
+
+        // Simulate the Android Looper class
+        while (!finished.get())
+            try {
+                queue.take().run();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+
+        Assert.assertEquals(numSubChains, numStreamed.get());
+        Assert.assertEquals(0, numWrongThread.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestReducerThrows() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Exception expected = new Exception("expected");
+        final AtomicInteger numCalls = new AtomicInteger(0);
+
+        factory.get(error -> {
+            Assert.assertSame(expected, error.getCause());
+            latch.countDown();
+        }).netThen(() -> {
+            List<ReadOnlyChain> subChains = new ArrayList<>();
+            for (int i = 0; i < 10; i++)
+                subChains.add(factory.get().netThen(() -> 1).start());
+            return ActionChain.allReduce(subChains, true, 0, (Integer acc, Integer x) -> {
+                numCalls.incrementAndGet();
+                throw expected;
+            });
+        }).start(obj -> Assert.fail("should not have succeeded"));
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        Assert.assertEquals(1, numCalls.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestSubChainFails() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Exception expected = new Exception("expected");
+
+        factory.get(error -> latch.countDown()
+        ).netThen(() -> ActionChain.allReduce(Arrays.asList(
+                factory.get().netThen(() -> 1).start(),
+                factory.get().netThen(() -> {
+                    throw expected;
+                }).start()), true, 0, (Integer acc, Integer x) -> acc + x)
+        ).start(obj -> Assert.fail("should not have succeeded"));
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestFailedSubChainCancelsTheOthers() throws Exception {
+        final CountDownLatch mayGoOn = new CountDownLatch(1);
+        final CountDownLatch hasThrown = new CountDownLatch(1);
+        final Exception expected = new Exception("expected");
+        final ReadOnlyChain running = factory.get().netThen(() -> {
+            mayGoOn.await();
+            return 1;
+        }).start();
+
+        // no error handler: the failure is found while the join is set up, and nobody can retry it
+        final ReadOnlyChain chain = factory.get().netThen(() -> {
+            final ReadOnlyChain failed = factory.get().netThen(() -> {
+                hasThrown.countDown();
+                throw expected;
+            }).start();
+            hasThrown.await();
+            Thread.sleep(50);
+            return ActionChain.allReduce(Arrays.asList(failed, running), true, 0, (Integer acc, Integer x) -> acc + x);
+        }).start();
+        try {
+            chain.await();
+            Assert.fail("should have thrown");
+        } catch (ExceptionList err) {
+            Assert.assertSame(expected, err.getAllCauses().get(0));
+        }
+        // the subChain is cancelled once the error has been published, so this may come first
+        try {
+            running.await();
+            Assert.fail("should have been cancelled");
+        } catch (CancellationException err) {
+            // expected
+        }
+        mayGoOn.countDown();
+    }
+
+    @Test(timeout = 2000)
+    public void TestNoSubChains() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        factory.get(error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> ActionChain.allReduce(Collections.emptyList(), true, "initial", (String acc, Object x) -> acc + x)
+        ).start((String obj) -> {
+            Assert.assertEquals("initial", obj);
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+}
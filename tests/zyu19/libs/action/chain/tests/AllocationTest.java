@@ -0,0 +1,85 @@
+package zyu19.libs.action.chain.tests;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that an action returning an ordinary value (not a DotAll or a ReadOnlyChain) allocates
+ * nothing inside the chain: the bookkeeping for subChains is only needed when there are subChains.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class AllocationTest {
+    // the synchronized engine calls the next action recursively when there is no ThreadChanger
+    final static int numLinksLockFree = 100000;
+    final static int numLinksSynchronized = 200;
+    // the plain links allocate nothing at all: even a single 16 byte object per link would take numLinks * 16 bytes
+    final static long toleratedBytes = 0;
+    final static int numRuns = 3;
+
+    ExecutorService executor = Executors.newCachedThreadPool();
+    com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    long allocatedBytes() {
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return the bytes allocated by the calling thread between the first and the last action of a chain
+     * made of numLinks plain actions. The whole chain runs inline, since there is no ThreadChanger.
+     */
+    long measurePlainLinks(ChainEngine engine, int numLinks) {
+        final long[] bytes = new long[2];
+        ActionChain chain = new ActionChain(new ThreadPolicy(executor).setEngine(engine),
+                error -> Assert.fail(error.getCause().toString())
+        ).uiThen(() -> bytes[0] = allocatedBytes());
+        for (int i = 0; i < numLinks; i++)
+            chain.uiThen((Object obj) -> obj);
+        chain.uiThen(() -> bytes[1] = allocatedBytes());
+        chain.start();
+        return bytes[1] - bytes[0];
+    }
+
+    void runTest(ChainEngine engine, int numLinks) {
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        // the first runs load classes and set up thread locals
+        measurePlainLinks(engine, 0);
+        measurePlainLinks(engine, numLinks);
+        // what the measurement itself allocates (the output of the first action...), with no plain link at all
+        final long baseline = measurePlainLinks(engine, 0);
+        // the best of a few runs, as the JIT compiler may allocate on this thread in the middle of one
+        long bytes = Long.MAX_VALUE;
+        for (int run = 0; run < numRuns; run++)
+            bytes = Math.min(bytes, measurePlainLinks(engine, numLinks) - baseline);
+        Assert.assertTrue(engine + ": " + bytes + " bytes allocated by " + numLinks + " plain links (at most "
+                + toleratedBytes + " allowed)", bytes <= toleratedBytes);
+    }
+
+    @Test(timeout = 2000)
+    public void TestLockFreeEngine() {
+        runTest(ChainEngine.LOCK_FREE, numLinksLockFree);
+    }
+
+    @Test(timeout = 2000)
+    public void TestSynchronizedEngine() {
+        runTest(ChainEngine.SYNCHRONIZED, numLinksSynchronized);
+    }
+}
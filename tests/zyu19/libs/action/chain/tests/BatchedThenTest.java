@@ -0,0 +1,136 @@
+package zyu19.libs.action.chain.tests;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.Batcher;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that batchedThen() merges the inputs of concurrent chains, and gives each chain its own output or error.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class BatchedThenTest {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    ThreadPolicy threadPolicy = new ThreadPolicy(executor);
+    List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    Batcher<Integer, Integer> doubler(int maxSize, long maxDelayMillis) {
+        return new Batcher<>((List<Integer> inputs) -> {
+            batchSizes.add(inputs.size());
+            final List<Integer> outputs = new ArrayList<>();
+            for (Integer input : inputs)
+                outputs.add(input * 2);
+            return outputs;
+        }, maxSize, maxDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void runChains(Batcher<Integer, Integer> batcher, int numChains) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(numChains);
+        for (int i = 0; i < numChains; i++) {
+            final int input = i;
+            new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+            ).netThen(() -> input).batchedThen(batcher).start(obj -> {
+                Assert.assertEquals(input * 2, obj);
+                latch.countDown();
+            });
+        }
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestMergedByDelay() throws InterruptedException {
+        runChains(doubler(100, 100), 10);
+        Assert.assertEquals(Collections.singletonList(10), batchSizes);
+    }
+
+    @Test(timeout = 2000)
+    public void TestMergedBySize() throws InterruptedException {
+        runChains(doubler(4, 200), 10);
+        int total = 0;
+        for (int size : batchSizes) {
+            Assert.assertTrue(size <= 4);
+            total += size;
+        }
+        Assert.assertEquals(10, total);
+        Assert.assertTrue(batchSizes.contains(4));
+    }
+
+    @Test(timeout = 2000)
+    public void TestBatchFailureFailsEveryChain() throws InterruptedException {
+        final int numChains = 5;
+        final CountDownLatch latch = new CountDownLatch(numChains);
+        final IOException expected = new IOException("bulk endpoint down");
+        final Batcher<Integer, Integer> batcher = new Batcher<>((List<Integer> inputs) -> {
+            throw expected;
+        }, 100, 20, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < numChains; i++)
+            new ActionChain(threadPolicy, error -> {
+                Assert.assertSame(expected, error.getCause());
+                latch.countDown();
+            }).netThen(() -> 1).batchedThen(batcher).start(obj -> Assert.fail("should not have succeeded"));
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestFailSingleInput() throws InterruptedException {
+        final int numChains = 6;
+        final CountDownLatch latch = new CountDownLatch(numChains);
+        final AtomicInteger numFailed = new AtomicInteger(0);
+        final Batcher<Integer, Object> batcher = new Batcher<>((List<Integer> inputs) -> {
+            final List<Object> outputs = new ArrayList<>();
+            for (Integer input : inputs)
+                outputs.add(input % 2 == 0 ? (Object) input : new IOException("odd " + input));
+            return outputs;
+        }, 100, 20, TimeUnit.MILLISECONDS);
+
+        for (int i = 0; i < numChains; i++) {
+            final int input = i;
+            new ActionChain(threadPolicy, error -> {
+                Assert.assertEquals("odd " + input, error.getCause().getMessage());
+                numFailed.incrementAndGet();
+                latch.countDown();
+            }).netThen(() -> input).batchedThen(batcher).start(obj -> {
+                Assert.assertEquals(input, obj);
+                latch.countDown();
+            });
+        }
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(numChains / 2, numFailed.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestSynchronizedEngine() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Exception> cause = new AtomicReference<>();
+        threadPolicy.setEngine(ChainEngine.SYNCHRONIZED);
+        new ActionChain(threadPolicy, error -> {
+            cause.set(error.getCause());
+            latch.countDown();
+        }).netThen(() -> 1).batchedThen(doubler(10, 10)).start();
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(cause.get() instanceof UnsupportedOperationException);
+    }
+}
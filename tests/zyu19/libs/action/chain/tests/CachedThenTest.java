@@ -0,0 +1,133 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.LruCache;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that cachedThen() skips its action (and the move to a worker thread) on a hit,
+ * and that LruCache evicts by size and by age.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class CachedThenTest {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    AtomicInteger numWorkerTasks = new AtomicInteger(0);
+    AtomicInteger numKeys = new AtomicInteger(0);
+    ThreadPolicy threadPolicy = new ThreadPolicy(executor) {
+        @Override
+        public void runWorker(Runnable operation) {
+            numWorkerTasks.incrementAndGet();
+            super.runWorker(operation);
+        }
+    };
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    // await() needs the lock-free engine
+    Object lookup(LruCache<String, Integer> cache, AtomicInteger numRuns, String input) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Object> output = new AtomicReference<>();
+        new ActionChain(threadPolicy).uiThen(() -> input).cachedThen((String in) -> {
+            numKeys.incrementAndGet();
+            return in;
+        }, cache, (String in) -> {
+            numRuns.incrementAndGet();
+            return in.length();
+        }).start(obj -> {
+            output.set(obj);
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        return output.get();
+    }
+
+    void checkHitSkipsAction() throws Exception {
+        final LruCache<String, Integer> cache = new LruCache<>(100);
+        final AtomicInteger numRuns = new AtomicInteger(0);
+
+        Assert.assertEquals(5, lookup(cache, numRuns, "hello"));
+        Assert.assertEquals(1, numWorkerTasks.get());
+        Assert.assertEquals("A miss must compute the key once", 1, numKeys.get());
+
+        Assert.assertEquals(5, lookup(cache, numRuns, "hello"));
+        Assert.assertEquals(5, lookup(cache, numRuns, "hello"));
+        Assert.assertEquals(1, numRuns.get());
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+
+        Assert.assertEquals(3, lookup(cache, numRuns, "bye"));
+        Assert.assertEquals(2, numRuns.get());
+        Assert.assertEquals(4, numKeys.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestHitSkipsAction() throws Exception {
+        checkHitSkipsAction();
+        Assert.assertEquals("A hit must not move to a worker thread", 2, numWorkerTasks.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestHitSkipsActionSynchronized() throws Exception {
+        threadPolicy.setEngine(ChainEngine.SYNCHRONIZED);
+        checkHitSkipsAction();
+    }
+
+    @Test(timeout = 2000)
+    public void TestSubChainsAreNotCached() throws Exception {
+        final LruCache<String, Object> cache = new LruCache<>(100);
+        final AtomicInteger numRuns = new AtomicInteger(0);
+        for (int i = 0; i < 3; i++) {
+            final Object output = new ActionChain(threadPolicy).cachedThen((Object in) -> "key", cache, in -> {
+                numRuns.incrementAndGet();
+                return new ActionChain(threadPolicy).netThen(() -> 42).start();
+            }).start().await();
+            Assert.assertEquals(42, output);
+        }
+        Assert.assertEquals(3, numRuns.get());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void TestLruEviction() {
+        final LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        Assert.assertEquals(Integer.valueOf(1), cache.get("a"));
+        // "b" is now the least recently used entry
+        cache.put("c", 3);
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals(Integer.valueOf(1), cache.get("a"));
+        Assert.assertEquals(Integer.valueOf(3), cache.get("c"));
+        Assert.assertEquals(1, cache.getEvictions());
+        Assert.assertEquals(3, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void TestTimeToLive() throws InterruptedException {
+        final LruCache<String, Integer> cache = new LruCache<>(10, 50, TimeUnit.MILLISECONDS);
+        cache.put("a", 1);
+        Assert.assertEquals(Integer.valueOf(1), cache.get("a"));
+        Thread.sleep(100);
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1, cache.getEvictions());
+    }
+}
@@ -0,0 +1,173 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ReadOnlyChain;
+import zyu19.libs.action.chain.config.CancellationToken;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that ReadOnlyChain.cancel() stops a chain and the subChains it is waiting for, on both engines.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class CancelTest {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    ThreadPolicy threadPolicy(ChainEngine engine) {
+        final ThreadPolicy threadPolicy = new ThreadPolicy(executor);
+        threadPolicy.setEngine(engine);
+        return threadPolicy;
+    }
+
+    /**
+     * A chain whose first action waits for mayGoOn, and whose second action counts down wentOn.
+     */
+    ReadOnlyChain blocked(ThreadPolicy threadPolicy, CountDownLatch started, CountDownLatch mayGoOn,
+                          CountDownLatch wentOn, AtomicBoolean sawCancel) {
+        return new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> {
+            final CancellationToken token = ActionChain.currentToken();
+            started.countDown();
+            mayGoOn.await();
+            sawCancel.set(token.isCancelled());
+            return 1;
+        }).netThen(() -> {
+            wentOn.countDown();
+            return 2;
+        }).start(obj -> wentOn.countDown());
+    }
+
+    void checkCancelStopsLinks(ChainEngine engine) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch mayGoOn = new CountDownLatch(1);
+        final CountDownLatch wentOn = new CountDownLatch(1);
+        final AtomicBoolean sawCancel = new AtomicBoolean(false);
+        final ReadOnlyChain chain = blocked(threadPolicy(engine), started, mayGoOn, wentOn, sawCancel);
+
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+        Assert.assertFalse(chain.isCancelled());
+        executor.execute(chain::cancel);
+        Thread.sleep(50);
+        mayGoOn.countDown();
+
+        Assert.assertFalse("An action ran after cancel()", wentOn.await(200, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(sawCancel.get());
+        Assert.assertTrue(chain.isCancelled());
+        Assert.assertFalse(chain.cancel());
+    }
+
+    @Test(timeout = 2000)
+    public void TestCancelStopsLinks() throws InterruptedException {
+        checkCancelStopsLinks(ChainEngine.LOCK_FREE);
+    }
+
+    @Test(timeout = 2000)
+    public void TestCancelStopsLinksSynchronized() throws InterruptedException {
+        checkCancelStopsLinks(ChainEngine.SYNCHRONIZED);
+    }
+
+    void checkCancelPropagates(ChainEngine engine) throws InterruptedException {
+        final ThreadPolicy threadPolicy = threadPolicy(engine);
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch mayGoOn = new CountDownLatch(1);
+        final CountDownLatch wentOn = new CountDownLatch(1);
+        final AtomicBoolean sawCancel = new AtomicBoolean(false);
+        final ReadOnlyChain[] subChains = new ReadOnlyChain[2];
+
+        final ReadOnlyChain parent = new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> {
+            subChains[0] = blocked(threadPolicy, started, mayGoOn, wentOn, sawCancel);
+            subChains[1] = blocked(threadPolicy, started, mayGoOn, wentOn, sawCancel);
+            return ActionChain.all(subChains[0], subChains[1]);
+        }).start(obj -> Assert.fail("should not have succeeded"));
+
+        Assert.assertTrue(started.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        Assert.assertTrue(parent.cancel());
+        mayGoOn.countDown();
+
+        Assert.assertFalse("A subChain went on after cancel()", wentOn.await(200, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(subChains[0].isCancelled());
+        Assert.assertTrue(subChains[1].isCancelled());
+    }
+
+    @Test(timeout = 2000)
+    public void TestCancelPropagatesToSubChains() throws InterruptedException {
+        checkCancelPropagates(ChainEngine.LOCK_FREE);
+    }
+
+    @Test(timeout = 2000)
+    public void TestCancelPropagatesToSubChainsSynchronized() throws InterruptedException {
+        checkCancelPropagates(ChainEngine.SYNCHRONIZED);
+    }
+
+    @Test(timeout = 2000)
+    public void TestCancelledSubChainFailsParent() throws InterruptedException {
+        final ThreadPolicy threadPolicy = threadPolicy(ChainEngine.LOCK_FREE);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CountDownLatch mayGoOn = new CountDownLatch(1);
+        final AtomicReference<Exception> cause = new AtomicReference<>();
+        final ReadOnlyChain subChain = new ActionChain(threadPolicy).netThen(() -> {
+            mayGoOn.await();
+            return 1;
+        }).start();
+
+        new ActionChain(threadPolicy, error -> {
+            cause.set(error.getCause());
+            latch.countDown();
+        }).netThen(() -> subChain).start(obj -> Assert.fail("should not have succeeded"));
+
+        Thread.sleep(50);
+        subChain.cancel();
+        mayGoOn.countDown();
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(cause.get() instanceof CancellationException);
+    }
+
+    @Test(timeout = 2000)
+    public void TestAwaitThrowsOnCancel() throws Exception {
+        final CountDownLatch mayGoOn = new CountDownLatch(1);
+        final ReadOnlyChain chain = new ActionChain(threadPolicy(ChainEngine.LOCK_FREE)).netThen(() -> {
+            mayGoOn.await();
+            return 1;
+        }).start();
+        executor.execute(() -> {
+            chain.cancel();
+            mayGoOn.countDown();
+        });
+        try {
+            chain.await();
+            Assert.fail("await() should have thrown");
+        } catch (CancellationException e) {
+            // expected
+        }
+    }
+
+    @Test(timeout = 2000)
+    public void TestCancelAfterFinish() throws Exception {
+        final ReadOnlyChain chain = new ActionChain(threadPolicy(ChainEngine.LOCK_FREE)).netThen(() -> 1).start();
+        Assert.assertEquals(1, chain.await());
+        Assert.assertFalse(chain.cancel());
+        Assert.assertFalse(chain.isCancelled());
+        Assert.assertSame(CancellationToken.NONE, ActionChain.currentToken());
+    }
+}
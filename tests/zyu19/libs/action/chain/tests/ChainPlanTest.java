@@ -0,0 +1,111 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ChainPlan;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that a compiled ChainPlan can be started many times, and that one execution of a plan
+ * never changes the others.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class ChainPlanTest {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void TestConcurrentStarts() throws InterruptedException {
+        final int numStarts = 4000;
+        final CountDownLatch latch = new CountDownLatch(numStarts);
+        final AtomicInteger wrongAnswers = new AtomicInteger(0);
+        final ChainPlan plan = new ActionChain(new ThreadPolicy(executor), error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> 1).netThen((Integer obj) -> obj + 1).uiThen((Integer obj) -> obj * 10).compile();
+
+        for (int i = 0; i < numStarts; i++)
+            executor.submit(() -> plan.start((Integer obj) -> {
+                if (obj != 20)
+                    wrongAnswers.incrementAndGet();
+                latch.countDown();
+            }));
+
+        Assert.assertTrue("Some executions never finished", latch.await(4, TimeUnit.SECONDS));
+        Assert.assertEquals(0, wrongAnswers.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestPlanIsFrozen() {
+        final AtomicInteger output = new AtomicInteger(0);
+        // no ThreadChanger: everything runs inline
+        ActionChain chain = new ActionChain(new ThreadPolicy(executor)).uiThen(() -> 1);
+        ChainPlan plan = chain.compile();
+        Assert.assertSame(plan, chain.compile());
+
+        chain.uiThen((Integer obj) -> obj + 1);
+        Assert.assertNotSame(plan, chain.compile());
+        Assert.assertEquals(1, plan.size());
+
+        plan.start((Integer obj) -> output.set(obj));
+        Assert.assertEquals(1, output.get());
+        chain.start((Integer obj) -> output.set(obj));
+        Assert.assertEquals(2, output.get());
+    }
+
+    /**
+     * A parent chain lends its error handler to the subChains it waits for. That must only
+     * apply to the execution that the parent waited for, not to the plan.
+     */
+    void runInheritedHandlerTest(ChainEngine engine) {
+        // no ThreadChanger: everything runs inline
+        final ThreadPolicy threadPolicy = new ThreadPolicy(executor).setEngine(engine);
+        final AtomicBoolean shouldThrow = new AtomicBoolean(true);
+        final AtomicInteger numErrors = new AtomicInteger(0);
+        final AtomicInteger output = new AtomicInteger(0);
+
+        final ChainPlan plan = new ActionChain(threadPolicy).uiThen(() -> {
+            if (shouldThrow.getAndSet(false))
+                throw new Exception("expected");
+            return 1;
+        }).compile();
+
+        new ActionChain(threadPolicy, error -> {
+            numErrors.incrementAndGet();
+            error.retry();
+        }).uiThen(() -> plan.start()).start((Integer obj) -> output.set(obj));
+        Assert.assertEquals(1, numErrors.get());
+        Assert.assertEquals(1, output.get());
+
+        // Without a parent, nobody handles the error this time.
+        shouldThrow.set(true);
+        plan.start((Integer obj) -> output.set(obj + 1));
+        Assert.assertEquals(1, numErrors.get());
+        Assert.assertEquals(1, output.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestInheritedHandlerLockFree() {
+        runInheritedHandlerTest(ChainEngine.LOCK_FREE);
+    }
+
+    @Test(timeout = 2000)
+    public void TestInheritedHandlerSynchronized() {
+        runInheritedHandlerTest(ChainEngine.SYNCHRONIZED);
+    }
+}
@@ -0,0 +1,226 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ChainStream;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that ChainStream runs the actions of a plan as a pipeline of bounded stages: every item is
+ * delivered, the number of items in flight is bounded, and uiThen() stages run on the main thread.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class ChainStreamTest {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    ExecutorService mainThread = Executors.newSingleThreadExecutor();
+    ThreadPolicy threadPolicy = new ThreadPolicy(mainThread::execute, executor);
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+        mainThread.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void TestEveryItemDelivered() throws InterruptedException {
+        final int numItems = 10000;
+        final AtomicLong sum = new AtomicLong(0);
+        final CountDownLatch drained = new CountDownLatch(1);
+        final ChainStream<Integer> stream = new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+        ).netThen((Integer x) -> x + 1).netThen((Integer x) -> x * 2).netThen((Integer x) -> (long) x)
+                .compile().stream(16, 4, (Long x) -> sum.addAndGet(x));
+
+        for (int i = 0; i < numItems; i++)
+            stream.put(i);
+        stream.close(drained::countDown);
+        Assert.assertTrue(drained.await(4, TimeUnit.SECONDS));
+        Assert.assertEquals((long) numItems * (numItems + 1), sum.get());
+        Assert.assertEquals(0, stream.size());
+    }
+
+    @Test(timeout = 2000)
+    public void TestOrderWithoutParallelism() throws InterruptedException {
+        final List<Integer> outputs = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch drained = new CountDownLatch(1);
+        final ChainStream<Integer> stream = new ActionChain(threadPolicy)
+                .netThen((Integer x) -> x * 3).netThen((Integer x) -> x - 1)
+                .compile().stream(4, 1, (Integer x) -> outputs.add(x));
+
+        for (int i = 0; i < 100; i++)
+            stream.put(i);
+        stream.close(drained::countDown);
+        Assert.assertTrue(drained.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++)
+            Assert.assertEquals(i * 3 - 1, (int) outputs.get(i));
+    }
+
+    @Test(timeout = 2000)
+    public void TestBackpressure() throws InterruptedException {
+        final int capacity = 4;
+        final CountDownLatch gate = new CountDownLatch(1);
+        final AtomicInteger numDelivered = new AtomicInteger(0);
+        final CountDownLatch drained = new CountDownLatch(1);
+        final ChainStream<Integer> stream = new ActionChain(threadPolicy)
+                .netThen((Integer x) -> x).netThen((Integer x) -> x).netThen((Integer x) -> {
+                    gate.await();
+                    return x;
+                }).compile().stream(capacity, 2, (Integer x) -> numDelivered.incrementAndGet());
+
+        // the last stage is stuck: the stream must stop taking items once every stage is full
+        int numAccepted = 0;
+        for (int round = 0; round < 20; round++) {
+            while (stream.offer(numAccepted))
+                numAccepted++;
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(3 * capacity, numAccepted);
+        Assert.assertEquals(3 * capacity, stream.size());
+        Assert.assertEquals(0, numDelivered.get());
+
+        gate.countDown();
+        stream.close(drained::countDown);
+        Assert.assertTrue(drained.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(numAccepted, numDelivered.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestUiStage() throws Exception {
+        final Thread main = mainThread.submit(Thread::currentThread).get();
+        final AtomicInteger numOnMain = new AtomicInteger(0);
+        final CountDownLatch drained = new CountDownLatch(1);
+        final ChainStream<Integer> stream = new ActionChain(threadPolicy).netThen((Integer x) -> {
+            Assert.assertNotSame(main, Thread.currentThread());
+            return x;
+        }).uiThen((Integer x) -> {
+            if (Thread.currentThread() == main)
+                numOnMain.incrementAndGet();
+            return x;
+        }).compile().stream(8, 4, null);
+
+        for (int i = 0; i < 50; i++)
+            stream.put(i);
+        stream.close(drained::countDown);
+        Assert.assertTrue(drained.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(50, numOnMain.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestErrorHandler() throws InterruptedException {
+        final Set<Integer> failedOnce = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        final List<Integer> outputs = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch drained = new CountDownLatch(1);
+        final ChainStream<Integer> stream = new ActionChain(threadPolicy, error -> {
+            final int input = Integer.parseInt(error.getCause().getMessage());
+            if (input % 3 == 0)
+                error.retry();
+            else if (input % 3 == 1)
+                error.jumpBy(1);
+            // otherwise the item is dropped
+        }).netThen((Integer x) -> {
+            // multiples of 3 only fail once
+            if (x % 3 != 0 || failedOnce.add(x))
+                throw new IllegalStateException(String.valueOf(x));
+            return x;
+        }).netThen((Integer x) -> x * 10).compile().stream(8, 2, (Integer x) -> outputs.add(x));
+
+        for (int i = 0; i < 30; i++)
+            stream.put(i);
+        stream.close(drained::countDown);
+        Assert.assertTrue(drained.await(1, TimeUnit.SECONDS));
+        Collections.sort(outputs);
+        final List<Integer> expected = new ArrayList<>();
+        // retried until the action succeeds, or skipped to the next action with the same input
+        for (int i = 0; i < 30; i++)
+            if (i % 3 != 2)
+                expected.add(i * 10);
+        Assert.assertEquals(expected, outputs);
+    }
+
+    @Test(timeout = 2000)
+    public void TestJumpBeforeFirstStage() throws InterruptedException {
+        // like a chain that jumps out of its actions, the item leaves the stream with its current value
+        final List<Integer> outputs = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch drained = new CountDownLatch(1);
+        final ChainStream<Integer> stream = new ActionChain(threadPolicy, error -> error.jumpBy(-1)).netThen((Integer x) -> {
+            if (x % 2 == 0)
+                throw new IllegalStateException(String.valueOf(x));
+            return x * 10;
+        }).compile().stream(8, 2, (Integer x) -> outputs.add(x));
+
+        for (int i = 0; i < 10; i++)
+            stream.put(i);
+        stream.close(drained::countDown);
+        Assert.assertTrue(drained.await(1, TimeUnit.SECONDS));
+        Collections.sort(outputs);
+        Assert.assertEquals(Arrays.asList(0, 2, 4, 6, 8, 10, 30, 50, 70, 90), outputs);
+    }
+
+    @Test(timeout = 3000)
+    public void TestRetryAfterOffTimer() throws InterruptedException {
+        // without a ThreadChanger, a uiThen() stage runs wherever it is scheduled: the retry must not run on the timer
+        final ThreadPolicy inlinePolicy = new ThreadPolicy(executor);
+        final AtomicInteger attempts = new AtomicInteger(0);
+        final CountDownLatch retrying = new CountDownLatch(1);
+        final CountDownLatch drained = new CountDownLatch(1);
+        final ChainStream<Integer> stream = new ActionChain(inlinePolicy, error -> error.retryAfter(10, TimeUnit.MILLISECONDS))
+                .uiThen((Integer x) -> {
+                    if (attempts.incrementAndGet() == 1)
+                        throw new IllegalStateException("try again");
+                    retrying.countDown();
+                    Thread.sleep(1000);
+                    return x;
+                }).compile().stream(1, 1, null);
+
+        stream.put(1);
+        Assert.assertTrue(retrying.await(1, TimeUnit.SECONDS));
+        final CountDownLatch fired = new CountDownLatch(1);
+        inlinePolicy.getTimer().schedule(fired::countDown, 10, TimeUnit.MILLISECONDS);
+        Assert.assertTrue("the timer is blocked by the retried action", fired.await(500, TimeUnit.MILLISECONDS));
+        stream.close(drained::countDown);
+        Assert.assertTrue(drained.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestCancel() throws InterruptedException {
+        final CountDownLatch gate = new CountDownLatch(1);
+        final AtomicInteger numDelivered = new AtomicInteger(0);
+        final CountDownLatch drained = new CountDownLatch(1);
+        final ChainStream<Integer> stream = new ActionChain(threadPolicy).netThen((Integer x) -> {
+            gate.await();
+            return x;
+        }).compile().stream(10, 1, (Integer x) -> numDelivered.incrementAndGet());
+
+        for (int i = 0; i < 10; i++)
+            stream.put(i);
+        stream.cancel();
+        try {
+            stream.put(10);
+            Assert.fail("should have been refused");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        gate.countDown();
+        stream.close(drained::countDown);
+        Assert.assertTrue(drained.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(0, numDelivered.get());
+        Assert.assertEquals(0, stream.size());
+    }
+}
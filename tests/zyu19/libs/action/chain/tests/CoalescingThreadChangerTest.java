@@ -0,0 +1,98 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.config.CoalescingThreadChanger;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that CoalescingThreadChanger posts fewer tasks to the main thread, without
+ * changing the order of the main thread actions of each chain.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class CoalescingThreadChangerTest {
+    BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+    AtomicInteger numPosts = new AtomicInteger(0);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    CoalescingThreadChanger threadChanger = new CoalescingThreadChanger(runnable -> {
+        numPosts.incrementAndGet();
+        queue.add(runnable);
+    });
+    ThreadPolicy threadPolicy = new ThreadPolicy(threadChanger, executor);
+
+    Thread mainThread = Thread.currentThread();
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    // Simulate the Android Looper class
+    void runMainLoop(AtomicInteger numFinished, int numChains) {
+        mainThread = Thread.currentThread();
+        while (numFinished.get() < numChains || !queue.isEmpty())
+            try {
+                queue.take().run();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            } catch (RuntimeException e) {
+                // thrown by a callback, the other callbacks must go on
+            }
+    }
+
+    @Test(timeout = 5000)
+    public void TestOrderAndNumberOfPosts() {
+        final int numChains = 500;
+        final int numLinks = 6;
+        final AtomicInteger numFinished = new AtomicInteger(0);
+        final AtomicInteger numWrong = new AtomicInteger(0);
+        final AtomicInteger numMainCallbacks = new AtomicInteger(0);
+
+        for (int i = 0; i < numChains; i++) {
+            final int[] nextLink = new int[]{0};
+            ActionChain chain = new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString()));
+            for (int j = 0; j < numLinks; j++) {
+                final int thisJ = j;
+                // alternate worker and main thread actions
+                chain.thenConsume(j % 2 == 0, obj -> {
+                    if (nextLink[0]++ != thisJ || (thisJ % 2 == 1) != (Thread.currentThread() == mainThread))
+                        numWrong.incrementAndGet();
+                    if (thisJ % 2 == 1)
+                        numMainCallbacks.incrementAndGet();
+                });
+            }
+            chain.start(obj -> {
+                numMainCallbacks.incrementAndGet();
+                numFinished.incrementAndGet();
+            });
+        }
+        runMainLoop(numFinished, numChains);
+
+        Assert.assertEquals(0, numWrong.get());
+        Assert.assertEquals(numChains * (numLinks / 2 + 1), numMainCallbacks.get());
+        Assert.assertTrue(numMainCallbacks.get() + " main thread callbacks in " + numPosts.get() + " posts",
+                numPosts.get() < numMainCallbacks.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestCallbackThrows() {
+        final AtomicInteger numFinished = new AtomicInteger(0);
+        threadChanger.runCallbackOnMainThread(() -> {
+            throw new RuntimeException("expected");
+        });
+        threadChanger.runCallbackOnMainThread(() -> numFinished.incrementAndGet());
+        runMainLoop(numFinished, 1);
+        Assert.assertEquals(1, numFinished.get());
+    }
+}
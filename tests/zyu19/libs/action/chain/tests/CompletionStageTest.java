@@ -0,0 +1,137 @@
+package zyu19.libs.action.chain.tests;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.CompletionStages;
+import zyu19.libs.action.chain.ReadOnlyChain;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that an action may return a CompletionStage without blocking a worker, and that
+ * CompletionStages.toCompletableFuture() adapts a started chain.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class CompletionStageTest {
+    // a single worker: a chain blocking it while its stage is pending would stop every other chain
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    ThreadPolicy threadPolicy = new ThreadPolicy(executor);
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 2000)
+    public void TestPendingStage() throws InterruptedException {
+        final CompletableFuture<Integer> pending = new CompletableFuture<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> pending).netThen((Integer obj) -> obj + 1).start(obj -> {
+            Assert.assertEquals(42, obj);
+            latch.countDown();
+        });
+
+        // the worker must be free while the stage is pending
+        final CountDownLatch other = new CountDownLatch(1);
+        new ActionChain(threadPolicy).netThen(() -> 1).start(obj -> other.countDown());
+        Assert.assertTrue(other.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, latch.getCount());
+
+        pending.complete(41);
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestCompletedStage() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> CompletableFuture.completedFuture("done")).start(obj -> {
+            Assert.assertEquals("done", obj);
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestFailedStage() throws InterruptedException {
+        final IOException expected = new IOException("remote call failed");
+        // supplyAsync() hands on a CompletionException wrapping the error
+        final CountDownLatch latch = new CountDownLatch(1);
+        new ActionChain(threadPolicy, error -> {
+            Assert.assertSame(expected, error.getCause());
+            latch.countDown();
+        }).netThen(() -> CompletableFuture.supplyAsync(() -> {
+            throw new CompletionException(expected);
+        })).start(obj -> Assert.fail("should not have succeeded"));
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestToCompletableFuture() throws Exception {
+        final ReadOnlyChain chain = new ActionChain(threadPolicy).netThen(() -> 20).netThen((Integer obj) -> obj + 1).start();
+        final CompletableFuture<Integer> future = CompletionStages.toCompletableFuture(chain);
+        Assert.assertEquals(42, (int) future.thenApply(obj -> obj * 2).get(1, TimeUnit.SECONDS));
+
+        final IOException expected = new IOException("no handler");
+        final CompletableFuture<Object> failed = CompletionStages.toCompletableFuture(
+                new ActionChain(threadPolicy).netThen(() -> {
+                    throw expected;
+                }).start());
+        try {
+            failed.get(1, TimeUnit.SECONDS);
+            Assert.fail("should not have succeeded");
+        } catch (ExecutionException e) {
+            Assert.assertSame(expected, e.getCause());
+        }
+    }
+
+    @Test(timeout = 2000)
+    public void TestCancelFuture() throws InterruptedException {
+        final CompletableFuture<Integer> never = new CompletableFuture<>();
+        final ReadOnlyChain chain = new ActionChain(threadPolicy).netThen(() -> never).start();
+        final CompletableFuture<Object> future = CompletionStages.toCompletableFuture(chain);
+        Assert.assertTrue(future.cancel(true));
+        // cancelling the chain again is a no-op once the future has cancelled it
+        Assert.assertFalse(chain.cancel());
+
+        final ReadOnlyChain other = new ActionChain(threadPolicy).netThen(() -> never).start();
+        final CompletableFuture<Object> otherFuture = CompletionStages.toCompletableFuture(other);
+        Assert.assertTrue(other.cancel());
+        try {
+            otherFuture.join();
+            Assert.fail("should have been cancelled");
+        } catch (CancellationException e) {
+            Assert.assertTrue(otherFuture.isCancelled());
+        }
+    }
+
+    @Test(timeout = 2000)
+    public void TestSynchronizedEngine() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Exception> cause = new AtomicReference<>();
+        threadPolicy.setEngine(ChainEngine.SYNCHRONIZED);
+        new ActionChain(threadPolicy, error -> {
+            cause.set(error.getCause());
+            latch.countDown();
+        }).netThen(() -> CompletableFuture.completedFuture(1)).start();
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(cause.get() instanceof UnsupportedOperationException);
+    }
+}
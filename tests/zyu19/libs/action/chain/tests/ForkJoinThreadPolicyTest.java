@@ -0,0 +1,55 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.config.ForkJoinThreadPolicy;
+
+/**
+ * Checks that ForkJoinThreadPolicy keeps the worker thread actions of a chain on the same worker.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class ForkJoinThreadPolicyTest {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    ForkJoinThreadPolicy threadPolicy = new ForkJoinThreadPolicy(pool);
+
+    @After
+    public void AfterTests() {
+        pool.shutdownNow();
+    }
+
+    @Test(timeout = 2000)
+    public void TestChainStaysOnItsWorker() throws InterruptedException {
+        final int numLinks = 10000;
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger numSwitches = new AtomicInteger(0);
+        final AtomicInteger numOutsidePool = new AtomicInteger(0);
+        final Thread[] lastThread = new Thread[1];
+
+        ActionChain chain = new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString()));
+        for (int i = 0; i < numLinks; i++)
+            chain.netConsume(obj -> {
+                if (ForkJoinTask.getPool() != pool)
+                    numOutsidePool.incrementAndGet();
+                if (lastThread[0] != Thread.currentThread())
+                    numSwitches.incrementAndGet();
+                lastThread[0] = Thread.currentThread();
+            });
+        chain.start(obj -> latch.countDown());
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(0, numOutsidePool.get());
+        // idle workers may steal a few actions, but most of them must run where the previous one ran
+        Assert.assertTrue(numSwitches.get() + " switches", numSwitches.get() < numLinks / 10);
+    }
+}
@@ -0,0 +1,81 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.config.HashedTimerWheel;
+
+/**
+ * Checks that HashedTimerWheel never fires early, fires every pending timeout, and forgets the cancelled ones.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class HashedTimerWheelTest {
+    // a small wheel, so that most timeouts wait for several turns
+    HashedTimerWheel timer = new HashedTimerWheel(1, TimeUnit.MILLISECONDS, 64);
+
+    @After
+    public void AfterTests() {
+        timer.stop();
+    }
+
+    @Test(timeout = 10000)
+    public void TestManyTimeouts() throws InterruptedException {
+        final int numTimeouts = 200000;
+        final CountDownLatch latch = new CountDownLatch(numTimeouts);
+        final AtomicInteger numEarly = new AtomicInteger(0);
+
+        for (int i = 0; i < numTimeouts; i++) {
+            final long delayNanos = TimeUnit.MILLISECONDS.toNanos(i % 300);
+            final long scheduledAt = System.nanoTime();
+            timer.schedule(() -> {
+                if (System.nanoTime() - scheduledAt < delayNanos)
+                    numEarly.incrementAndGet();
+                latch.countDown();
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        Assert.assertTrue(latch.await(8, TimeUnit.SECONDS));
+        Assert.assertEquals(0, numEarly.get());
+        Assert.assertEquals(0, timer.getPendingTimeouts());
+    }
+
+    @Test(timeout = 5000)
+    public void TestCancel() throws InterruptedException {
+        final int numTimeouts = 10000;
+        final AtomicInteger numFired = new AtomicInteger(0);
+        final HashedTimerWheel.Timeout[] timeouts = new HashedTimerWheel.Timeout[numTimeouts];
+        for (int i = 0; i < numTimeouts; i++)
+            timeouts[i] = timer.schedule(numFired::incrementAndGet, 50 + i % 100, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < numTimeouts; i += 2)
+            Assert.assertTrue(timeouts[i].cancel());
+
+        Thread.sleep(400);
+        Assert.assertEquals(numTimeouts / 2, numFired.get());
+        Assert.assertEquals(0, timer.getPendingTimeouts());
+        Assert.assertFalse("An expired timeout cannot be cancelled", timeouts[1].cancel());
+        Assert.assertTrue(timeouts[0].isCancelled());
+        Assert.assertTrue(timeouts[1].isExpired());
+    }
+
+    @Test(timeout = 2000)
+    public void TestWakesUpAfterIdle() throws InterruptedException {
+        final CountDownLatch first = new CountDownLatch(1);
+        timer.schedule(first::countDown, 10, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(first.await(500, TimeUnit.MILLISECONDS));
+
+        // the thread of the wheel sleeps now
+        Thread.sleep(100);
+        final CountDownLatch second = new CountDownLatch(1);
+        final long scheduledAt = System.nanoTime();
+        timer.schedule(second::countDown, 20, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(second.await(500, TimeUnit.MILLISECONDS));
+        Assert.assertTrue(System.nanoTime() - scheduledAt >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+}
@@ -0,0 +1,124 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that link fusion saves the hops between actions on the same thread, without changing
+ * the order of actions or the threads they run on.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class LinkFusionTest {
+    BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
+    AtomicInteger numWorkerTasks = new AtomicInteger(0);
+    AtomicInteger numMainTasks = new AtomicInteger(0);
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>()) {
+        @Override
+        public void execute(Runnable command) {
+            numWorkerTasks.incrementAndGet();
+            super.execute(command);
+        }
+    };
+    ThreadPolicy threadPolicy = new ThreadPolicy(runnable -> {
+        numMainTasks.incrementAndGet();
+        queue.add(runnable);
+    }, executor);
+
+    Thread mainThread = Thread.currentThread();
+    AtomicBoolean finished = new AtomicBoolean(false);
+
+    public void updateMainThread(Thread thread) {
+        mainThread = thread;
+    }
+
+    public boolean isMainThread() {
+        return Thread.currentThread() == mainThread;
+    }
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    public void StartTests() {
+        // Simulate the Android Looper class
+        while (!finished.get() || !queue.isEmpty())
+            try {
+                queue.take().run();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+    }
+
+    ActionChain buildWorkerChain(int length) {
+        ActionChain chain = new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> 0);
+        for (int i = 1; i < length; i++)
+            chain.netThen((Integer input) -> {
+                queue.add(() -> Assert.assertFalse(isMainThread()));
+                return input + 1;
+            });
+        return chain;
+    }
+
+    @Test(timeout = 2000)
+    public void TestWithoutFusion() {
+        buildWorkerChain(10).start((Integer output) -> {
+            Assert.assertEquals(9, (int) output);
+            finished.set(true);
+        });
+        StartTests();
+        Assert.assertEquals(10, numWorkerTasks.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestFusedWorkerLinks() {
+        threadPolicy.setMaxLinksPerTask(4);
+        buildWorkerChain(10).start((Integer output) -> {
+            Assert.assertEquals(9, (int) output);
+            finished.set(true);
+        });
+        StartTests();
+        // 10 actions, at most 4 in each task
+        Assert.assertEquals(3, numWorkerTasks.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestFusionKeepsThreadsAndOrder() {
+        threadPolicy.setMaxLinksPerTask(Integer.MAX_VALUE);
+        final StringBuilder ansBuilder = new StringBuilder();
+        ActionChain chain = new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString()));
+        final String lanes = "nnnuuunnuunu";
+        for (int i = 0; i < lanes.length(); i++) {
+            final int thisI = i;
+            final boolean onWorker = lanes.charAt(i) == 'n';
+            chain.thenConsume(onWorker, obj -> {
+                final boolean testResult = isMainThread() != onWorker;
+                queue.add(() -> Assert.assertTrue(testResult));
+                ansBuilder.append(thisI).append(",");
+            });
+        }
+        updateMainThread(Thread.currentThread());
+        chain.start(obj -> finished.set(true));
+        StartTests();
+
+        Assert.assertEquals("0,1,2,3,4,5,6,7,8,9,10,11,", ansBuilder.toString());
+        // one task for each group of actions on the same thread: nnn uuu nn uu n u
+        Assert.assertEquals(3, numWorkerTasks.get());
+        // plus onSuccess on the main thread
+        Assert.assertEquals(4, numMainTasks.get());
+    }
+}
@@ -0,0 +1,181 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.ReadOnlyChain;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Runs many chains at the same time on the lock-free engine, so that subChains finish
+ * while their parents are still pausing.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class LockFreeEngineTest {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    ThreadPolicy threadPolicy = new ThreadPolicy(executor).setEngine(ChainEngine.LOCK_FREE);
+    ActionChainFactory factory = new ActionChainFactory(threadPolicy);
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void TestManyChainsWithSubChains() throws InterruptedException {
+        final int numChains = 2000;
+        final int numSubChains = 4;
+        final CountDownLatch latch = new CountDownLatch(numChains);
+        final AtomicInteger wrongAnswers = new AtomicInteger(0);
+
+        for (int i = 0; i < numChains; i++) {
+            final int thisI = i;
+            factory.get(error -> Assert.fail(error.getCause().toString())
+            ).netThen(() -> {
+                List<Object> subChains = new ArrayList<>();
+                for (int j = 0; j < numSubChains; j++) {
+                    final int thisJ = j;
+                    subChains.add(factory.get().netThen(() -> thisJ).netThen((Integer obj) -> obj + thisI).start());
+                }
+                return ActionChain.all(subChains);
+            }).netThen((List<Object> obj) -> {
+                int sum = 0;
+                for (Object val : obj)
+                    sum += (Integer) val;
+                return sum;
+            }).start((Integer sum) -> {
+                if (sum != numSubChains * thisI + (numSubChains - 1) * numSubChains / 2)
+                    wrongAnswers.incrementAndGet();
+                latch.countDown();
+            });
+        }
+
+        Assert.assertTrue("Some chains never finished", latch.await(4, TimeUnit.SECONDS));
+        Assert.assertEquals(0, wrongAnswers.get());
+    }
+
+    @Test(timeout = 10000)
+    public void TestHugeFanOut() throws InterruptedException {
+        final int numSubChains = 100000;
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        factory.get(error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> {
+            List<Object> subChains = new ArrayList<>();
+            for (int i = 0; i < numSubChains; i++) {
+                final int thisI = i;
+                // mix subChains that are still running with values and finished subChains
+                if (i % 3 == 0)
+                    subChains.add(thisI);
+                else subChains.add(factory.get().netThen(() -> thisI).start());
+            }
+            return ActionChain.all(subChains);
+        }).start((List<Object> obj) -> {
+            Assert.assertEquals(numSubChains, obj.size());
+            for (int i = 0; i < numSubChains; i++)
+                Assert.assertEquals(i, (int) (Integer) obj.get(i));
+            latch.countDown();
+        });
+
+        Assert.assertTrue(latch.await(9, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void TestParentHandlerRetriesSubChains() throws InterruptedException {
+        final int numChains = 500;
+        final CountDownLatch latch = new CountDownLatch(numChains);
+        final AtomicInteger numErrors = new AtomicInteger(0);
+
+        for (int i = 0; i < numChains; i++) {
+            final boolean[] hasThrown = new boolean[]{false};
+            factory.get(error -> {
+                numErrors.incrementAndGet();
+                error.retry();
+            }).netThen(() -> factory.get().netThen(() -> {
+                if (!hasThrown[0]) {
+                    hasThrown[0] = true;
+                    throw new Exception();
+                }
+                return 1;
+            }).start()).start((Integer obj) -> {
+                Assert.assertEquals(1, (int) obj);
+                latch.countDown();
+            });
+        }
+
+        Assert.assertTrue("Some chains never finished", latch.await(4, TimeUnit.SECONDS));
+        Assert.assertEquals(numChains, numErrors.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestAwait() throws Exception {
+        ReadOnlyChain chain = factory.get().netThen(() -> {
+            Thread.sleep(100);
+            return 1;
+        }).netThen((Integer obj) -> obj + 1).start();
+        Assert.assertEquals(2, chain.await());
+        // a finished chain returns its output right away
+        Assert.assertEquals(2, chain.await());
+
+        final Exception expected = new Exception("expected");
+        try {
+            factory.get().netThen(() -> {
+                Thread.sleep(100);
+                throw expected;
+            }).start().await();
+            Assert.fail("should have thrown");
+        } catch (Exception err) {
+            Assert.assertSame(expected, err);
+        }
+    }
+
+    @Test(timeout = 2000)
+    public void TestAwaitHandledError() throws Exception {
+        final AtomicInteger numErrors = new AtomicInteger(0);
+        ReadOnlyChain chain = factory.get(error -> {
+            numErrors.incrementAndGet();
+            error.retry();
+        }).netThen(() -> {
+            if (numErrors.get() < 3)
+                throw new Exception();
+            return numErrors.get();
+        }).start();
+        Assert.assertEquals(3, chain.await());
+    }
+
+    @Test(timeout = 2000)
+    public void TestAwaitMainThreadSubChain() throws Exception {
+        // without a ThreadChanger, the subChain is queued on the thread that runs the action calling await()
+        ReadOnlyChain chain = factory.get().uiThen(() -> factory.get().uiThen(() -> 1).uiThen((Integer obj) -> obj + 1).start().await()
+        ).start();
+        Assert.assertEquals(2, chain.await());
+    }
+
+    @Test(timeout = 2000)
+    public void TestSubChainOnAnotherEngine() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ThreadPolicy synchronizedPolicy = new ThreadPolicy(executor).setEngine(ChainEngine.SYNCHRONIZED);
+
+        factory.get(error -> {
+            Assert.assertTrue(error.getCause() instanceof IllegalStateException);
+            latch.countDown();
+        }).netThen(() -> new ActionChain(synchronizedPolicy).netThen(() -> 1).start()
+        ).start(obj -> Assert.fail("should not have succeeded"));
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,173 @@
+package zyu19.libs.action.chain.tests;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.IntChain;
+import zyu19.libs.action.chain.TActionChainFactory;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that IntChain, LongChain and DoubleChain pass their values on correctly, on every thread and on both
+ * engines, and that their links allocate nothing with the lock-free engine.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class PrimitiveChainTest {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    ThreadPolicy threadPolicy = new ThreadPolicy(executor);
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    void checkTypes(ChainEngine engine) throws InterruptedException {
+        final TActionChainFactory factory = new TActionChainFactory(threadPolicy.setEngine(engine));
+        final CountDownLatch latch = new CountDownLatch(3);
+        final AtomicReference<Object> ints = new AtomicReference<>();
+        final AtomicReference<Object> longs = new AtomicReference<>();
+        final AtomicReference<Object> doubles = new AtomicReference<>();
+
+        factory.get(error -> Assert.fail(error.getCause().toString())).netThen(obj -> "12345")
+                .netMapToInt(Integer::parseInt).uiMap(x -> x * 2).netMap(x -> x + 1).start(ans -> {
+            ints.set(ans);
+            latch.countDown();
+        });
+        factory.get(error -> Assert.fail(error.getCause().toString()))
+                .netMapToLong(obj -> Integer.MAX_VALUE).netMap(x -> x * 4).start(ans -> {
+            longs.set(ans);
+            latch.countDown();
+        });
+        factory.get(error -> Assert.fail(error.getCause().toString()))
+                .netMapToInt(obj -> 3).asLongChain().uiMap(x -> x << 40).asDoubleChain().netMap(x -> x / 2 + 0.25)
+                .netMapToObj(x -> "" + x).start(ans -> {
+            doubles.set(ans);
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(24691, ints.get());
+        Assert.assertEquals(Integer.MAX_VALUE * 4L, longs.get());
+        Assert.assertEquals("" + ((3L << 40) / 2 + 0.25), doubles.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestLockFreeEngine() throws InterruptedException {
+        checkTypes(ChainEngine.LOCK_FREE);
+    }
+
+    @Test(timeout = 2000)
+    public void TestSynchronizedEngine() throws InterruptedException {
+        checkTypes(ChainEngine.SYNCHRONIZED);
+    }
+
+    @Test(timeout = 2000)
+    public void TestBoxedAndJoined() throws InterruptedException {
+        // the value kept in the chain is boxed for an object action, and for a chain waiting for this one
+        final TActionChainFactory factory = new TActionChainFactory(threadPolicy);
+        final CountDownLatch latch = new CountDownLatch(1);
+        new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())).netThen(() -> ActionChain.all(
+                factory.get().netMapToInt(obj -> 1000).netMap(x -> x + 1).start(),
+                factory.get().netMapToDouble(obj -> 0.5).boxed().netThen((Double x) -> x * 3).start()
+        )).start((List<Object> outputs) -> {
+            Assert.assertEquals(Arrays.<Object>asList(1001, 1.5), outputs);
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    void checkBackToPrimitive(ChainEngine engine) throws InterruptedException {
+        // boxed() adds no link, so the next numeric link reads the output of a numeric link as an object
+        final TActionChainFactory factory = new TActionChainFactory(threadPolicy.setEngine(engine));
+        final CountDownLatch latch = new CountDownLatch(2);
+        final AtomicReference<Object> longs = new AtomicReference<>();
+        final AtomicReference<Object> doubles = new AtomicReference<>();
+        factory.get(error -> Assert.fail(error.getCause().toString())).netMapToInt(obj -> 1000).netMap(x -> x + 1)
+                .boxed().netMapToLong((Integer x) -> x * 2L).uiMap(x -> x + 1).start(ans -> {
+            longs.set(ans);
+            latch.countDown();
+        });
+        factory.get(error -> Assert.fail(error.getCause().toString())).netMapToLong(obj -> 7L)
+                .netMapToObj(x -> "" + x).netMapToDouble((String x) -> Double.parseDouble(x) / 2).start(ans -> {
+            doubles.set(ans);
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(2003L, longs.get());
+        Assert.assertEquals(3.5, doubles.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestBackToPrimitive() throws InterruptedException {
+        checkBackToPrimitive(ChainEngine.LOCK_FREE);
+        checkBackToPrimitive(ChainEngine.SYNCHRONIZED);
+    }
+
+    @Test(timeout = 2000)
+    public void TestRetry() throws InterruptedException {
+        // a retried link reads the same input, since the failed attempt has not written its output
+        final AtomicInteger attempts = new AtomicInteger(0);
+        final AtomicReference<Integer> result = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final IntChain chain = new TActionChainFactory(threadPolicy).get().netMapToInt(obj -> 10);
+        chain.fail(IOException.class, error -> error.retry()).netMap(x -> {
+            if (attempts.incrementAndGet() < 3)
+                throw new IOException("try again");
+            return x + 1;
+        }).start(ans -> {
+            result.set(ans);
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(11, (int) result.get());
+        Assert.assertEquals(3, attempts.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestNoAllocation() {
+        final com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        final int numLinks = 100000;
+        final long threadId = Thread.currentThread().getId();
+        final long[] bytes = new long[2];
+
+        // the actions run on the main thread, and there is no ThreadChanger, so the whole chain runs inline
+        final IntChain chain = new TActionChainFactory(threadPolicy).get(error -> Assert.fail(error.getCause().toString()))
+                .uiMapToInt(obj -> {
+                    bytes[0] = threadMXBean.getThreadAllocatedBytes(threadId);
+                    return 1000000;
+                });
+        for (int i = 0; i < numLinks; i++)
+            chain.uiMap(x -> x + 1000);
+        chain.uiMap(x -> {
+            bytes[1] = threadMXBean.getThreadAllocatedBytes(threadId);
+            return x;
+        });
+        // the first run loads classes and sets up thread locals
+        chain.start();
+        final AtomicReference<Integer> result = new AtomicReference<>();
+        chain.start(result::set);
+        Assert.assertEquals(1000000 + 1000 * numLinks, (int) result.get());
+        final long allocated = bytes[1] - bytes[0];
+        // a boxed Integer per link would take numLinks * 16 bytes
+        Assert.assertTrue(allocated + " bytes allocated by " + numLinks + " int links", allocated < numLinks);
+    }
+}
@@ -0,0 +1,142 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ActionChainFactory;
+import zyu19.libs.action.chain.ExceptionList;
+import zyu19.libs.action.chain.ReadOnlyChain;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that ActionChain.firstOf() and ActionChain.quorum() resume the chain as soon as enough
+ * subChains have succeeded, and cancel the others.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class QuorumTest {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    ActionChainFactory factory = new ActionChainFactory(new ThreadPolicy(executor));
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    ReadOnlyChain delayed(final Object output, final long millis) {
+        return factory.get().netThen(() -> {
+            Thread.sleep(millis);
+            return output;
+        }).start();
+    }
+
+    ReadOnlyChain failing(final Exception err) {
+        return factory.get().netThen(() -> {
+            throw err;
+        }).start();
+    }
+
+    @Test(timeout = 2000)
+    public void TestFirstOfCancelsLosers() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CountDownLatch loserMayGoOn = new CountDownLatch(1);
+        final CountDownLatch loserWentOn = new CountDownLatch(1);
+        final AtomicReference<Object> output = new AtomicReference<>();
+
+        factory.get(error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> {
+            ReadOnlyChain loser = factory.get().netThen(() -> {
+                loserMayGoOn.await();
+                return "slow";
+            }).netThen((String obj) -> {
+                loserWentOn.countDown();
+                return obj;
+            }).start();
+            return ActionChain.firstOf(loser, delayed("fast", 10));
+        }).start(obj -> {
+            output.set(obj);
+            latch.countDown();
+        });
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals("fast", output.get());
+        loserMayGoOn.countDown();
+        Assert.assertFalse("The loser went on after being cancelled", loserWentOn.await(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestQuorumToleratesFailures() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Exception expected = new Exception("expected");
+        final List<Object> rest = Collections.synchronizedList(new ArrayList<>());
+        final AtomicReference<List<Object>> output = new AtomicReference<>();
+
+        factory.get(error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> ActionChain.quorum(2, Arrays.asList(
+                failing(expected), delayed(1, 50), delayed(2, 100), delayed(3, 1000)), rest::add)
+        ).start((List<Object> obj) -> {
+            output.set(obj);
+            latch.countDown();
+        });
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(1, 2), output.get());
+        Assert.assertEquals(Arrays.asList(expected), rest);
+    }
+
+    @Test(timeout = 2000)
+    public void TestQuorumNotReachable() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Exception> cause = new AtomicReference<>();
+        final AtomicBoolean succeeded = new AtomicBoolean(false);
+
+        factory.get(error -> {
+            cause.set(error.getCause());
+            latch.countDown();
+        }).netThen(() -> ActionChain.quorum(2, Arrays.asList(
+                failing(new Exception("first")), delayed(1, 1000), failing(new Exception("second"))))
+        ).start(obj -> succeeded.set(true));
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(cause.get() instanceof ExceptionList);
+        Assert.assertEquals(2, ((ExceptionList) cause.get()).getAllCauses().size());
+        Assert.assertFalse(succeeded.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestPlainObjectWins() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        factory.get(error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> ActionChain.firstOf(delayed("slow", 1000), "cached")
+        ).start(obj -> {
+            Assert.assertEquals("cached", obj);
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestQuorumLargerThanSubChains() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        factory.get(error -> {
+            Assert.assertTrue(error.getCause() instanceof IllegalArgumentException);
+            latch.countDown();
+        }).netThen(() -> ActionChain.quorum(3, Arrays.asList(1, 2))
+        ).start(obj -> Assert.fail("should not have succeeded"));
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+}
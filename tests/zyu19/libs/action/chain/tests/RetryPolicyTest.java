@@ -0,0 +1,163 @@
+package zyu19.libs.action.chain.tests;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ReadOnlyChain;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.RetryBudget;
+import zyu19.libs.action.chain.config.RetryPolicy;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that ErrorHolder.retryAfter() and RetryPolicy retry without holding a thread, and give up in time.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class RetryPolicyTest {
+    // a single worker: a retry that slept on it would stall every other chain
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    ThreadPolicy threadPolicy = new ThreadPolicy(executor);
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * An action failing with an IOException until it has run numFailures times.
+     */
+    ActionChain flaky(ThreadPolicy threadPolicy, AtomicInteger numRuns, int numFailures) {
+        return (ActionChain) new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+        ).fail(IOException.class, new RetryPolicy(3, 100, TimeUnit.MILLISECONDS).backoff(2, 1, TimeUnit.SECONDS), null
+        ).netThen(() -> {
+            if (numRuns.incrementAndGet() <= numFailures)
+                throw new IOException("flaky");
+            return "done";
+        });
+    }
+
+    @Test(timeout = 3000)
+    public void TestBackoffDoesNotHoldThread() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger numRuns = new AtomicInteger(0);
+        final long startedAt = System.nanoTime();
+        flaky(threadPolicy, numRuns, 2).start(obj -> {
+            Assert.assertEquals("done", obj);
+            latch.countDown();
+        });
+
+        // runs on the only worker while the flaky chain waits for its retries
+        final CountDownLatch other = new CountDownLatch(1);
+        Thread.sleep(20);
+        new ActionChain(threadPolicy).netThen(() -> 1).start(obj -> other.countDown());
+        Assert.assertTrue(other.await(50, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, latch.getCount());
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(3, numRuns.get());
+        // 100 ms, then 200 ms
+        Assert.assertTrue(System.nanoTime() - startedAt >= TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    @Test(timeout = 2000)
+    public void TestGiveUp() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger numRuns = new AtomicInteger(0);
+        final AtomicInteger retryCount = new AtomicInteger(-1);
+
+        new ActionChain(threadPolicy).fail(IOException.class, new RetryPolicy(2, 10, TimeUnit.MILLISECONDS), error -> {
+            retryCount.set(error.getRetryCount());
+            latch.countDown();
+        }).netThen(() -> {
+            numRuns.incrementAndGet();
+            throw new IOException("down");
+        }).start(obj -> Assert.fail("should not have succeeded"));
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(3, numRuns.get());
+        Assert.assertEquals(2, retryCount.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestOtherErrorsGoToPreviousHandler() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger numRuns = new AtomicInteger(0);
+        final AtomicReference<Exception> cause = new AtomicReference<>();
+
+        new ActionChain(threadPolicy, error -> {
+            cause.set(error.getCause());
+            latch.countDown();
+        }).fail(IOException.class, new RetryPolicy(5, 10, TimeUnit.MILLISECONDS), null).netThen(() -> {
+            numRuns.incrementAndGet();
+            throw new IllegalStateException("not retried");
+        }).start(obj -> Assert.fail("should not have succeeded"));
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(cause.get() instanceof IllegalStateException);
+        Assert.assertEquals(1, numRuns.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestBudgetIsShared() throws InterruptedException {
+        final int numChains = 5;
+        final CountDownLatch latch = new CountDownLatch(numChains);
+        final AtomicInteger numRuns = new AtomicInteger(0);
+        final RetryPolicy policy = new RetryPolicy(10, 1, TimeUnit.MILLISECONDS)
+                .budget(new RetryBudget(3, 10, TimeUnit.SECONDS));
+
+        for (int i = 0; i < numChains; i++)
+            new ActionChain(threadPolicy).fail(IOException.class, policy, error -> latch.countDown()
+            ).netThen(() -> {
+                numRuns.incrementAndGet();
+                throw new IOException("down");
+            }).start();
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(numChains + 3, numRuns.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestCancelWhileWaiting() throws InterruptedException {
+        final AtomicInteger numRuns = new AtomicInteger(0);
+        final ReadOnlyChain chain = flaky(threadPolicy, numRuns, 1).start();
+        Thread.sleep(50);
+        Assert.assertTrue(chain.cancel());
+        Thread.sleep(150);
+        Assert.assertEquals("The retry ran after cancel()", 1, numRuns.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestSynchronizedEngine() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger numRuns = new AtomicInteger(0);
+        threadPolicy.setEngine(ChainEngine.SYNCHRONIZED);
+        flaky(threadPolicy, numRuns, 1).start(obj -> latch.countDown());
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(2, numRuns.get());
+    }
+
+    @Test
+    public void TestJitterBounds() {
+        final RetryPolicy policy = new RetryPolicy(20, 100, TimeUnit.MILLISECONDS)
+                .backoff(2, 1, TimeUnit.SECONDS).jitter(0.5);
+        for (int retryCount = 0; retryCount < 20; retryCount++) {
+            final long backoff = Math.min(TimeUnit.MILLISECONDS.toNanos(100) << Math.min(retryCount, 10),
+                    TimeUnit.SECONDS.toNanos(1));
+            final long delay = policy.nextDelayNanos(retryCount);
+            Assert.assertTrue(delay <= backoff && delay >= backoff / 2);
+        }
+        Assert.assertEquals(-1, policy.nextDelayNanos(20));
+    }
+}
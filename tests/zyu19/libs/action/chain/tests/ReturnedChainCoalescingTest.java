@@ -0,0 +1,25 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import zyu19.libs.action.chain.config.CoalescingThreadChanger;
+import zyu19.libs.action.chain.config.ThreadChanger;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Runs the same tests with batched main thread callbacks.
+ * Created on 10/18/2026.
+ */
+public class ReturnedChainCoalescingTest extends ReturnedChain_Template {
+    @Override
+    ExecutorService getExecutors() {
+        return Executors.newCachedThreadPool();
+    }
+
+    @Override
+    ThreadPolicy getThreadPolicy(ThreadChanger threadChanger) {
+        // a small batch, so that drain tasks also have to post the next one
+        return new ThreadPolicy(new CoalescingThreadChanger(threadChanger, 3), getExecutors());
+    }
+}
@@ -0,0 +1,24 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import zyu19.libs.action.chain.config.ForkJoinThreadPolicy;
+import zyu19.libs.action.chain.config.ThreadChanger;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Runs the same tests on a work-stealing ForkJoinThreadPolicy.
+ * Created on 10/18/2026.
+ */
+public class ReturnedChainForkJoinPoolTest extends ReturnedChain_Template {
+    @Override
+    ExecutorService getExecutors() {
+        return new ForkJoinPool(4);
+    }
+
+    @Override
+    ThreadPolicy getThreadPolicy(ThreadChanger threadChanger) {
+        return new ForkJoinThreadPolicy(threadChanger, (ForkJoinPool) getExecutors());
+    }
+}
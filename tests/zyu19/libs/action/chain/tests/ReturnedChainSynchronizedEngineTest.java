@@ -0,0 +1,22 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import zyu19.libs.action.chain.config.ChainEngine;
+
+/**
+ * Runs the same tests on the original, synchronized engine.
+ * Created on 10/18/2026.
+ */
+public class ReturnedChainSynchronizedEngineTest extends ReturnedChain_Template {
+    @Override
+    ExecutorService getExecutors() {
+        return Executors.newCachedThreadPool();
+    }
+
+    @Override
+    ChainEngine getEngine() {
+        return ChainEngine.SYNCHRONIZED;
+    }
+}
@@ -25,7 +25,7 @@ import zyu19.libs.action.chain.config.*;
  */
 public abstract class ReturnedChain_Template {
     BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
-    ThreadPolicy threadPolicy = new ThreadPolicy(runnable -> queue.add(runnable), getExecutors());
+    ThreadPolicy threadPolicy = getThreadPolicy(runnable -> queue.add(runnable)).setEngine(getEngine());
     ActionChainFactory factory = new ActionChainFactory(threadPolicy);
     ActionChain chain = factory.get();
 
@@ -34,6 +34,16 @@ public abstract class ReturnedChain_Template {
     // use this to test both CachedPool and FixedPool
     abstract ExecutorService getExecutors();
 
+    // use this to test other kinds of ThreadPolicy
+    ThreadPolicy getThreadPolicy(ThreadChanger threadChanger) {
+        return new ThreadPolicy(threadChanger, getExecutors());
+    }
+
+    // use this to test both ChainEngines
+    ChainEngine getEngine() {
+        return ChainEngine.LOCK_FREE;
+    }
+
     public void updateMainThread(Thread thread) {
         mainThread = thread;
     }
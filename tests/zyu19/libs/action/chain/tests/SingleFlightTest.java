@@ -0,0 +1,140 @@
+package zyu19.libs.action.chain.tests;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ReadOnlyChain;
+import zyu19.libs.action.chain.SingleFlight;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that singleFlightThen() runs its action once for all the chains asking for the same key at the same time,
+ * and that they all get its output or its error.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class SingleFlightTest {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    ThreadPolicy threadPolicy = new ThreadPolicy(executor);
+    SingleFlight<String> flights = new SingleFlight<>();
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    ActionChain lookup(AtomicInteger numRuns, CountDownLatch mayReturn) {
+        return (ActionChain) new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> "hello").singleFlightThen((String key) -> key, flights, (String key) -> {
+            numRuns.incrementAndGet();
+            mayReturn.await();
+            return key.length();
+        });
+    }
+
+    @Test(timeout = 2000)
+    public void TestConcurrentChainsShareOneRun() throws InterruptedException {
+        final int numChains = 50;
+        final CountDownLatch latch = new CountDownLatch(numChains);
+        final CountDownLatch mayReturn = new CountDownLatch(1);
+        final AtomicInteger numRuns = new AtomicInteger(0);
+
+        for (int i = 0; i < numChains; i++)
+            lookup(numRuns, mayReturn).start(obj -> {
+                Assert.assertEquals(5, obj);
+                latch.countDown();
+            });
+        Thread.sleep(50);
+        mayReturn.countDown();
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, numRuns.get());
+        Assert.assertEquals(1, flights.getNumFlights());
+        Assert.assertEquals(numChains - 1, flights.getNumShared());
+        Assert.assertEquals("Nothing is kept after the flight", 0, flights.size());
+    }
+
+    @Test(timeout = 2000)
+    public void TestEveryChainGetsTheError() throws InterruptedException {
+        final int numChains = 10;
+        final CountDownLatch latch = new CountDownLatch(numChains);
+        final CountDownLatch mayThrow = new CountDownLatch(1);
+        final IOException expected = new IOException("down");
+        final AtomicInteger numRuns = new AtomicInteger(0);
+
+        for (int i = 0; i < numChains; i++)
+            new ActionChain(threadPolicy, error -> {
+                Assert.assertSame(expected, error.getCause());
+                latch.countDown();
+            }).netThen(() -> "key").singleFlightThen((String key) -> key, flights, (String key) -> {
+                numRuns.incrementAndGet();
+                mayThrow.await();
+                throw expected;
+            }).start(obj -> Assert.fail("should not have succeeded"));
+        Thread.sleep(50);
+        mayThrow.countDown();
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(1, numRuns.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestCancelledWaiterDoesNotCancelFlight() throws Exception {
+        final CountDownLatch mayReturn = new CountDownLatch(1);
+        final AtomicInteger numRuns = new AtomicInteger(0);
+        final ReadOnlyChain first = new ActionChain(threadPolicy).netThen(() -> "hello").singleFlightThen(
+                (String key) -> key, flights, (String key) -> {
+                    numRuns.incrementAndGet();
+                    mayReturn.await();
+                    return key.length();
+                }).start();
+        Thread.sleep(50);
+        final ReadOnlyChain second = new ActionChain(threadPolicy).netThen(() -> "hello").singleFlightThen(
+                (String key) -> key, flights, (String key) -> {
+                    numRuns.incrementAndGet();
+                    return -1;
+                }).start();
+        Thread.sleep(50);
+
+        Assert.assertTrue(first.cancel());
+        mayReturn.countDown();
+        Assert.assertEquals(5, second.await());
+        Assert.assertEquals(1, numRuns.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestFinishedFlightRunsAgain() throws Exception {
+        final AtomicInteger numRuns = new AtomicInteger(0);
+        for (int i = 0; i < 3; i++) {
+            final Object output = new ActionChain(threadPolicy).netThen(() -> "key").singleFlightThen(
+                    (String key) -> key, flights, (String key) -> numRuns.incrementAndGet()).start().await();
+            Assert.assertEquals(i + 1, output);
+        }
+        Assert.assertEquals(3, flights.getNumFlights());
+    }
+
+    @Test(timeout = 2000)
+    public void TestSynchronizedEngine() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Exception> cause = new AtomicReference<>();
+        threadPolicy.setEngine(ChainEngine.SYNCHRONIZED);
+        new ActionChain(threadPolicy, error -> {
+            cause.set(error.getCause());
+            latch.countDown();
+        }).netThen(() -> "key").singleFlightThen((String key) -> key, flights, (String key) -> 1).start();
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(cause.get() instanceof UnsupportedOperationException);
+    }
+}
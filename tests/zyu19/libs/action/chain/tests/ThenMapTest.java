@@ -0,0 +1,145 @@
+package zyu19.libs.action.chain.tests;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.TActionChainFactory;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.ForkJoinThreadPolicy;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that thenMap() maps every element in parallel, keeps their order, and resumes the chain once.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class ThenMapTest {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    ThreadPolicy threadPolicy = new ThreadPolicy(executor);
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    List<Integer> range(int size) {
+        final List<Integer> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            list.add(i);
+        return list;
+    }
+
+    void checkSquares(ThreadPolicy threadPolicy, Object input, int size, int parallelism) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger(0);
+        final AtomicInteger maxRunning = new AtomicInteger(0);
+        new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+        ).netThen(() -> input).thenMap((Integer x) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            running.decrementAndGet();
+            return (long) x * x;
+        }, parallelism, 64).start((List<Long> squares) -> {
+            Assert.assertEquals(size, squares.size());
+            for (int i = 0; i < size; i++)
+                Assert.assertEquals((long) i * i, (long) squares.get(i));
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(2, TimeUnit.SECONDS));
+        Assert.assertTrue(maxRunning.get() <= parallelism);
+    }
+
+    @Test(timeout = 5000)
+    public void TestOrderPreserved() throws InterruptedException {
+        checkSquares(threadPolicy, range(100000), 100000, 4);
+    }
+
+    @Test(timeout = 5000)
+    public void TestRejectedTasks() throws InterruptedException {
+        final AtomicInteger numTasks = new AtomicInteger(0);
+        final ThreadPolicy saturated = new ThreadPolicy(executor) {
+            @Override
+            public void runWorker(Runnable operation) {
+                // the links run, but every task the map tries to add is rejected
+                if (numTasks.incrementAndGet() > 2)
+                    throw new RejectedExecutionException("saturated");
+                super.runWorker(operation);
+            }
+        };
+        checkSquares(saturated, range(10000), 10000, 4);
+    }
+
+    @Test(timeout = 5000)
+    public void TestForkJoin() throws InterruptedException {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            checkSquares(new ForkJoinThreadPolicy(pool), range(100000), 100000, 8);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 2000)
+    public void TestInputs() throws InterruptedException {
+        // an array, a List without random access, and a List that fits in one chunk
+        checkSquares(threadPolicy, range(1000).toArray(new Integer[0]), 1000, 4);
+        checkSquares(threadPolicy, new LinkedList<>(range(1000)), 1000, 4);
+        checkSquares(threadPolicy, range(10), 10, 4);
+        checkSquares(threadPolicy, range(0), 0, 4);
+    }
+
+    @Test(timeout = 2000)
+    public void TestTyped() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        new TActionChainFactory(threadPolicy).get().netThen(obj -> Arrays.asList("a", "bb", "ccc"))
+                .thenMap((String s) -> s.length(), 2, 1).start((List<Integer> lengths) -> {
+            Assert.assertEquals(Arrays.asList(1, 2, 3), lengths);
+            latch.countDown();
+        });
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestFailure() throws InterruptedException {
+        final IOException expected = new IOException("bad element");
+        final CountDownLatch latch = new CountDownLatch(1);
+        new ActionChain(threadPolicy, error -> {
+            Assert.assertSame(expected, error.getCause());
+            latch.countDown();
+        }).netThen(() -> range(10000)).thenMap((Integer x) -> {
+            if (x == 7777)
+                throw expected;
+            return x;
+        }, 4, 100).start(obj -> Assert.fail("should not have succeeded"));
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 2000)
+    public void TestSynchronizedEngine() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Exception> cause = new AtomicReference<>();
+        threadPolicy.setEngine(ChainEngine.SYNCHRONIZED);
+        new ActionChain(threadPolicy, error -> {
+            cause.set(error.getCause());
+            latch.countDown();
+        }).netThen(() -> range(1000)).thenMap((Integer x) -> x, 4, 10).start();
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(cause.get() instanceof UnsupportedOperationException);
+    }
+}
@@ -0,0 +1,231 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.ReadOnlyChain;
+import zyu19.libs.action.chain.config.ChainEngine;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Checks that the timeouts of the actions and the deadlines of the chains go through the usual error handlers.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class TimeoutTest {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    ThreadPolicy threadPolicy = new ThreadPolicy(executor);
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    @Test(timeout = 2000)
+    public void TestRetryAfterTimeout() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CountDownLatch firstAttemptMayReturn = new CountDownLatch(1);
+        final AtomicInteger numAttempts = new AtomicInteger(0);
+        final AtomicInteger numTimeouts = new AtomicInteger(0);
+        final AtomicReference<Object> output = new AtomicReference<>();
+
+        new ActionChain(threadPolicy, error -> {
+            Assert.assertTrue(error.getCause() instanceof TimeoutException);
+            numTimeouts.incrementAndGet();
+            error.retry();
+        }).netThen(obj -> "input").netThen((String input) -> {
+            if (numAttempts.incrementAndGet() == 1) {
+                // hangs past its timeout, then returns while the second attempt is running
+                firstAttemptMayReturn.await();
+                return "late " + input;
+            }
+            firstAttemptMayReturn.countDown();
+            Thread.sleep(50);
+            return "retried " + input;
+        }, 100, TimeUnit.MILLISECONDS).start(obj -> {
+            output.set(obj);
+            latch.countDown();
+        });
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals("The late output of the first attempt must be dropped", "retried input", output.get());
+        Assert.assertEquals(1, numTimeouts.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestJumpByAfterTimeout() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CountDownLatch hang = new CountDownLatch(1);
+
+        new ActionChain(threadPolicy, error -> error.jumpBy(1)
+        ).netThen(obj -> {
+            hang.await();
+            return "hung";
+        }, 50, TimeUnit.MILLISECONDS).netThen(obj -> "skipped").start(obj -> {
+            Assert.assertEquals("skipped", obj);
+            latch.countDown();
+        });
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        hang.countDown();
+    }
+
+    @Test(timeout = 2000)
+    public void TestTimeoutWhileWaitingForSubChain() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final CountDownLatch hang = new CountDownLatch(1);
+        final ReadOnlyChain[] subChain = new ReadOnlyChain[1];
+        final AtomicReference<Exception> cause = new AtomicReference<>();
+
+        new ActionChain(threadPolicy, error -> {
+            cause.set(error.getCause());
+            latch.countDown();
+        }).netThen(obj -> subChain[0] = new ActionChain(threadPolicy).netThen(() -> {
+            hang.await();
+            return 1;
+        }).start(), 100, TimeUnit.MILLISECONDS).start(obj -> Assert.fail("should not have succeeded"));
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(cause.get() instanceof TimeoutException);
+        Assert.assertTrue("The abandoned subChain should be cancelled", subChain[0].isCancelled());
+        hang.countDown();
+    }
+
+    @Test(timeout = 2000)
+    public void TestDeadline() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger position = new AtomicInteger(-1);
+        final AtomicReference<Exception> cause = new AtomicReference<>();
+
+        ActionChain chain = new ActionChain(threadPolicy, error -> {
+            position.set(error.getPosition());
+            cause.set(error.getCause());
+            latch.countDown();
+        });
+        // every action is fast, but there are too many of them
+        for (int i = 0; i < 100; i++)
+            chain.netConsume(obj -> Thread.sleep(10));
+        chain.deadline(150, TimeUnit.MILLISECONDS).start(obj -> Assert.fail("should not have succeeded"));
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(cause.get() instanceof TimeoutException);
+        Assert.assertTrue(position.get() > 0 && position.get() < 100);
+    }
+
+    @Test(timeout = 2000)
+    public void TestDeadlineDuringErrorHandler() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger numAttempts = new AtomicInteger(0);
+        final AtomicReference<Exception> cause = new AtomicReference<>();
+
+        new ActionChain(threadPolicy, error -> {
+            if (error.getCause() instanceof TimeoutException) {
+                cause.set(error.getCause());
+                latch.countDown();
+                return;
+            }
+            // the deadline expires while the handler owns the error
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+            error.retry();
+        }).netThen(() -> {
+            if (numAttempts.incrementAndGet() == 1)
+                throw new IllegalStateException("first attempt");
+            return 1;
+        }).deadline(100, TimeUnit.MILLISECONDS).start(obj -> Assert.fail("The deadline was lost while the handler ran"));
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue(cause.get() instanceof TimeoutException);
+        Assert.assertEquals("The action must not run again past the deadline", 1, numAttempts.get());
+    }
+
+    @Test(timeout = 2000)
+    public void TestDeadlineDuringLongJoin() throws InterruptedException {
+        // two workers: one sets up the join, so an expired deadline must not hold the other one meanwhile
+        final ExecutorService twoWorkers = Executors.newFixedThreadPool(2);
+        final ThreadPolicy twoWorkersPolicy = new ThreadPolicy(twoWorkers);
+        final CountDownLatch joining = new CountDownLatch(1);
+        final AtomicReference<Exception> cause = new AtomicReference<>();
+        final CountDownLatch failed = new CountDownLatch(1);
+        try {
+            // never finishes, and waits without a thread
+            final Object subChain = new ActionChain(twoWorkersPolicy).netThen(() -> new CompletableFuture<Integer>()).start();
+            final List<Object> slowList = new AbstractList<Object>() {
+                @Override
+                public Object get(int index) {
+                    return subChain;
+                }
+
+                @Override
+                public int size() {
+                    return 1;
+                }
+
+                @Override
+                public Object[] toArray() {
+                    joining.countDown();
+                    try {
+                        Thread.sleep(300);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return super.toArray();
+                }
+            };
+            new ActionChain(twoWorkersPolicy, error -> {
+                cause.set(error.getCause());
+                failed.countDown();
+            }).netThen(() -> ActionChain.all(slowList)).deadline(50, TimeUnit.MILLISECONDS).start();
+
+            Assert.assertTrue(joining.await(1, TimeUnit.SECONDS));
+            // the deadline has expired by now
+            Thread.sleep(100);
+            final CountDownLatch probe = new CountDownLatch(1);
+            twoWorkers.execute(probe::countDown);
+            Assert.assertTrue("a worker is held by the expired deadline", probe.await(100, TimeUnit.MILLISECONDS));
+
+            Assert.assertTrue(failed.await(1, TimeUnit.SECONDS));
+            Assert.assertTrue(cause.get() instanceof TimeoutException);
+        } finally {
+            twoWorkers.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 2000)
+    public void TestNoTimeoutWhenFast() throws InterruptedException {
+        final int numChains = 1000;
+        final CountDownLatch latch = new CountDownLatch(numChains);
+        for (int i = 0; i < numChains; i++)
+            new ActionChain(threadPolicy, error -> Assert.fail(error.getCause().toString())
+            ).netThen(obj -> 1, 1, TimeUnit.SECONDS).uiThen(obj -> 2, 1, TimeUnit.SECONDS
+            ).deadline(1, TimeUnit.SECONDS).start(obj -> latch.countDown());
+
+        Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+        // the timeouts of the finished chains have been cancelled
+        Thread.sleep(50);
+        Assert.assertEquals(0, threadPolicy.getTimer().getPendingTimeouts());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void TestSynchronizedEngine() {
+        threadPolicy.setEngine(ChainEngine.SYNCHRONIZED);
+        new ActionChain(threadPolicy).netThen(obj -> 1, 1, TimeUnit.SECONDS).start();
+    }
+}
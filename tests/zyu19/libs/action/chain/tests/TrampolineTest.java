@@ -0,0 +1,118 @@
+package zyu19.libs.action.chain.tests;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import zyu19.libs.action.chain.ActionChain;
+import zyu19.libs.action.chain.config.ThreadPolicy;
+
+/**
+ * Regression benchmarks for chains that run inline: without a ThreadChanger, main thread actions
+ * used to call each other recursively, so long chains ran out of stack.
+ * Created on 10/18/2026.
+ *
+ * @version 0.4
+ */
+public class TrampolineTest {
+    final static int numLinks = 1000000;
+
+    ExecutorService executor = Executors.newCachedThreadPool();
+    // no ThreadChanger: main thread actions run directly on the calling thread
+    ThreadPolicy threadPolicy = new ThreadPolicy(executor);
+
+    @After
+    public void AfterTests() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * An ExecutorService that runs every task on the thread that submits it.
+     */
+    static class DirectExecutorService extends AbstractExecutorService {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    void runLongChain(ThreadPolicy policy, boolean runOnWorkerThread) {
+        final AtomicBoolean finished = new AtomicBoolean(false);
+        ActionChain chain = new ActionChain(policy, error -> Assert.fail(error.getCause().toString())
+        ).then(runOnWorkerThread, () -> 0);
+        for (int i = 1; i < numLinks; i++)
+            chain.then(runOnWorkerThread, (Integer input) -> input + 1);
+
+        chain.start((Integer output) -> {
+            Assert.assertEquals(numLinks - 1, (int) output);
+            finished.set(true);
+        });
+
+        // everything ran inline, so it must have finished by now
+        Assert.assertTrue(numLinks + " inline links did not finish inside start()", finished.get());
+    }
+
+    @Test(timeout = 20000)
+    public void TestMillionMainThreadLinks() {
+        runLongChain(threadPolicy, false);
+    }
+
+    @Test(timeout = 20000)
+    public void TestMillionWorkerLinksOnDirectExecutor() {
+        runLongChain(new ThreadPolicy(new DirectExecutorService()), true);
+    }
+
+    @Test(timeout = 20000)
+    public void TestManyRetriesInline() {
+        final int numRetries = 100000;
+        final AtomicInteger numErrors = new AtomicInteger(0);
+        final AtomicBoolean finished = new AtomicBoolean(false);
+
+        new ActionChain(threadPolicy, error -> {
+            numErrors.incrementAndGet();
+            error.retry();
+        }).uiThen(() -> {
+            if (numErrors.get() < numRetries)
+                throw new Exception();
+            return numErrors.get();
+        }).start((Integer output) -> {
+            Assert.assertEquals(numRetries, (int) output);
+            finished.set(true);
+        });
+
+        Assert.assertTrue(finished.get());
+    }
+}